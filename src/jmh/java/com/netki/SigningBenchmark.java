@@ -0,0 +1,108 @@
+package com.netki;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.security.Signature;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.io.BaseEncoding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongycastle.jce.ECNamedCurveTable;
+import org.spongycastle.jce.provider.BouncyCastleProvider;
+
+/**
+ * Request signing cost, before and after precomputed headers and pooled Signature reuse
+ *
+ * Run with the GC profiler to compare allocation per request (gc.alloc.rate.norm):
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="SigningBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SigningBenchmark {
+
+    private static final String URL = "https://api.netki.com/v1/partner/walletname?domain_name=domain.com&external_id=external_id";
+
+    private KeyPair userKey;
+    private byte[] body;
+    private NetkiClient client;
+    private Requestor requestor;
+    private RequestSigner secp256k1Signer;
+
+    @Setup
+    public void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("ECDSA", BouncyCastleProvider.PROVIDER_NAME);
+        generator.initialize(ECNamedCurveTable.getParameterSpec("secp256k1"), new SecureRandom());
+        this.userKey = generator.generateKeyPair();
+
+        StringBuilder sb = new StringBuilder("{\"wallet_names\": [");
+        for (int i = 0; i < 100; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"domain_name\": \"domain.com\", \"name\": \"wallet").append(i).append("\"}");
+        }
+        this.body = sb.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        this.client = new NetkiClient("partner_ksk_hex", "partner_ksk_sig_hex", this.userKey, "https://api.netki.com");
+        this.requestor = new Requestor();
+        this.secp256k1Signer = new Secp256k1RequestSigner(this.userKey);
+    }
+
+    /**
+     * Previous signing path: provider lookup, initSign, URL + body concatenation and public key hex on every call
+     */
+    @Benchmark
+    public String legacySign() throws Exception {
+        byte[] urlBytes = URL.getBytes();
+        byte[] sigData = new byte[urlBytes.length + this.body.length];
+        System.arraycopy(urlBytes, 0, sigData, 0, urlBytes.length);
+        System.arraycopy(this.body, 0, sigData, urlBytes.length, this.body.length);
+
+        Signature ecdsaSig = Signature.getInstance("SHA256withECDSA", "SC");
+        ecdsaSig.initSign(this.userKey.getPrivate());
+        ecdsaSig.update(sigData);
+        byte[] sig = ecdsaSig.sign();
+
+        return BaseEncoding.base16().encode(this.userKey.getPublic().getEncoded()) + BaseEncoding.base16().encode(sig);
+    }
+
+    /**
+     * Default provider-based signer alone
+     */
+    @Benchmark
+    public byte[] sign() throws Exception {
+        return this.client.getRequestSigner().sign(URL, this.body);
+    }
+
+    /**
+     * Fixed-base secp256k1 signer with RFC 6979 nonces
+     */
+    @Benchmark
+    public byte[] signSecp256k1() throws Exception {
+        return this.secp256k1Signer.sign(URL, this.body);
+    }
+
+    /**
+     * Full request build: headers, signature and content
+     */
+    @Benchmark
+    public TransportRequest buildRequest() throws Exception {
+        return this.requestor.buildRequest(this.client, "/v1/partner/walletname", "POST", this.body);
+    }
+}
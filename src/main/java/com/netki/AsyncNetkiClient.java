@@ -0,0 +1,214 @@
+package com.netki;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous view of a {@link NetkiClient}
+ *
+ * Every operation returns a {@link CompletableFuture}. With an {@link AsyncTransport} (i.e., {@link NioTransport})
+ * no thread is held while requests are in flight and responses are processed on the caller-supplied
+ * {@link Executor}; with a blocking {@link Transport} the requests themselves run on the Executor. Failures
+ * complete the future exceptionally with a {@link java.util.concurrent.CompletionException} wrapping the same
+ * exception the blocking {@link NetkiClient} call would have thrown.
+ */
+public class AsyncNetkiClient {
+
+    private final NetkiClient client;
+    private final Executor executor;
+
+    /**
+     * Instantiate an AsyncNetkiClient
+     *
+     * @param client NetkiClient used to make API calls
+     * @param executor Executor that API calls are run on
+     */
+    public AsyncNetkiClient(NetkiClient client, Executor executor) {
+        if (client == null || executor == null) {
+            throw new IllegalArgumentException("client and executor MUST NOT be null");
+        }
+        this.client = client;
+        this.executor = executor;
+    }
+
+    /**
+     * Get all Wallet Names
+     *
+     * @return Future List of WalletNames
+     */
+    public CompletableFuture<List<WalletName>> getWalletNames() {
+        return this.getWalletNames(null, null);
+    }
+
+    /**
+     * Get Wallet Names matching the given criteria
+     *
+     * @param domainName Domain Name filter
+     * @param externalId External ID filter
+     * @return Future List of matching Wallet Names
+     */
+    public CompletableFuture<List<WalletName>> getWalletNames(String domainName, String externalId) {
+        return Futures.map(this.get(client.walletNamesUri(domainName, externalId)), client::parseWalletNames);
+    }
+
+    /**
+     * Retrieve Existing Certificate
+     *
+     * @param id Certificate Id
+     * @return Future Certificate retrieved from Netki
+     */
+    public CompletableFuture<Certificate> getCertificate(String id) {
+        Certificate cert = client.createCertificate();
+        cert.setId(id);
+        return cert.getStatusAsync(this.executor);
+    }
+
+    /**
+     * Retrieve Available Products
+     *
+     * @return Future List of Available Products
+     */
+    public CompletableFuture<List<Product>> getAvailableProducts() {
+        return Futures.map(this.get("/v1/certificate/products"), client::parseProducts);
+    }
+
+    /**
+     * Retrieve CA Certificates
+     *
+     * @return Future CACert File
+     */
+    public CompletableFuture<String> getCACertBundle() {
+        return Futures.map(this.get("/v1/certificate/cacert"), client::parseCACertBundle);
+    }
+
+    /**
+     * Retrieve Current Account Balance in USD Cents
+     *
+     * @return Future current account balance in USD Cents
+     */
+    public CompletableFuture<Integer> getAccountBalance() {
+        return Futures.map(this.get("/v1/certificate/balance"), client::parseAccountBalance);
+    }
+
+    /**
+     * Create a new Partner
+     *
+     * @param partnerName New Partner Name
+     * @return Future Partner that has already been saved to Netki
+     */
+    public CompletableFuture<Partner> createPartner(String partnerName) {
+        return Futures.map(client.getRequestor().processRequestAsync(
+                client,
+                "/v1/admin/partner/" + partnerName,
+                "POST",
+                null,
+                this.executor
+        ), client::parsePartner);
+    }
+
+    /**
+     * Get all partners
+     *
+     * @return Future List of Partners
+     */
+    public CompletableFuture<List<Partner>> getPartners() {
+        return Futures.map(this.get("/v1/admin/partner"), client::parsePartners);
+    }
+
+    /**
+     * Create and save a new Domain with Netki
+     *
+     * @param domainName Domain Name
+     * @param partner Partner to own the domain (can be null if not owned by a partner)
+     * @return Future Domain
+     */
+    public CompletableFuture<Domain> createDomain(final String domainName, Partner partner) {
+
+        String submitData;
+        try {
+            submitData = client.createDomainData(partner);
+        } catch (Exception e) {
+            return Futures.failed(e);
+        }
+
+        return Futures.map(client.getRequestor().processRequestAsync(
+                client,
+                "/v1/partner/domain/" + domainName,
+                "POST",
+                submitData,
+                this.executor
+        ), responseStr -> client.parseCreatedDomain(domainName, responseStr));
+    }
+
+    /**
+     * Get all partner domains
+     *
+     * Status and DNSSEC details are loaded with the same policy as {@link NetkiClient#getDomains()}: up to
+     * {@link NetkiClient#getDomainLoadParallelism()} calls at once, following {@link NetkiClient#getDnssecLoading()}
+     * and {@link NetkiClient#getLazyDomainLoading()}.
+     *
+     * @return Future List of partner domains
+     */
+    public CompletableFuture<List<Domain>> getDomains() {
+        return Futures.map(this.get("/api/domain"), client::parseDomains).thenCompose(domains -> {
+
+            if (client.getLazyDomainLoading()) {
+                for (Domain d : domains) {
+                    d.loadOnAccess();
+                }
+                return CompletableFuture.completedFuture(domains);
+            }
+
+            final int parallelism = client.getDomainLoadParallelism();
+            DnssecLoading dnssecLoading = client.getDnssecLoading();
+            List<Supplier<CompletableFuture<Domain>>> loads = new ArrayList<Supplier<CompletableFuture<Domain>>>();
+            final List<Supplier<CompletableFuture<Domain>>> deferredLoads = new ArrayList<Supplier<CompletableFuture<Domain>>>();
+            for (final Domain d : domains) {
+                loads.add(() -> d.loadStatusAsync(this.executor));
+
+                Supplier<CompletableFuture<Domain>> dnssecLoad = () -> d.loadDnssecDetailsAsync(this.executor);
+                if (dnssecLoading == DnssecLoading.EAGER) {
+                    loads.add(dnssecLoad);
+                } else if (dnssecLoading == DnssecLoading.DEFERRED) {
+                    deferredLoads.add(dnssecLoad);
+                }
+            }
+
+            List<CompletableFuture<Domain>> started = Futures.bounded(loads, parallelism);
+            return CompletableFuture.allOf(started.toArray(new CompletableFuture<?>[started.size()])).thenApply(done -> {
+                if (!deferredLoads.isEmpty()) {
+                    List<CompletableFuture<Domain>> pending = Futures.bounded(deferredLoads, parallelism);
+                    for (int i = 0; i < domains.size(); i++) {
+                        domains.get(i).deferDnssecDetails(pending.get(i));
+                    }
+                }
+                return domains;
+            });
+        });
+    }
+
+    private CompletableFuture<String> get(String uri) {
+        return client.getRequestor().processRequestAsync(client, uri, "GET", null, this.executor);
+    }
+
+    /**
+     * Get wrapped NetkiClient
+     *
+     * @return NetkiClient
+     */
+    public NetkiClient getClient() {
+        return client;
+    }
+
+    /**
+     * Get Executor API calls are run on
+     *
+     * @return Executor
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+}
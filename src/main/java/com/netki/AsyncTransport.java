@@ -0,0 +1,23 @@
+package com.netki;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link Transport} able to execute requests without blocking the calling thread.
+ *
+ * When a {@link NetkiClient} is configured with an AsyncTransport, {@link Requestor#processRequestAsync} and the
+ * {@link AsyncNetkiClient} operations keep no thread busy while a request is in flight.
+ */
+public interface AsyncTransport extends Transport {
+
+    /**
+     * Execute an HTTP request without blocking. Non-2xx responses complete the future normally.
+     *
+     * Cancelling the returned future aborts the underlying request.
+     *
+     * @param request Request to execute
+     * @return Future Response, which <b>MUST</b> be closed by the consumer
+     */
+    CompletableFuture<TransportResponse> executeAsync(TransportRequest request);
+
+}
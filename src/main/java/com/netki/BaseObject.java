@@ -6,6 +6,7 @@ package com.netki;
 abstract class BaseObject {
 
     protected NetkiClient client;
+    private Requestor requestor;
 
     /**
      * Set Object's Associated NetkiClient
@@ -23,4 +24,38 @@ abstract class BaseObject {
         return client;
     }
 
-}
\ No newline at end of file
+    /**
+     * Get Requestor used for this object's API operations: its own if one was given, otherwise the one borrowed
+     * from its NetkiClient
+     * @return Requestor
+     */
+    Requestor activeRequestor() {
+        if (this.requestor != null) {
+            return this.requestor;
+        }
+        if (this.client != null) {
+            return this.client.getRequestor();
+        }
+        return Requestor.getDefault();
+    }
+
+    /**
+     * Set Requestor used for this object's API operations
+     * @param requestor Requestor, or null to borrow the NetkiClient's
+     */
+    void useRequestor(Requestor requestor) {
+        this.requestor = requestor;
+    }
+
+    /**
+     * Get JSON codecs borrowed from this object's NetkiClient
+     * @return Codecs
+     */
+    Codecs codecs() {
+        if (this.client != null) {
+            return this.client.getCodecs();
+        }
+        return Codecs.DEFAULT;
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.netki;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor running at most a fixed number of tasks at once on a delegate Executor. Excess tasks are queued
+ * without blocking the submitting thread.
+ */
+final class BoundedExecutor implements Executor {
+
+    private final Executor delegate;
+    private final int limit;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * Instantiate a BoundedExecutor
+     *
+     * @param delegate Executor running the tasks
+     * @param limit Maximum number of tasks running at once
+     */
+    BoundedExecutor(Executor delegate, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit MUST be at least 1");
+        }
+        this.delegate = delegate;
+        this.limit = limit;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.queue.add(task);
+        this.drain();
+    }
+
+    private void drain() {
+        while (!this.queue.isEmpty()) {
+            int current = this.running.get();
+            if (current >= this.limit) {
+                return;
+            }
+            if (!this.running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            final Runnable next = this.queue.poll();
+            if (next == null) {
+                this.running.decrementAndGet();
+                continue;
+            }
+
+            try {
+                this.delegate.execute(() -> {
+                    try {
+                        next.run();
+                    } finally {
+                        running.decrementAndGet();
+                        drain();
+                    }
+                });
+            } catch (RuntimeException e) {
+                this.running.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Get Concurrency Limit
+     *
+     * @return Maximum number of tasks running at once
+     */
+    int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,66 @@
+package com.netki;
+
+/**
+ * Netki API GET endpoints whose responses a {@link ResponseCache} can keep
+ */
+public enum CachedEndpoint {
+
+    /**
+     * {@link NetkiClient#getAvailableProducts()}
+     */
+    AVAILABLE_PRODUCTS,
+
+    /**
+     * {@link NetkiClient#getCACertBundle()}
+     */
+    CA_CERT_BUNDLE,
+
+    /**
+     * {@link Domain#loadStatus()}
+     */
+    DOMAIN_STATUS,
+
+    /**
+     * {@link Domain#loadDnssecDetails()}
+     */
+    DOMAIN_DNSSEC,
+
+    /**
+     * {@link NetkiClient#getWalletNames(String, String)} and {@link NetkiClient#getWalletNames()}
+     */
+    WALLET_NAMES;
+
+    static final String DOMAIN_PREFIX = "/v1/partner/domain/";
+    static final String DNSSEC_PREFIX = "/v1/partner/domain/dnssec/";
+    static final String WALLET_NAMES_PATH = "/v1/partner/walletname";
+
+    /**
+     * Find the endpoint a request URI belongs to
+     *
+     * @param uri Netki Partner URI, including any query string (i.e., /v1/partner/walletname?domain_name=x)
+     * @return CachedEndpoint, or null if responses for this URI are never cached
+     */
+    static CachedEndpoint match(String uri) {
+
+        int query = uri.indexOf('?');
+        String path = query >= 0 ? uri.substring(0, query) : uri;
+
+        if (path.equals("/v1/certificate/products")) {
+            return AVAILABLE_PRODUCTS;
+        }
+        if (path.equals("/v1/certificate/cacert")) {
+            return CA_CERT_BUNDLE;
+        }
+        if (path.equals(WALLET_NAMES_PATH)) {
+            return WALLET_NAMES;
+        }
+        if (path.startsWith(DNSSEC_PREFIX) && path.length() > DNSSEC_PREFIX.length()) {
+            return DOMAIN_DNSSEC;
+        }
+        if (path.startsWith(DOMAIN_PREFIX) && path.length() > DOMAIN_PREFIX.length()
+                && path.indexOf('/', DOMAIN_PREFIX.length()) < 0) {
+            return DOMAIN_STATUS;
+        }
+        return null;
+    }
+}
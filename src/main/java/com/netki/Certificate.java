@@ -1,8 +1,6 @@
 package com.netki;
 
-import com.google.common.base.CaseFormat;
 import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
 import org.spongycastle.asn1.pkcs.PKCSObjectIdentifiers;
 import org.spongycastle.asn1.x500.X500NameBuilder;
 import org.spongycastle.asn1.x500.style.BCStyle;
@@ -16,17 +14,14 @@ import org.spongycastle.pkcs.PKCS10CertificationRequestBuilder;
 import org.spongycastle.util.io.pem.PemObject;
 
 import java.io.StringWriter;
-import java.lang.reflect.Field;
 import java.security.*;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class Certificate extends BaseObject {
 
-    private Requestor requestor = new Requestor();
-    private ObjectMapper mapper = new ObjectMapper();
-
     private String id = null;
     private String dataToken = null;
     private String orderStatus = "UNKNOWN";
@@ -53,10 +48,7 @@ public class Certificate extends BaseObject {
      */
     public Certificate(Requestor requestor)
     {
-        if(requestor != null)
-        {
-            this.requestor = requestor;
-        }
+        this.useRequestor(requestor);
     }
 
     // Object Methods
@@ -118,71 +110,31 @@ public class Certificate extends BaseObject {
             throw new Exception("Missing Customer Data");
         }
 
-        for(Field field : this.getCustomerData().getClass().getDeclaredFields()) {
-            field.setAccessible(true);
-
-            if(field.getName().equals("organizationName")) continue;
-            if(field.get(this.getCustomerData()) == null) continue;
-
-            if(field.getType() == String.class) {
-                fullRequest.put(CaseFormat.LOWER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, field.getName()), (String)field.get(this.getCustomerData()));
-            } else if(field.getType() == Date.class) {
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-mm-dd");
-                String dateString = sdf.format(field.get(this.getCustomerData()));
-                fullRequest.put(CaseFormat.LOWER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, field.getName()), dateString);
-            }
-        }
+        CustomerDataCodec.encode(this.getCustomerData(), "", "", fullRequest);
 
         int idIndex = 0;
         for(IdentityDocument id : this.getCustomerData().getIdentityDocuments()) {
             idIndex++;
-
-            for(Field field : id.getClass().getDeclaredFields()) {
-
-                field.setAccessible(true);
-
-                if(field.get(id) == null) {
-                    continue;
-                }
-
-                StringBuilder sb = new StringBuilder();
-                sb.append("identity_");
-                if(!field.getName().equals("identity")) {
-                    sb.append(CaseFormat.LOWER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, field.getName()));
-                }
-                if(idIndex > 1) {
-                    sb.append(idIndex);
-                }
-
-                if(field.getType() == String.class) {
-                    fullRequest.put(sb.toString(), (String)field.get(id));
-                }
-                else if(field.getType() == Date.class) {
-                    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-mm-dd");
-                    String dateString = sdf.format(field.get(id));
-                    fullRequest.put(sb.toString(), dateString);
-                }
-            }
-
+            IdentityDocumentCodec.encode(id, "identity_", idIndex > 1 ? String.valueOf(idIndex) : "", fullRequest);
         }
 
         fullRequest.put("product", this.getProductId());
 
         try {
-            requestJson = mapper.writeValueAsString(fullRequest);
+            requestJson = this.codecs().writeRequest(fullRequest);
         } catch (Exception e) {
             e.printStackTrace();
             throw new Exception("Unable to Build JSON Request");
         }
 
-        respJsonString = this.requestor.processRequest(
+        respJsonString = this.activeRequestor().processRequest(
                 this.getClient(),
                 "/v1/certificate/token",
                 "POST",
                 requestJson
         );
 
-        JsonNode responseNode = mapper.readTree(respJsonString);
+        JsonNode responseNode = this.codecs().readTree(respJsonString);
 
         if(responseNode.has("token")) {
             this.setDataToken(responseNode.get("token").asText());
@@ -211,19 +163,19 @@ public class Certificate extends BaseObject {
         }
 
         try {
-            requestJson = mapper.writeValueAsString(fullRequest);
+            requestJson = this.codecs().writeRequest(fullRequest);
         } catch (Exception e) {
             throw new Exception("Unable to Build JSON Request");
         }
 
-        respJsonString = this.requestor.processRequest(
+        respJsonString = this.activeRequestor().processRequest(
                 this.getClient(),
                 "/v1/certificate",
                 "POST",
                 requestJson
         );
 
-        JsonNode responseNode = mapper.readTree(respJsonString);
+        JsonNode responseNode = this.codecs().readTree(respJsonString);
 
         if(responseNode.has("order_id")) {
             this.setId(responseNode.get("order_id").asText());
@@ -244,13 +196,13 @@ public class Certificate extends BaseObject {
         String requestJson;
 
         try {
-            requestJson = mapper.writeValueAsString(fullRequest);
+            requestJson = this.codecs().writeRequest(fullRequest);
         } catch (Exception e) {
             e.printStackTrace();
             throw new Exception("Unable to Build JSON Request");
         }
 
-        this.requestor.processRequest(
+        this.activeRequestor().processRequest(
                 this.getClient(),
                 "/v1/certificate/" + this.id + "/csr",
                 "POST",
@@ -271,13 +223,13 @@ public class Certificate extends BaseObject {
         String requestJson;
 
         try {
-            requestJson = mapper.writeValueAsString(fullRequest);
+            requestJson = this.codecs().writeRequest(fullRequest);
         } catch (Exception e) {
             e.printStackTrace();
             throw new Exception("Unable to Build JSON Request");
         }
 
-        this.requestor.processRequest(
+        this.activeRequestor().processRequest(
                 this.getClient(),
                 "/v1/certificate/" + this.id,
                 "DELETE",
@@ -291,14 +243,20 @@ public class Certificate extends BaseObject {
             throw new Exception("Certificate Must Have a Valid Order Number");
         }
 
-        String respJsonString = this.requestor.processRequest(
+        this.activeRequestor().processRequest(
                 this.getClient(),
                 "/v1/certificate/" + this.id,
                 "GET",
-                null
+                null,
+                this::applyStatus
         );
+    }
 
-        JsonNode responseNode = mapper.readTree(respJsonString);
+    void applyStatus(String respJsonString) throws Exception {
+        this.applyStatus(this.codecs().readTree(respJsonString));
+    }
+
+    Certificate applyStatus(JsonNode responseNode) {
 
         // Set Order Status
         if(responseNode.has("order_status")) {
@@ -321,6 +279,53 @@ public class Certificate extends BaseObject {
             }
 
         }
+        return this;
+    }
+
+    public CompletableFuture<Certificate> submitUserDataAsync(Executor executor) {
+        return Futures.supply(() -> {
+            submitUserData();
+            return this;
+        }, executor);
+    }
+
+    public CompletableFuture<Certificate> submitOrderAsync(final String stripeToken, Executor executor) {
+        return Futures.supply(() -> {
+            submitOrder(stripeToken);
+            return this;
+        }, executor);
+    }
+
+    public CompletableFuture<Certificate> submitCSRAsync(final KeyPair key, Executor executor) {
+        return Futures.supply(() -> {
+            submitCSR(key);
+            return this;
+        }, executor);
+    }
+
+    public CompletableFuture<Certificate> revokeAsync(final String reason, Executor executor) {
+        return Futures.supply(() -> {
+            revoke(reason);
+            return this;
+        }, executor);
+    }
+
+    public CompletableFuture<Certificate> getStatusAsync(Executor executor) {
+
+        if(this.getId() == null) {
+            return Futures.failed(new Exception("Certificate Must Have a Valid Order Number"));
+        }
+
+        return Futures.map(this.activeRequestor().processRequestAsync(
+                this.getClient(),
+                "/v1/certificate/" + this.id,
+                "GET",
+                null,
+                executor
+        ), respJsonString -> {
+            applyStatus(respJsonString);
+            return this;
+        });
     }
 
     public boolean isOrderComplete() {
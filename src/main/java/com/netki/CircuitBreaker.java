@@ -0,0 +1,346 @@
+package com.netki;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fails Netki API calls immediately while an endpoint group is failing, set with {@link NetkiClient#setCircuitBreaker}
+ *
+ * Each {@link EndpointGroup} has its own circuit. While CLOSED, calls go through and their outcomes are recorded. Once
+ * the failure rate or slow call rate of the last calls reaches its threshold (see {@link CircuitBreakerConfig}), the
+ * circuit OPENs and calls fail immediately with a {@link NetkiException}. After openMillis it is HALF_OPEN and lets a
+ * few trial calls through: it closes if they all succeed in time and opens again otherwise.
+ *
+ * A call is one request, including any retries and hedges; it fails on an IOException, 429 or 5xx. A call rejected by
+ * the client's {@link ConcurrencyLimiter} never reached the API and is not recorded.
+ *
+ * <pre>
+ * CircuitBreaker breaker = new CircuitBreaker(new CircuitBreakerConfig());
+ * breaker.addListener((group, from, to) -&gt; log.warn("Netki " + group + " circuit " + from + " -&gt; " + to));
+ * client.setCircuitBreaker(breaker);
+ * </pre>
+ */
+public final class CircuitBreaker {
+
+    /**
+     * Circuit state of an endpoint group
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Notified of circuit state changes, on the thread whose call caused the change
+     */
+    public interface Listener {
+        void onStateChange(EndpointGroup group, State from, State to);
+    }
+
+    private final CircuitBreakerConfig defaultConfig;
+    private final Map<EndpointGroup, Circuit> circuits = new EnumMap<EndpointGroup, Circuit>(EndpointGroup.class);
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Permission for one call, recording its outcome in the circuit that gave it
+     */
+    final class Permit {
+        private final Circuit circuit;
+        private final long generation;
+        private boolean done;
+
+        private Permit(Circuit circuit, long generation) {
+            this.circuit = circuit;
+            this.generation = generation;
+        }
+
+        /**
+         * Record the call's outcome
+         *
+         * @param durationNanos Time the Transport took, including any retries and hedges
+         * @param failed Whether the call failed with an IOException, 429 or 5xx
+         */
+        void complete(long durationNanos, boolean failed) {
+            if (!this.done) {
+                this.done = true;
+                publish(this.circuit.record(this.generation, durationNanos, failed));
+            }
+        }
+
+        /**
+         * Give back the permission if no outcome was recorded, i.e., the request could not be signed or was rejected by
+         * the concurrency limit
+         */
+        void cancel() {
+            if (!this.done) {
+                this.done = true;
+                this.circuit.cancel(this.generation);
+            }
+        }
+    }
+
+    /**
+     * State transition to report to listeners
+     */
+    private static final class Transition {
+        final EndpointGroup group;
+        final State from;
+        final State to;
+
+        Transition(EndpointGroup group, State from, State to) {
+            this.group = group;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static final class Circuit {
+
+        private final EndpointGroup group;
+        private final double failureRateThreshold;
+        private final double slowCallRateThreshold;
+        private final long slowCallNanos;
+        private final int minimumCalls;
+        private final long openNanos;
+        private final int halfOpenCalls;
+
+        // Outcomes of the last calls: bit 0 failed, bit 1 slow
+        private final byte[] window;
+        private int calls;
+        private int next;
+        private int failures;
+        private int slowCalls;
+
+        private State state = State.CLOSED;
+        private long generation;
+        private long openedAt;
+        private int trials;
+        private int trialSuccesses;
+
+        Circuit(EndpointGroup group, CircuitBreakerConfig config) {
+            this.group = group;
+            this.failureRateThreshold = config.getFailureRateThreshold();
+            this.slowCallRateThreshold = config.getSlowCallRateThreshold();
+            this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallMillis());
+            this.minimumCalls = config.getMinimumCalls();
+            this.openNanos = TimeUnit.MILLISECONDS.toNanos(config.getOpenMillis());
+            this.halfOpenCalls = config.getHalfOpenCalls();
+            this.window = new byte[config.getWindowSize()];
+        }
+
+        /**
+         * Get a generation to record the call's outcome under, moving from OPEN to HALF_OPEN once openMillis is up
+         *
+         * @return Generation, or -1 if the call must be rejected
+         */
+        synchronized long acquire(List<Transition> transitions) {
+            if (this.state == State.OPEN) {
+                if (System.nanoTime() - this.openedAt < this.openNanos) {
+                    return -1;
+                }
+                this.transition(State.HALF_OPEN, transitions);
+            }
+            if (this.state == State.HALF_OPEN) {
+                if (this.trials >= this.halfOpenCalls) {
+                    return -1;
+                }
+                this.trials++;
+            }
+            return this.generation;
+        }
+
+        synchronized Transition record(long generation, long durationNanos, boolean failed) {
+
+            // Outcomes of calls permitted before the last transition no longer describe the circuit
+            if (generation != this.generation) {
+                return null;
+            }
+
+            boolean slow = durationNanos >= this.slowCallNanos;
+            List<Transition> transitions = new ArrayList<Transition>(1);
+
+            if (this.state == State.HALF_OPEN) {
+                if (failed || slow) {
+                    this.transition(State.OPEN, transitions);
+                } else if (++this.trialSuccesses >= this.halfOpenCalls) {
+                    this.transition(State.CLOSED, transitions);
+                }
+            } else if (this.state == State.CLOSED) {
+                this.add((byte) ((failed ? 1 : 0) | (slow ? 2 : 0)));
+                if (this.calls >= this.minimumCalls
+                        && ((double) this.failures / this.calls >= this.failureRateThreshold
+                        || (double) this.slowCalls / this.calls >= this.slowCallRateThreshold)) {
+                    this.transition(State.OPEN, transitions);
+                }
+            }
+            return transitions.isEmpty() ? null : transitions.get(0);
+        }
+
+        synchronized void cancel(long generation) {
+            if (generation == this.generation && this.state == State.HALF_OPEN) {
+                this.trials--;
+            }
+        }
+
+        synchronized State getState() {
+            return this.state;
+        }
+
+        private void add(byte outcome) {
+            if (this.calls == this.window.length) {
+                byte evicted = this.window[this.next];
+                this.failures -= evicted & 1;
+                this.slowCalls -= (evicted >> 1) & 1;
+            } else {
+                this.calls++;
+            }
+            this.window[this.next] = outcome;
+            this.next = (this.next + 1) % this.window.length;
+            this.failures += outcome & 1;
+            this.slowCalls += (outcome >> 1) & 1;
+        }
+
+        private void transition(State to, List<Transition> transitions) {
+            transitions.add(new Transition(this.group, this.state, to));
+            this.state = to;
+            this.generation++;
+            this.trials = 0;
+            this.trialSuccesses = 0;
+            if (to == State.OPEN) {
+                this.openedAt = System.nanoTime();
+            }
+            if (to == State.CLOSED) {
+                this.calls = 0;
+                this.next = 0;
+                this.failures = 0;
+                this.slowCalls = 0;
+            }
+        }
+    }
+
+    /**
+     * Instantiate a CircuitBreaker
+     *
+     * @param defaultConfig Config of every endpoint group not given its own with {@link #setConfig}
+     */
+    public CircuitBreaker(CircuitBreakerConfig defaultConfig) {
+        validate(defaultConfig);
+        this.defaultConfig = defaultConfig;
+        for (EndpointGroup group : EndpointGroup.values()) {
+            this.circuits.put(group, new Circuit(group, defaultConfig));
+        }
+    }
+
+    /**
+     * Set config of an endpoint group, resetting its circuit to CLOSED
+     *
+     * @param group EndpointGroup
+     * @param config CircuitBreakerConfig, copied when set. A value of null restores the default config.
+     */
+    public void setConfig(EndpointGroup group, CircuitBreakerConfig config) {
+        if (config == null) {
+            config = this.defaultConfig;
+        }
+        validate(config);
+        synchronized (this.circuits) {
+            this.circuits.put(group, new Circuit(group, config));
+        }
+    }
+
+    private static void validate(CircuitBreakerConfig config) {
+        if (config.getWindowSize() < 1 || config.getMinimumCalls() < 1 || config.getHalfOpenCalls() < 1) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenCalls MUST be at least 1");
+        }
+        if (config.getMinimumCalls() > config.getWindowSize()) {
+            throw new IllegalArgumentException("minimumCalls MUST NOT exceed windowSize");
+        }
+    }
+
+    /**
+     * Add a Listener notified of every state change
+     *
+     * @param listener Listener
+     */
+    public void addListener(Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Remove a Listener
+     *
+     * @param listener Listener
+     */
+    public void removeListener(Listener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Get the current circuit state of an endpoint group
+     *
+     * @param group EndpointGroup
+     * @return State
+     */
+    public State getState(EndpointGroup group) {
+        return this.circuit(group).getState();
+    }
+
+    /**
+     * Get number of calls failed immediately because their circuit was open or its trial calls were in use
+     *
+     * @return Rejected calls
+     */
+    public long getRejectedRequests() {
+        return this.rejected.get();
+    }
+
+    /**
+     * Get permission for a call
+     *
+     * @param uri Netki Partner URI
+     * @return Permit, which <b>MUST</b> be completed or cancelled
+     * @throws NetkiException Occurs if the call's circuit is open
+     */
+    Permit acquire(String uri) throws NetkiException {
+
+        EndpointGroup group = EndpointGroup.match(uri);
+        Circuit circuit = this.circuit(group);
+
+        List<Transition> transitions = new ArrayList<Transition>(1);
+        long generation = circuit.acquire(transitions);
+        for (Transition transition : transitions) {
+            this.publish(transition);
+        }
+
+        if (generation < 0) {
+            this.rejected.incrementAndGet();
+            throw new NetkiException("Circuit Open: " + group);
+        }
+        return new Permit(circuit, generation);
+    }
+
+    private Circuit circuit(EndpointGroup group) {
+        synchronized (this.circuits) {
+            return this.circuits.get(group);
+        }
+    }
+
+    private void publish(Transition transition) {
+        if (transition == null) {
+            return;
+        }
+        for (Listener listener : this.listeners) {
+            try {
+                listener.onStateChange(transition.group, transition.from, transition.to);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
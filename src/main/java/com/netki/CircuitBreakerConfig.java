@@ -0,0 +1,110 @@
+package com.netki;
+
+/**
+ * When a {@link CircuitBreaker} opens for an endpoint group, and how it recovers
+ */
+public class CircuitBreakerConfig {
+
+    // Tripping
+    private double failureRateThreshold = 0.5;
+    private double slowCallRateThreshold = 0.8;
+    private long slowCallMillis = 5000;
+    private int windowSize = 50;
+    private int minimumCalls = 20;
+
+    // Recovery
+    private long openMillis = 30000;
+    private int halfOpenCalls = 3;
+
+    /**
+     * Get share of the last windowSize calls that must fail (IOException, 429 or 5xx) to open the circuit
+     *
+     * @return Failure rate, between 0 and 1 (default 0.5)
+     */
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    /**
+     * Get share of the last windowSize calls that must take slowCallMillis or longer to open the circuit
+     *
+     * @return Slow call rate, between 0 and 1 (default 0.8)
+     */
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    /**
+     * Get duration, including any retries and hedges, from which a call counts as slow
+     *
+     * @return Slow call duration in milliseconds (default 5000)
+     */
+    public long getSlowCallMillis() {
+        return slowCallMillis;
+    }
+
+    public void setSlowCallMillis(long slowCallMillis) {
+        this.slowCallMillis = slowCallMillis;
+    }
+
+    /**
+     * Get number of most recent calls the failure and slow call rates are computed over
+     *
+     * @return Window size (default 50)
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Get number of calls in the window before the circuit can open
+     *
+     * @return Minimum calls (default 20)
+     */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    /**
+     * Get time the circuit stays open, failing calls immediately, before trial calls are let through
+     *
+     * @return Open time in milliseconds (default 30000)
+     */
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    public void setOpenMillis(long openMillis) {
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Get number of trial calls let through while half-open. The circuit closes once all succeed in time, and opens
+     * again as soon as one fails or is slow.
+     *
+     * @return Trial calls (default 3)
+     */
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public void setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = halfOpenCalls;
+    }
+}
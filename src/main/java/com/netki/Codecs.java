@@ -0,0 +1,84 @@
+package com.netki;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.ObjectReader;
+import org.codehaus.jackson.map.ObjectWriter;
+
+/**
+ * JSON readers and writers shared by a {@link NetkiClient} and all of its objects
+ *
+ * ObjectMapper, ObjectReader and ObjectWriter are thread-safe once configured, so one instance (and one warmed-up
+ * serializer cache) serves every request instead of one per object or per call.
+ */
+final class Codecs {
+
+    /**
+     * Codecs used when an object has no NetkiClient
+     */
+    static final Codecs DEFAULT = new Codecs(new ObjectMapper());
+
+    private final ObjectMapper mapper;
+    private final ObjectReader treeReader;
+    private final ObjectWriter requestWriter;
+
+    Codecs(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.treeReader = mapper.reader(JsonNode.class);
+        this.requestWriter = mapper.writerWithType(Map.class);
+    }
+
+    /**
+     * Parse a JSON document into a tree
+     */
+    JsonNode readTree(String json) throws IOException {
+        return this.treeReader.readTree(json);
+    }
+
+    /**
+     * Parse a JSON stream into a tree
+     */
+    JsonNode readTree(InputStream json) throws IOException {
+        return this.treeReader.readTree(json);
+    }
+
+    /**
+     * Serialize a request body
+     */
+    String writeRequest(Map<?, ?> request) throws IOException {
+        return this.requestWriter.writeValueAsString(request);
+    }
+
+    /**
+     * Serialize a request body straight to UTF-8 bytes, without an intermediate String
+     */
+    byte[] writeRequestBytes(Map<?, ?> request) throws IOException {
+        return this.requestWriter.writeValueAsBytes(request);
+    }
+
+    /**
+     * Create a streaming parser over a JSON document
+     */
+    JsonParser createParser(String json) throws IOException {
+        return this.mapper.getJsonFactory().createJsonParser(json);
+    }
+
+    /**
+     * Create a streaming parser over a JSON stream
+     */
+    JsonParser createParser(InputStream json) throws IOException {
+        return this.mapper.getJsonFactory().createJsonParser(json);
+    }
+
+    /**
+     * Get the underlying ObjectMapper
+     */
+    ObjectMapper getMapper() {
+        return mapper;
+    }
+}
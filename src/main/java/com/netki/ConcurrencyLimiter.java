@@ -0,0 +1,243 @@
+package com.netki;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive limit on concurrent in-flight Netki API requests, set with {@link NetkiClient#setConcurrencyLimiter}
+ *
+ * The limit follows the API's capacity in the style of TCP Vegas. The lowest recent latency is taken as the latency
+ * without queueing, and the queue the limit causes is estimated as limit * (1 - minLatency / latency). The limit is
+ * raised while that queue is small and lowered once it grows, and cut by {@link #BACKOFF_RATIO} whenever a request
+ * fails with an IOException, 429 Too Many Requests or a 5xx. It is only raised while at least half of it is in use.
+ *
+ * Requests over the limit wait up to maxWaitMillis for another to finish, then fail with an IOException, reported as
+ * "HTTP Request Failed: Concurrency Limit Exceeded" and retried like any transient failure by a {@link RetryPolicy}.
+ * Since they never reach the API, a {@link CircuitBreaker} does not count them as failed calls.
+ * A maxWaitMillis of 0 rejects them immediately. Each attempt of a retried or hedged request counts separately.
+ *
+ * <pre>
+ * client.setConcurrencyLimiter(new ConcurrencyLimiter(10, 1, 100, 2000));
+ * </pre>
+ */
+public final class ConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 200;
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 1000;
+
+    /**
+     * Share of the limit kept after a failed request
+     */
+    public static final double BACKOFF_RATIO = 0.9;
+
+    /**
+     * Successful requests after which the lowest latency is forgotten, so it follows lasting changes in the API
+     */
+    static final int PROBE_INTERVAL = 1000;
+
+    /**
+     * Failure of a request rejected because no slot was free within maxWaitMillis
+     */
+    static final class LimitExceededException extends IOException {
+        LimitExceededException() {
+            super("Concurrency Limit Exceeded");
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long maxWaitMillis;
+
+    private double limit;
+    private int inFlight;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    private long rejected;
+    private long failed;
+
+    /**
+     * Instantiate a ConcurrencyLimiter with default limits and wait
+     */
+    public ConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    /**
+     * Instantiate a ConcurrencyLimiter
+     *
+     * @param initialLimit Concurrent requests allowed before any latency has been seen
+     * @param minLimit Lowest limit
+     * @param maxLimit Highest limit
+     * @param maxWaitMillis Longest a request over the limit waits before failing. A value of 0 fails it immediately.
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long maxWaitMillis) {
+
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits MUST satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("maxWaitMillis MUST NOT be negative");
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxWaitMillis = maxWaitMillis;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Wrap a Transport so the requests it executes are limited by this ConcurrencyLimiter
+     *
+     * @param transport Transport
+     * @return Limited Transport, which does not own transport
+     */
+    Transport wrap(final Transport transport) {
+        return new Transport() {
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                return ConcurrencyLimiter.this.execute(transport, request);
+            }
+
+            @Override
+            public void prepare(String url) throws IOException {
+                transport.prepare(url);
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+    }
+
+    /**
+     * Execute a request once a slot is free
+     *
+     * @param transport Transport
+     * @param request Request
+     * @return Response
+     * @throws IOException Occurs if no slot is free within maxWaitMillis, or on request failure
+     */
+    TransportResponse execute(Transport transport, TransportRequest request) throws IOException {
+
+        this.acquire();
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            TransportResponse response = transport.execute(request);
+            dropped = RetryPolicy.isRetryableStatus(response.getStatusCode());
+            return response;
+        } finally {
+            this.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    /**
+     * Take a slot, waiting up to maxWaitMillis for one to be released
+     *
+     * @throws LimitExceededException Occurs if no slot is free within maxWaitMillis
+     * @throws InterruptedIOException Occurs if interrupted while waiting
+     */
+    synchronized void acquire() throws IOException {
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.maxWaitMillis);
+        while (this.inFlight >= this.getLimit()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                this.rejected++;
+                throw new LimitExceededException();
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for concurrency limit");
+            }
+        }
+        this.inFlight++;
+    }
+
+    /**
+     * Release a slot and adjust the limit from the request's outcome
+     *
+     * @param rttNanos Time from sending the request to receiving the response or failure
+     * @param dropped Whether the request failed in a way that suggests overload
+     */
+    synchronized void release(long rttNanos, boolean dropped) {
+
+        // Utilization is measured with this request still counted
+        boolean saturated = this.inFlight * 2 >= this.limit;
+        this.inFlight--;
+
+        if (dropped) {
+            this.failed++;
+            this.limit = Math.max(this.minLimit, this.limit * BACKOFF_RATIO);
+        } else {
+            this.samples++;
+            if (this.samples % PROBE_INTERVAL == 0) {
+                this.minRttNanos = rttNanos;
+            } else {
+                this.minRttNanos = Math.min(this.minRttNanos, rttNanos);
+            }
+
+            double step = Math.max(1, Math.log10(this.limit));
+            double queue = this.limit * (1 - (double) this.minRttNanos / Math.max(1, rttNanos));
+            if (queue > 6 * step) {
+                this.limit = Math.max(this.minLimit, this.limit - step);
+            } else if (queue < 3 * step && saturated) {
+                this.limit = Math.min(this.maxLimit, this.limit + step);
+            }
+        }
+
+        this.notifyAll();
+    }
+
+    /**
+     * Get current number of concurrent requests allowed
+     *
+     * @return Limit
+     */
+    public synchronized int getLimit() {
+        return (int) this.limit;
+    }
+
+    /**
+     * Get number of requests currently in flight
+     *
+     * @return In-flight requests
+     */
+    public synchronized int getInFlight() {
+        return this.inFlight;
+    }
+
+    /**
+     * Get longest a request over the limit waits before failing
+     *
+     * @return Maximum wait in milliseconds
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Get number of requests that failed because no slot was free within maxWaitMillis
+     *
+     * @return Rejected requests
+     */
+    public synchronized long getRejectedRequests() {
+        return this.rejected;
+    }
+
+    /**
+     * Get number of requests that failed in a way that lowered the limit
+     *
+     * @return Failed requests
+     */
+    public synchronized long getFailedRequests() {
+        return this.failed;
+    }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+@JsonCodec(datePattern = "yyyy-mm-dd")
 public class CustomerData {
 
     // Name
@@ -21,6 +22,7 @@ public class CustomerData {
     // Other
     private String phone;
     private String email;
+    @JsonCodec.Field(ignore = true)
     private String organizationName;
     private String ssn;
     private Date dob;
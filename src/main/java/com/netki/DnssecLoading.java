@@ -0,0 +1,25 @@
+package com.netki;
+
+/**
+ * When {@link NetkiClient#getDomains()} loads each Domain's DNSSEC details (DS records, nameservers,
+ * public KSK and next KSK roll date)
+ */
+public enum DnssecLoading {
+
+    /**
+     * Load DNSSEC details before getDomains() returns (default)
+     */
+    EAGER,
+
+    /**
+     * Start loading DNSSEC details in the background and return once domain status is loaded. DNSSEC getters wait
+     * for the background load to finish.
+     */
+    DEFERRED,
+
+    /**
+     * Do not load DNSSEC details. They can be loaded later with {@link Domain#loadDnssecDetails()}.
+     */
+    SKIP
+
+}
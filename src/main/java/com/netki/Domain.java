@@ -1,18 +1,21 @@
 package com.netki;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.JsonProcessingException;
-import org.codehaus.jackson.map.ObjectMapper;
 
 /**
  * Netki Partner Domain Object
  */
+@JsonCodec(datePattern = "yyyy-MM-dd hh:mm:ss")
 public class Domain extends BaseObject {
 
     private String name;
@@ -21,13 +24,17 @@ public class Domain extends BaseObject {
     private String delegationMessage;
     private int walletNameCount;
 
+    @JsonCodec.Field(name = "nextroll_date")
     private Date nextRoll;
     private List<String> dsRecords;
     private List<String> nameservers;
     private String publicKeySigningKey;
+    private volatile Future<?> pendingDnssecDetails;
 
-    private Requestor requestor = new Requestor();
-    private ObjectMapper mapper = new ObjectMapper();
+    private volatile boolean statusOnAccess;
+    private volatile boolean dnssecDetailsOnAccess;
+    private final Object statusLock = new Object();
+    private final Object dnssecDetailsLock = new Object();
 
     /**
      * Instantiate Domain Object with name
@@ -35,7 +42,7 @@ public class Domain extends BaseObject {
      * @param name Domain Name
      */
     public Domain(String name) {
-        this(name, new Requestor());
+        this(name, null);
     }
 
     /**
@@ -50,10 +57,7 @@ public class Domain extends BaseObject {
         this.dsRecords = new ArrayList<String>();
         this.nameservers = new ArrayList<String>();
 
-        if (requestor != null)
-        {
-            this.requestor = requestor;
-        }
+        this.useRequestor(requestor);
     }
 
     /**
@@ -62,7 +66,7 @@ public class Domain extends BaseObject {
      * @throws Exception Occurs on Bad HTTP Request / Response
      */
     public void delete() throws Exception {
-        this.requestor.processRequest(
+        this.activeRequestor().processRequest(
                 this.getClient(),
                 "/v1/partner/domain/" + this.name,
                 "DELETE",
@@ -76,16 +80,23 @@ public class Domain extends BaseObject {
      * @throws Exception Occurs on Bad HTTP Request / Response
      */
     public void loadStatus() throws Exception {
-        String responseStr = this.requestor.processRequest(
+        this.activeRequestor().processRequest(
                 this.getClient(),
                 "/v1/partner/domain/" + this.name,
                 "GET",
-                null
+                null,
+                this::applyStatus
         );
+    }
+
+    /**
+     * Apply Domain Status response
+     */
+    void applyStatus(String responseStr) throws Exception {
 
         JsonNode jsonObj;
         try {
-            jsonObj = this.mapper.readTree(responseStr);
+            jsonObj = this.codecs().readTree(responseStr);
         } catch (JsonProcessingException e) {
             e.printStackTrace();
             return;
@@ -94,10 +105,19 @@ public class Domain extends BaseObject {
             return;
         }
 
-        this.status = jsonObj.get("status").asText();
-        this.delegationStatus = jsonObj.get("delegation_status").asBoolean();
-        this.delegationMessage = jsonObj.get("delegation_message").asText();
-        this.walletNameCount = jsonObj.get("wallet_name_count").asInt();
+        this.applyStatus(jsonObj);
+    }
+
+    /**
+     * Apply parsed Domain Status response
+     */
+    Domain applyStatus(JsonNode jsonObj) {
+        this.status = jsonObj.get(DomainCodec.STATUS).asText();
+        this.delegationStatus = jsonObj.get(DomainCodec.DELEGATION_STATUS).asBoolean();
+        this.delegationMessage = jsonObj.get(DomainCodec.DELEGATION_MESSAGE).asText();
+        this.walletNameCount = jsonObj.get(DomainCodec.WALLET_NAME_COUNT).asInt();
+        this.statusOnAccess = false;
+        return this;
     }
 
     /**
@@ -106,16 +126,23 @@ public class Domain extends BaseObject {
      * @throws Exception Occurs on Bad HTTP Request / Response
      */
     public void loadDnssecDetails() throws Exception {
-        String responseStr = this.requestor.processRequest(
+        this.activeRequestor().processRequest(
                 this.getClient(),
                 "/v1/partner/domain/dnssec/" + this.name,
                 "GET",
-                null
+                null,
+                this::applyDnssecDetails
         );
+    }
+
+    /**
+     * Apply Domain DNSSEC Status response
+     */
+    void applyDnssecDetails(String responseStr) throws Exception {
 
         JsonNode jsonObj;
         try {
-            jsonObj = this.mapper.readTree(responseStr);
+            jsonObj = this.codecs().readTree(responseStr);
         } catch (JsonProcessingException e) {
             e.printStackTrace();
             return;
@@ -124,25 +151,164 @@ public class Domain extends BaseObject {
             return;
         }
 
-        if(jsonObj.get("public_key_signing_key") != null) {
-            this.publicKeySigningKey = jsonObj.get("public_key_signing_key").asText();
+        this.applyDnssecDetails(jsonObj);
+    }
+
+    /**
+     * Apply parsed Domain DNSSEC Status response
+     */
+    Domain applyDnssecDetails(JsonNode jsonObj) throws Exception {
+        if(jsonObj.get(DomainCodec.PUBLIC_KEY_SIGNING_KEY) != null) {
+            this.publicKeySigningKey = jsonObj.get(DomainCodec.PUBLIC_KEY_SIGNING_KEY).asText();
         }
 
-        if (jsonObj.get("ds_records") != null && jsonObj.get("ds_records").isArray()) {
-            for (JsonNode dsRecord : jsonObj.get("ds_records")) {
+        if (jsonObj.get(DomainCodec.DS_RECORDS) != null && jsonObj.get(DomainCodec.DS_RECORDS).isArray()) {
+            for (JsonNode dsRecord : jsonObj.get(DomainCodec.DS_RECORDS)) {
                 this.dsRecords.add(dsRecord.asText());
             }
         }
 
-        if (jsonObj.get("nameservers") != null && jsonObj.get("nameservers").isArray()) {
-            for (JsonNode nameserver : jsonObj.get("nameservers")) {
+        if (jsonObj.get(DomainCodec.NAMESERVERS) != null && jsonObj.get(DomainCodec.NAMESERVERS).isArray()) {
+            for (JsonNode nameserver : jsonObj.get(DomainCodec.NAMESERVERS)) {
                 this.nameservers.add(nameserver.asText());
             }
         }
 
-        if(jsonObj.get("nextroll_date") != null) {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss");
-            this.nextRoll = sdf.parse(jsonObj.get("nextroll_date").asText());
+        if(jsonObj.get(DomainCodec.NEXT_ROLL) != null) {
+            this.nextRoll = DomainCodec.parseDate(jsonObj.get(DomainCodec.NEXT_ROLL).asText());
+        }
+        this.dnssecDetailsOnAccess = false;
+        return this;
+    }
+
+    /**
+     * Call Domain Deletion on Netki API asynchronously
+     *
+     * @param executor Executor to run the API call on
+     * @return Future completed with this Domain once deleted
+     */
+    public CompletableFuture<Domain> deleteAsync(Executor executor) {
+        return Futures.map(this.activeRequestor().processRequestAsync(
+                this.getClient(),
+                "/v1/partner/domain/" + this.name,
+                "DELETE",
+                null,
+                executor
+        ), responseStr -> this);
+    }
+
+    /**
+     * Get Domain Status from Netki API asynchronously
+     *
+     * @param executor Executor to run the API call on
+     * @return Future completed with this Domain once its status is loaded
+     */
+    public CompletableFuture<Domain> loadStatusAsync(Executor executor) {
+        return Futures.map(this.activeRequestor().processRequestAsync(
+                this.getClient(),
+                "/v1/partner/domain/" + this.name,
+                "GET",
+                null,
+                executor
+        ), responseStr -> {
+            applyStatus(responseStr);
+            return this;
+        });
+    }
+
+    /**
+     * Get Domain DNSSEC Status from Netki API asynchronously
+     *
+     * @param executor Executor to run the API call on
+     * @return Future completed with this Domain once its DNSSEC details are loaded
+     */
+    public CompletableFuture<Domain> loadDnssecDetailsAsync(Executor executor) {
+        return Futures.map(this.activeRequestor().processRequestAsync(
+                this.getClient(),
+                "/v1/partner/domain/dnssec/" + this.name,
+                "GET",
+                null,
+                executor
+        ), responseStr -> {
+            applyDnssecDetails(responseStr);
+            return this;
+        });
+    }
+
+    /**
+     * Mark DNSSEC details as being loaded in the background. DNSSEC getters wait for the load to finish.
+     *
+     * @param load Background loadDnssecDetails() call
+     */
+    void deferDnssecDetails(Future<?> load) {
+        this.pendingDnssecDetails = load;
+    }
+
+    /**
+     * Load status and DNSSEC details from the Netki API the first time one of their getters is called, instead of
+     * up front. Each group of fields is loaded at most once; a failed load throws from the getter and is retried on
+     * the next access.
+     */
+    void loadOnAccess() {
+        this.statusOnAccess = true;
+        this.dnssecDetailsOnAccess = true;
+    }
+
+    /**
+     * Load Domain Status if it is loaded on access and not yet loaded
+     *
+     * @throws IllegalStateException Wrapping the failure if the status could not be loaded
+     */
+    private void ensureStatus() {
+        if (!this.statusOnAccess) {
+            return;
+        }
+
+        synchronized (this.statusLock) {
+            if (this.statusOnAccess) {
+                try {
+                    this.loadStatus();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for DNSSEC details being loaded in the background, or load them if they are loaded on access. A failed
+     * background load is retried on the next access.
+     *
+     * @throws IllegalStateException Wrapping the failure if the DNSSEC details could not be loaded
+     */
+    private void ensureDnssecDetails() {
+        Future<?> pending = this.pendingDnssecDetails;
+        if (pending != null) {
+            try {
+                pending.get();
+                this.pendingDnssecDetails = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for DNSSEC details", e);
+            } catch (ExecutionException e) {
+                this.pendingDnssecDetails = null;
+                this.dnssecDetailsOnAccess = true;
+                throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        if (!this.dnssecDetailsOnAccess) {
+            return;
+        }
+
+        synchronized (this.dnssecDetailsLock) {
+            if (this.dnssecDetailsOnAccess) {
+                try {
+                    this.loadDnssecDetails();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }
         }
     }
 
@@ -168,8 +334,10 @@ public class Domain extends BaseObject {
      * Get Domain Status
      *
      * @return Domain Status
+     * @throws IllegalStateException Occurs if status loaded on access or in the background could not be loaded
      */
     public String getStatus() {
+        ensureStatus();
         return status;
     }
 
@@ -180,14 +348,17 @@ public class Domain extends BaseObject {
      */
     public void setStatus(String status) {
         this.status = status;
+        this.statusOnAccess = false;
     }
 
     /**
      * Get DNSSEC Delegation Status
      *
      * @return Domain DNSSEC delegation complete
+     * @throws IllegalStateException Occurs if status loaded on access or in the background could not be loaded
      */
     public boolean getDelegationStatus() {
+        ensureStatus();
         return delegationStatus;
     }
 
@@ -195,8 +366,10 @@ public class Domain extends BaseObject {
      * Get DNSSEC Delegation Message
      *
      * @return Message describing domain's DNSSEC delegation status
+     * @throws IllegalStateException Occurs if status loaded on access or in the background could not be loaded
      */
     public String getDelegationMessage() {
+        ensureStatus();
         return delegationMessage;
     }
 
@@ -204,8 +377,10 @@ public class Domain extends BaseObject {
      * Get Total Count of Wallet Names on Domain
      *
      * @return Wallet Name Count
+     * @throws IllegalStateException Occurs if status loaded on access or in the background could not be loaded
      */
     public int getWalletNameCount() {
+        ensureStatus();
         return walletNameCount;
     }
 
@@ -215,8 +390,10 @@ public class Domain extends BaseObject {
      * See: <a href="https://en.wikipedia.org/wiki/Domain_Name_System_Security_Extensions#Key_management">https://en.wikipedia.org/wiki/Domain_Name_System_Security_Extensions#Key_management</a>
      *
      * @return Next KSK Roll Date
+     * @throws IllegalStateException Occurs if DNSSEC details loaded on access or in the background could not be loaded
      */
     public Date getNextRoll() {
+        ensureDnssecDetails();
         return nextRoll;
     }
 
@@ -224,8 +401,10 @@ public class Domain extends BaseObject {
      * Get Domain DS Records
      *
      * @return DS Records
+     * @throws IllegalStateException Occurs if DNSSEC details loaded on access or in the background could not be loaded
      */
     public List<String> getDsRecords() {
+        ensureDnssecDetails();
         return dsRecords;
     }
 
@@ -233,8 +412,10 @@ public class Domain extends BaseObject {
      * Get Domain Nameservers
      *
      * @return Nameservers
+     * @throws IllegalStateException Occurs if DNSSEC details loaded on access or in the background could not be loaded
      */
     public List<String> getNameservers() {
+        ensureDnssecDetails();
         return nameservers;
     }
 
@@ -245,14 +426,18 @@ public class Domain extends BaseObject {
      */
     public void setNameservers(List<String> nameservers) {
         this.nameservers = nameservers;
+        this.pendingDnssecDetails = null;
+        this.dnssecDetailsOnAccess = false;
     }
 
     /**
      * Get Public Key for KSK
      *
      * @return KSK Public Key
+     * @throws IllegalStateException Occurs if DNSSEC details loaded on access or in the background could not be loaded
      */
     public String getPublicKeySigningKey() {
+        ensureDnssecDetails();
         return publicKeySigningKey;
     }
 
@@ -262,7 +447,7 @@ public class Domain extends BaseObject {
      * @return Requestor used for API operations
      */
     public Requestor getRequestor() {
-        return requestor;
+        return this.activeRequestor();
     }
 
     /**
@@ -271,6 +456,6 @@ public class Domain extends BaseObject {
      * @param requestor Requestor used for API operations
      */
     public void setRequestor(Requestor requestor) {
-        this.requestor = requestor;
+        this.useRequestor(requestor);
     }
 }
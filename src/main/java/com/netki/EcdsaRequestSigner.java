@@ -0,0 +1,124 @@
+package com.netki;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Default {@link RequestSigner}: sign Netki API requests (URL followed by body) with a user's secp256k1 key using
+ * the SpongyCastle provider's SHA256withECDSA
+ *
+ * The public key header value is encoded once. Signing borrows a {@link Signature}, initialized for signing once and
+ * reset by every sign(), plus a scratch buffer for the URL from a small shared pool, so steady-state signing does not
+ * look up providers, re-initialize keys or copy the request body. The pool holds at most {@link #MAX_POOLED}
+ * instances however many threads sign, which keeps it cheap with virtual threads and releases every copy of the
+ * initialized key along with the signer.
+ */
+final class EcdsaRequestSigner implements RequestSigner {
+
+    static final String ALGORITHM = "SHA256withECDSA";
+    static final String PROVIDER = "SC";
+
+    /**
+     * Most idle Signature instances kept for reuse; concurrent signs beyond it create and drop their own
+     */
+    static final int MAX_POOLED = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final int INITIAL_URL_BUFFER = 256;
+
+    private final PrivateKey privateKey;
+    private final String publicKeyHex;
+    private final Queue<PooledSignature> pool = new ConcurrentLinkedQueue<PooledSignature>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * Initialized Signature and the URL scratch buffer used with it
+     */
+    private static final class PooledSignature {
+        final Signature signature;
+        byte[] urlBuffer = new byte[INITIAL_URL_BUFFER];
+
+        PooledSignature(PrivateKey privateKey) throws GeneralSecurityException {
+            this.signature = Signature.getInstance(ALGORITHM, PROVIDER);
+            this.signature.initSign(privateKey);
+        }
+    }
+
+    /**
+     * @param userKey User's KeyPair
+     */
+    EcdsaRequestSigner(KeyPair userKey) {
+        this.privateKey = userKey.getPrivate();
+        this.publicKeyHex = BaseEncoding.base16().encode(userKey.getPublic().getEncoded());
+    }
+
+    @Override
+    public String getPublicKeyHex() {
+        return publicKeyHex;
+    }
+
+    @Override
+    public byte[] sign(String url, byte[] body) throws GeneralSecurityException {
+
+        PooledSignature pooledSignature = this.pool.poll();
+        if (pooledSignature != null) {
+            this.pooled.decrementAndGet();
+        } else {
+            pooledSignature = new PooledSignature(this.privateKey);
+        }
+
+        // State after a failed update / sign is undefined, so an instance is only returned to the pool on success
+        this.updateUrl(pooledSignature, url);
+        if (body != null) {
+            pooledSignature.signature.update(body);
+        }
+        byte[] sig = pooledSignature.signature.sign();
+
+        if (this.pooled.incrementAndGet() <= MAX_POOLED) {
+            this.pool.offer(pooledSignature);
+        } else {
+            this.pooled.decrementAndGet();
+        }
+        return sig;
+    }
+
+    /**
+     * Get number of idle Signature instances kept for reuse
+     *
+     * @return Pooled instances
+     */
+    int getPooled() {
+        return this.pooled.get();
+    }
+
+    /**
+     * Feed the URL's UTF-8 bytes to the signature. Request URLs are ASCII once built, so they are copied into the
+     * instance's scratch buffer char by char instead of allocating with getBytes().
+     */
+    private void updateUrl(PooledSignature pooledSignature, String url) throws GeneralSecurityException {
+
+        int length = url.length();
+        byte[] buffer = pooledSignature.urlBuffer;
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+            pooledSignature.urlBuffer = buffer;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = url.charAt(i);
+            if (c > 0x7F) {
+                pooledSignature.signature.update(url.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buffer[i] = (byte) c;
+        }
+        pooledSignature.signature.update(buffer, 0, length);
+    }
+}
@@ -0,0 +1,47 @@
+package com.netki;
+
+/**
+ * Groups of Netki API endpoints that a {@link RateLimiter} paces separately
+ */
+public enum EndpointGroup {
+
+    /**
+     * /v1/partner/walletname: WalletName lookups, saves and deletes, including {@link WalletNameBatch}
+     */
+    WALLET_NAMES,
+
+    /**
+     * /v1/partner/domain: Domain creation, status, DNSSEC details and deletion
+     */
+    DOMAINS,
+
+    /**
+     * /v1/certificate: Certificate orders, products, tokens and balance
+     */
+    CERTIFICATES,
+
+    /**
+     * /v1/admin and any other endpoint
+     */
+    ADMIN;
+
+    /**
+     * Find the group a request URI belongs to
+     *
+     * @param uri Netki Partner URI, including any query string (i.e., /v1/partner/walletname?domain_name=x)
+     * @return EndpointGroup
+     */
+    static EndpointGroup match(String uri) {
+
+        if (uri.startsWith(CachedEndpoint.WALLET_NAMES_PATH)) {
+            return WALLET_NAMES;
+        }
+        if (uri.startsWith(CachedEndpoint.DOMAIN_PREFIX)) {
+            return DOMAINS;
+        }
+        if (uri.startsWith("/v1/certificate")) {
+            return CERTIFICATES;
+        }
+        return ADMIN;
+    }
+}
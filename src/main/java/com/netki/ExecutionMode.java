@@ -0,0 +1,21 @@
+package com.netki;
+
+/**
+ * How {@link NetkiClient} runs fan-out operations, such as loading the details of every domain in
+ * {@link NetkiClient#getDomains()} or saving many wallet names in {@link NetkiClient#saveWalletNames}
+ */
+public enum ExecutionMode {
+
+    /**
+     * Run one API call after another on the calling thread (default). Operations with their own parallelism
+     * setting, such as {@link NetkiClient#setDomainLoadParallelism(int)}, use a shared pool of platform threads.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Run every API call concurrently on its own virtual thread. On JVMs without virtual threads (before Java 21)
+     * a bounded pool of platform threads is used instead.
+     */
+    VIRTUAL_THREADS
+
+}
@@ -0,0 +1,326 @@
+package com.netki;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a group of API calls according to an {@link ExecutionMode}.
+ *
+ * Concurrent groups are structured: {@link #invokeAll} returns only once every task has finished, and the first
+ * failure cancels the tasks still running before it is rethrown.
+ */
+final class FanOut {
+
+    static final int DEFAULT_PLATFORM_THREADS = 64;
+
+    private static final FanOut SEQUENTIAL = new FanOut(ExecutionMode.SEQUENTIAL, null, false);
+
+    private final ExecutionMode mode;
+    private final ExecutorService executor;
+    private final boolean virtual;
+
+    private FanOut(ExecutionMode mode, ExecutorService executor, boolean virtual) {
+        this.mode = mode;
+        this.executor = executor;
+        this.virtual = virtual;
+    }
+
+    /**
+     * Create a FanOut for the given mode
+     *
+     * @param mode Execution Mode
+     * @param platformThreads Size of the platform thread pool used when virtual threads are not available
+     * @return FanOut
+     */
+    static FanOut create(ExecutionMode mode, int platformThreads) {
+
+        if (mode == null || mode == ExecutionMode.SEQUENTIAL) {
+            return SEQUENTIAL;
+        }
+
+        ExecutorService virtualExecutor = newVirtualThreadExecutor();
+        if (virtualExecutor != null) {
+            return new FanOut(mode, virtualExecutor, true);
+        }
+
+        return new FanOut(mode, newPlatformPool(platformThreads), false);
+    }
+
+    private static ThreadPoolExecutor newPlatformPool(int platformThreads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(platformThreads, platformThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static class SharedPlatformPool {
+        static final private ExecutorService INSTANCE = newPlatformPool(DEFAULT_PLATFORM_THREADS);
+    }
+
+    /**
+     * Get Executors.newVirtualThreadPerTaskExecutor() when running on Java 21+
+     *
+     * @return Virtual thread executor or null if virtual threads are not available
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Run all tasks and return their results in task order
+     *
+     * @param tasks Tasks to run
+     * @param <T> Result Type
+     * @return Task results
+     * @throws Exception First exception thrown by a task (remaining tasks are cancelled)
+     */
+    <T> List<T> invokeAll(List<? extends Callable<T>> tasks) throws Exception {
+        if (this.executor == null) {
+            return invokeSequentially(tasks);
+        }
+        return invokeOn(this.executor, tasks);
+    }
+
+    /**
+     * Run all tasks, at most maxConcurrency at once, and return their results in task order.
+     *
+     * Unlike {@link #invokeAll(List)}, tasks run concurrently in {@link ExecutionMode#SEQUENTIAL} mode too, on a
+     * shared pool of platform threads.
+     *
+     * @param tasks Tasks to run
+     * @param maxConcurrency Maximum number of tasks running at once. 1 or less runs tasks on the calling thread.
+     * @param <T> Result Type
+     * @return Task results
+     * @throws Exception First exception thrown by a task (remaining tasks are cancelled)
+     */
+    <T> List<T> invokeAll(List<? extends Callable<T>> tasks, int maxConcurrency) throws Exception {
+        if (maxConcurrency <= 1) {
+            return invokeSequentially(tasks);
+        }
+        return invokeOn(this.executor(maxConcurrency), tasks);
+    }
+
+    /**
+     * Start all tasks in the background, at most maxConcurrency at once
+     *
+     * @param tasks Tasks to run
+     * @param maxConcurrency Maximum number of tasks running at once
+     * @param <T> Result Type
+     * @return Futures of the task results, in task order
+     */
+    <T> List<Future<T>> submitAll(List<? extends Callable<T>> tasks, int maxConcurrency) {
+        Executor target = this.executor(Math.max(1, maxConcurrency));
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        for (Callable<T> task : tasks) {
+            FutureTask<T> future = new FutureTask<T>(task);
+            target.execute(future);
+            futures.add(future);
+        }
+        return futures;
+    }
+
+    /**
+     * Get the shared pool of platform threads used by SEQUENTIAL mode's concurrent operations
+     *
+     * @return Shared platform thread pool
+     */
+    static Executor sharedPlatformPool() {
+        return SharedPlatformPool.INSTANCE;
+    }
+
+    private Executor executor(int maxConcurrency) {
+        Executor base = this.executor != null ? this.executor : SharedPlatformPool.INSTANCE;
+        return new BoundedExecutor(base, maxConcurrency);
+    }
+
+    private static <T> List<T> invokeSequentially(List<? extends Callable<T>> tasks) throws Exception {
+        List<T> results = new ArrayList<T>(tasks.size());
+        for (Callable<T> task : tasks) {
+            results.add(task.call());
+        }
+        return results;
+    }
+
+    private static <T> List<T> invokeOn(Executor target, List<? extends Callable<T>> tasks) throws Exception {
+
+        List<T> results = new ArrayList<T>(tasks.size());
+        CountDownLatch done = new CountDownLatch(tasks.size());
+        Outcome outcome = new Outcome(tasks.size());
+        List<ScopedTask<T>> scoped = new ArrayList<ScopedTask<T>>(tasks.size());
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+
+        try {
+            for (Callable<T> task : tasks) {
+                if (outcome.isCompletedExceptionally()) {
+                    break;
+                }
+                ScopedTask<T> scopedTask = new ScopedTask<T>(task, done, outcome);
+                scoped.add(scopedTask);
+                FutureTask<T> future = new FutureTask<T>(scopedTask);
+                futures.add(future);
+                target.execute(future);
+            }
+
+            // Completes as soon as any task fails, not once the tasks before it have finished
+            outcome.get();
+
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+
+        } catch (ExecutionException e) {
+            cancel(tasks.size(), scoped, futures, done);
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            cancel(tasks.size(), scoped, futures, done);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (RuntimeException e) {
+            cancel(tasks.size(), scoped, futures, done);
+            throw e;
+        }
+    }
+
+    private static <T> void cancel(int total, List<ScopedTask<T>> scoped, List<Future<T>> futures, CountDownLatch done) {
+        for (Future<T> future : futures) {
+            future.cancel(true);
+        }
+        for (ScopedTask<T> task : scoped) {
+            task.abandon();
+        }
+
+        // Tasks never created because an earlier submission was rejected will never count down
+        for (int i = scoped.size(); i < total; i++) {
+            done.countDown();
+        }
+
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Release the threads used by this FanOut
+     */
+    void shutdown() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+        }
+    }
+
+    ExecutionMode getMode() {
+        return mode;
+    }
+
+    boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Outcome of a group of tasks: completed once every task has succeeded, or with the first task failure
+     */
+    private static class Outcome extends CompletableFuture<Void> {
+
+        private final AtomicInteger remaining;
+
+        Outcome(int tasks) {
+            this.remaining = new AtomicInteger(tasks);
+            if (tasks == 0) {
+                this.complete(null);
+            }
+        }
+
+        void succeeded() {
+            if (this.remaining.decrementAndGet() == 0) {
+                this.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Task that counts down the scope latch exactly once, whether it runs or is abandoned before starting, and
+     * reports its result to the group's Outcome
+     */
+    private static class ScopedTask<T> implements Callable<T> {
+
+        private final Callable<T> delegate;
+        private final CountDownLatch done;
+        private final Outcome outcome;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        ScopedTask(Callable<T> delegate, CountDownLatch done, Outcome outcome) {
+            this.delegate = delegate;
+            this.done = done;
+            this.outcome = outcome;
+        }
+
+        @Override
+        public T call() throws Exception {
+            if (!this.claimed.compareAndSet(false, true)) {
+                throw new CancellationException();
+            }
+            try {
+                T result = this.delegate.call();
+                this.outcome.succeeded();
+                return result;
+            } catch (Throwable e) {
+                this.outcome.completeExceptionally(e);
+                throw e;
+            } finally {
+                this.done.countDown();
+            }
+        }
+
+        void abandon() {
+            if (this.claimed.compareAndSet(false, true)) {
+                this.done.countDown();
+            }
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "netki-fanout-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.netki;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Helpers bridging the blocking, checked-exception Netki API onto {@link CompletableFuture}
+ */
+final class Futures {
+
+    private Futures() {}
+
+    /**
+     * Function that may throw a checked exception
+     *
+     * @param <A> Argument Type
+     * @param <B> Result Type
+     */
+    interface CheckedFunction<A, B> {
+        B apply(A value) throws Exception;
+    }
+
+    /**
+     * Transform the result of a future with a function that may throw a checked exception
+     *
+     * @param future Source future
+     * @param function Transformation, run on the thread completing the source future
+     * @param <A> Source Result Type
+     * @param <B> Result Type
+     * @return Future completed with the transformed result or the function's exception
+     */
+    static <A, B> CompletableFuture<B> map(CompletableFuture<A> future, final CheckedFunction<A, B> function) {
+        return future.thenApply(value -> {
+            try {
+                return function.apply(value);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Run a task on the given Executor, completing the returned future with its result or exception
+     *
+     * @param task Task to run
+     * @param executor Executor to run the task on
+     * @param <T> Result Type
+     * @return Future completed by the task
+     */
+    static <T> CompletableFuture<T> supply(final Callable<T> task, Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor MUST NOT be null");
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Start asynchronous tasks with at most limit of them incomplete at once. Once a task fails, tasks not yet
+     * started are not started and fail with the same exception.
+     *
+     * @param tasks Tasks, each starting an asynchronous operation when called
+     * @param limit Most tasks incomplete at once
+     * @param <T> Result Type
+     * @return Futures completed by the tasks, in task order
+     */
+    static <T> List<CompletableFuture<T>> bounded(List<? extends Supplier<CompletableFuture<T>>> tasks, int limit) {
+        Bounded<T> bounded = new Bounded<T>(tasks, Math.max(1, limit));
+        bounded.drain();
+        return bounded.results;
+    }
+
+    /**
+     * Starts tasks as earlier ones complete. Tasks completing while the queue is drained free their slot for the
+     * draining thread instead of recursing, so synchronously completed tasks do not grow the stack.
+     */
+    private static final class Bounded<T> {
+
+        private final List<? extends Supplier<CompletableFuture<T>>> tasks;
+        private final List<CompletableFuture<T>> results;
+        private final int limit;
+
+        private int next;
+        private int running;
+        private boolean draining;
+        private Throwable failure;
+
+        Bounded(List<? extends Supplier<CompletableFuture<T>>> tasks, int limit) {
+            this.tasks = tasks;
+            this.limit = limit;
+            this.results = new ArrayList<CompletableFuture<T>>(tasks.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                this.results.add(new CompletableFuture<T>());
+            }
+        }
+
+        void drain() {
+            synchronized (this) {
+                if (this.draining) {
+                    return;
+                }
+                this.draining = true;
+            }
+
+            while (true) {
+                int index;
+                Throwable failed;
+                synchronized (this) {
+                    if (this.next >= this.tasks.size() || this.running >= this.limit) {
+                        this.draining = false;
+                        return;
+                    }
+                    index = this.next++;
+                    this.running++;
+                    failed = this.failure;
+                }
+                this.start(index, failed);
+            }
+        }
+
+        private void start(int index, Throwable failed) {
+            final CompletableFuture<T> result = this.results.get(index);
+            if (failed != null) {
+                result.completeExceptionally(failed);
+                this.finished(null);
+                return;
+            }
+
+            CompletableFuture<T> source;
+            try {
+                source = this.tasks.get(index).get();
+            } catch (RuntimeException e) {
+                source = failed(e);
+            }
+            source.whenComplete((value, e) -> {
+                this.finished(e);
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+
+        private void finished(Throwable e) {
+            synchronized (this) {
+                this.running--;
+                if (e != null && this.failure == null) {
+                    this.failure = e;
+                }
+            }
+            this.drain();
+        }
+    }
+
+    /**
+     * Get a future that has already failed with the given exception
+     *
+     * @param e Failure
+     * @param <T> Result Type
+     * @return Failed future
+     */
+    static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(e);
+        return future;
+    }
+}
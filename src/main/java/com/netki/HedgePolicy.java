@@ -0,0 +1,400 @@
+package com.netki;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hedges slow GET requests, set with {@link NetkiClient#setHedgePolicy}
+ *
+ * If a GET has not been answered after the hedge delay, a second identical request is sent and whichever answers
+ * first is used; the other is cancelled (with an {@link AsyncTransport}) or its response discarded as soon as it
+ * arrives. The hedge delay is the configured percentile of recent first-attempt latencies, kept between
+ * minDelayMillis and maxDelayMillis, and is maxDelayMillis until enough latencies have been seen. A first attempt
+ * beaten by its hedge counts with the time it had taken when it was cancelled.
+ *
+ * Hedges are limited by a token bucket: each GET request made through this policy adds budgetRatio of a hedge, up to
+ * {@link #MAX_HEDGE_TOKENS} hedges, and each hedge takes one. Hedging never adds more than budgetRatio of load over
+ * time, and credit saved while the API is healthy is capped, so it cannot fund a burst of hedges once the API is
+ * slow for everyone.
+ *
+ * With a blocking {@link Transport}, both attempts run on a pool of at most {@link #MAX_POOL_THREADS} daemon threads
+ * shared by all policies while the calling thread waits. Once every pool thread is busy, requests run unhedged on the
+ * calling thread and hedges are not sent, so a slow API cannot grow the pool without bound. An {@link AsyncTransport}
+ * (i.e., {@link NioTransport}) needs no pool threads.
+ *
+ * <pre>
+ * client.setHedgePolicy(new HedgePolicy(0.95, 20, 2000, 0.05));
+ * </pre>
+ */
+public final class HedgePolicy {
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final long DEFAULT_MIN_DELAY_MILLIS = 10;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 1000;
+    public static final double DEFAULT_BUDGET_RATIO = 0.05;
+
+    /**
+     * Most threads running blocking attempts at once, across all policies
+     */
+    public static final int MAX_POOL_THREADS = 64;
+
+    /**
+     * Most hedges that can be saved up while requests are answered quickly
+     */
+    public static final int MAX_HEDGE_TOKENS = 10;
+
+    // Fixed-point scale of the token bucket, so small budget ratios are not rounded away
+    private static final long TOKEN = 1000000;
+
+    static final int SAMPLES = 256;
+    static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final double budgetRatio;
+    private final long tokensPerRequest;
+
+    private final long[] samples = new long[SAMPLES];
+    private int sampleCount;
+    private volatile long delayMillis;
+
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /**
+     * Instantiate a HedgePolicy with default percentile, delays and budget
+     */
+    public HedgePolicy() {
+        this(DEFAULT_PERCENTILE, DEFAULT_MIN_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, DEFAULT_BUDGET_RATIO);
+    }
+
+    /**
+     * Instantiate a HedgePolicy
+     *
+     * @param percentile Percentile of recent latencies after which a request is hedged, i.e., 0.95
+     * @param minDelayMillis Lower bound of the hedge delay
+     * @param maxDelayMillis Upper bound of the hedge delay, also used until enough latencies have been seen
+     * @param budgetRatio Maximum share of requests that are hedged, i.e., 0.05
+     */
+    public HedgePolicy(double percentile, long minDelayMillis, long maxDelayMillis, double budgetRatio) {
+
+        if (!(percentile > 0 && percentile < 1)) {
+            throw new IllegalArgumentException("percentile MUST be between 0 and 1");
+        }
+        if (minDelayMillis < 0 || maxDelayMillis < minDelayMillis) {
+            throw new IllegalArgumentException("delays MUST satisfy 0 <= minDelayMillis <= maxDelayMillis");
+        }
+        if (!(budgetRatio >= 0 && budgetRatio <= 1)) {
+            throw new IllegalArgumentException("budgetRatio MUST be between 0 and 1");
+        }
+
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.budgetRatio = budgetRatio;
+        this.tokensPerRequest = Math.round(budgetRatio * TOKEN);
+        this.delayMillis = maxDelayMillis;
+    }
+
+    private static class HedgePoolHolder {
+        static final private ExecutorService INSTANCE = newHedgePool();
+    }
+
+    private static ExecutorService newHedgePool() {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(0, MAX_POOL_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), task -> {
+            Thread thread = new Thread(task, "netki-hedge-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Wrap a Transport so the GET requests it executes are hedged by this policy
+     *
+     * @param transport Transport
+     * @return Hedging Transport, which does not own transport
+     */
+    Transport wrap(final Transport transport) {
+        return new Transport() {
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                return HedgePolicy.this.execute(transport, request);
+            }
+
+            @Override
+            public void prepare(String url) throws IOException {
+                transport.prepare(url);
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+    }
+
+    /**
+     * Execute a GET request, hedging it if it is slow
+     *
+     * @param transport Transport
+     * @param request Request, sent unchanged by both attempts
+     * @return Response of whichever attempt answers first
+     * @throws IOException Failure of every attempt made
+     */
+    TransportResponse execute(Transport transport, TransportRequest request) throws IOException {
+
+        if (!request.getMethod().equals("GET")) {
+            return transport.execute(request);
+        }
+        this.requests.incrementAndGet();
+        this.addTokens(this.tokensPerRequest);
+
+        final long start = System.nanoTime();
+        CompletableFuture<TransportResponse> first;
+        try {
+            first = this.attempt(transport, request);
+        } catch (RejectedExecutionException e) {
+            // Every pool thread is busy: send unhedged on the calling thread
+            TransportResponse response = transport.execute(request);
+            this.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return response;
+        }
+        final CompletableFuture<TransportResponse> firstAttempt = first;
+        first.whenComplete((response, e) -> {
+            // A first attempt cancelled because its hedge won took at least this long, so slow requests still
+            // move the delay up
+            if (response != null || firstAttempt.isCancelled()) {
+                this.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+
+        try {
+            return first.get(this.delayMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Slow: hedge below
+        } catch (InterruptedException e) {
+            first.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("HTTP Request Interrupted");
+        } catch (ExecutionException e) {
+            throw toIOException(e.getCause());
+        }
+
+        if (!this.acquireHedge()) {
+            return await(first);
+        }
+
+        CompletableFuture<TransportResponse> second;
+        try {
+            second = this.attempt(transport, request);
+        } catch (RejectedExecutionException e) {
+            this.releaseHedge();
+            return await(first);
+        }
+        return await(this.firstResponse(first, second));
+    }
+
+    /**
+     * Start an attempt, on the AsyncTransport or a pool thread
+     *
+     * @throws RejectedExecutionException Occurs if the Transport is blocking and every pool thread is busy
+     */
+    private CompletableFuture<TransportResponse> attempt(final Transport transport, final TransportRequest request) {
+
+        if (transport instanceof AsyncTransport) {
+            return ((AsyncTransport) transport).executeAsync(request);
+        }
+
+        final CompletableFuture<TransportResponse> result = new CompletableFuture<TransportResponse>();
+        HedgePoolHolder.INSTANCE.execute(() -> {
+            try {
+                TransportResponse response = transport.execute(request);
+                if (!result.complete(response)) {
+                    closeQuietly(response);
+                }
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Complete with the first response of two attempts, cancelling the other and releasing its response, or
+     * with the last failure if both fail
+     */
+    private CompletableFuture<TransportResponse> firstResponse(final CompletableFuture<TransportResponse> first, final CompletableFuture<TransportResponse> second) {
+
+        final CompletableFuture<TransportResponse> winner = new CompletableFuture<TransportResponse>();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicReference<CompletableFuture<TransportResponse>> won = new AtomicReference<CompletableFuture<TransportResponse>>();
+
+        for (final CompletableFuture<TransportResponse> attempt : Arrays.asList(first, second)) {
+            final CompletableFuture<TransportResponse> other = attempt == first ? second : first;
+            attempt.whenComplete((response, e) -> {
+                if (response == null) {
+                    if (failures.incrementAndGet() == 2) {
+                        winner.completeExceptionally(e);
+                    }
+                } else if (won.compareAndSet(null, attempt)) {
+                    if (attempt == second) {
+                        this.hedgeWins.incrementAndGet();
+                    }
+                    other.cancel(false);
+                    winner.complete(response);
+                } else {
+                    closeQuietly(response);
+                }
+            });
+        }
+        winner.whenComplete((response, e) -> {
+            if (winner.isCancelled()) {
+                first.cancel(false);
+                second.cancel(false);
+            }
+        });
+        return winner;
+    }
+
+    private static TransportResponse await(CompletableFuture<TransportResponse> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("HTTP Request Interrupted");
+        } catch (ExecutionException e) {
+            throw toIOException(e.getCause());
+        }
+    }
+
+    private static IOException toIOException(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    private static void closeQuietly(TransportResponse response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void addTokens(long added) {
+        this.tokens.accumulateAndGet(added, (available, add) -> Math.min(MAX_HEDGE_TOKENS * TOKEN, available + add));
+    }
+
+    /**
+     * Take a hedge from the token bucket if it holds a whole one
+     */
+    boolean acquireHedge() {
+        while (true) {
+            long available = this.tokens.get();
+            if (available < TOKEN) {
+                return false;
+            }
+            if (this.tokens.compareAndSet(available, available - TOKEN)) {
+                this.hedges.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back a hedge that could not be sent
+     */
+    private void releaseHedge() {
+        this.hedges.decrementAndGet();
+        this.addTokens(TOKEN);
+    }
+
+    /**
+     * Record a first-attempt latency and periodically recompute the hedge delay
+     */
+    synchronized void record(long latencyMillis) {
+
+        this.samples[this.sampleCount % SAMPLES] = latencyMillis;
+        this.sampleCount++;
+        if (this.sampleCount < MIN_SAMPLES || this.sampleCount % RECOMPUTE_EVERY != 0) {
+            return;
+        }
+
+        long[] sorted = Arrays.copyOf(this.samples, Math.min(this.sampleCount, SAMPLES));
+        Arrays.sort(sorted);
+        long delay = sorted[(int) Math.min(sorted.length - 1, (long) Math.ceil(this.percentile * sorted.length) - 1)];
+        this.delayMillis = Math.max(this.minDelayMillis, Math.min(this.maxDelayMillis, delay));
+    }
+
+    /**
+     * Get current delay after which a GET request is hedged
+     *
+     * @return Hedge delay in milliseconds
+     */
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * Get percentile of recent latencies after which a request is hedged
+     *
+     * @return Percentile, between 0 and 1
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Get maximum share of requests that are hedged
+     *
+     * @return Budget ratio, between 0 and 1
+     */
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    /**
+     * Get number of GET requests made through this policy
+     *
+     * @return Requests, not counting hedges
+     */
+    public long getRequests() {
+        return this.requests.get();
+    }
+
+    /**
+     * Get number of hedges sent
+     *
+     * @return Hedges
+     */
+    public long getHedges() {
+        return this.hedges.get();
+    }
+
+    /**
+     * Get number of hedges that answered before the request they hedged
+     *
+     * @return Winning hedges
+     */
+    public long getHedgeWins() {
+        return this.hedgeWins.get();
+    }
+}
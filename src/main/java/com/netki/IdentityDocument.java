@@ -2,8 +2,10 @@ package com.netki;
 
 import java.util.Date;
 
+@JsonCodec(datePattern = "yyyy-mm-dd")
 public class IdentityDocument {
 
+    @JsonCodec.Field(name = "")
     private String identity;
     private String type;
     private String state;
@@ -0,0 +1,53 @@
+package com.netki;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generate a reflection-free JSON codec for a model class at compile time
+ *
+ * {@link com.netki.codegen.CodecProcessor} writes a package-private {@code <Class>Codec} next to the annotated class
+ * with:
+ * <ul>
+ *     <li>one snake_case name constant per field that has a getter or setter</li>
+ *     <li>{@code encode(value, prefix, suffix, out)}: put every non-null String / Date field into a flat request map</li>
+ *     <li>{@code decode(node, target)}: set every String, Date, int, long and boolean field present in a response</li>
+ *     <li>{@code formatDate} / {@code parseDate}: thread-safe date conversion using {@link #datePattern()}</li>
+ * </ul>
+ * Fields of other types only get a name constant and are left to hand-written code.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+@interface JsonCodec {
+
+    /**
+     * SimpleDateFormat pattern used for Date fields
+     */
+    String datePattern() default "yyyy-MM-dd";
+
+    /**
+     * Override how a single field is encoded and decoded
+     */
+    @Retention(RetentionPolicy.SOURCE)
+    @Target(ElementType.FIELD)
+    @interface Field {
+
+        /**
+         * Marker for "use the field name"
+         */
+        String DEFAULT_NAME = "\0";
+
+        /**
+         * JSON name. Defaults to the field name in snake_case; may be empty to encode the field under the
+         * {@code encode} prefix alone.
+         */
+        String name() default DEFAULT_NAME;
+
+        /**
+         * Leave the field out of the generated codec
+         */
+        boolean ignore() default false;
+    }
+}
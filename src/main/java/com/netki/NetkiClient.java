@@ -2,13 +2,19 @@ package com.netki;
 
 import com.google.api.client.util.Joiner;
 import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.node.IntNode;
 import org.spongycastle.jcajce.provider.asymmetric.ec.BCECPublicKey;
 import org.spongycastle.jce.spec.ECNamedCurveSpec;
 
+import java.io.InputStream;
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -22,8 +28,30 @@ public class NetkiClient {
     private String partnerKskHex;
     private String partnerKskSigHex;
     private KeyPair userKey;
-    private Requestor requestor = new Requestor();
-    private ObjectMapper mapper = new ObjectMapper();
+    private Requestor requestor = Requestor.getDefault();
+    private Codecs codecs = Codecs.DEFAULT;
+    private volatile Transport transport;
+    private volatile Transport defaultTransport;
+    private FanOut fanOut = FanOut.create(ExecutionMode.SEQUENTIAL, 0);
+    private int domainLoadParallelism = DEFAULT_DOMAIN_LOAD_PARALLELISM;
+    private DnssecLoading dnssecLoading = DnssecLoading.EAGER;
+    private boolean lazyDomainLoading = false;
+    private volatile Map<String, String> authHeaders;
+    private volatile RequestSigner requestSigner;
+    private volatile SigningStage signingStage;
+    private volatile SignatureCache signatureCache;
+    private volatile ResponseCache responseCache;
+    private volatile RequestCoalescer requestCoalescer;
+    private volatile RetryPolicy retryPolicy;
+    private volatile HedgePolicy hedgePolicy;
+    private volatile RateLimiter rateLimiter;
+    private volatile ConcurrencyLimiter concurrencyLimiter;
+    private volatile CircuitBreaker circuitBreaker;
+
+    /**
+     * Default maximum number of concurrent Domain detail calls made by {@link #getDomains()}
+     */
+    public static final int DEFAULT_DOMAIN_LOAD_PARALLELISM = 16;
 
     /**
      * Instantiate a NetkiClient object
@@ -161,7 +189,20 @@ public class NetkiClient {
      */
     public List<WalletName> getWalletNames(String domainName, String externalId) throws Exception {
 
-        List<WalletName> results = new ArrayList<WalletName> ();
+        InputStream content = this.requestor.processRequestStream(
+                this,
+                this.walletNamesUri(domainName, externalId),
+                "GET",
+                null
+        );
+
+        return this.walletNamesReader(this.codecs.createParser(content)).readAll();
+    }
+
+    /**
+     * Build Wallet Name lookup URI for the given criteria
+     */
+    String walletNamesUri(String domainName, String externalId) {
 
         List<String> args = new ArrayList<String>();
         if (domainName != null && !domainName.equals("")) {
@@ -176,36 +217,78 @@ public class NetkiClient {
         if (args.size() > 0) {
             uri = uri + "?" + Joiner.on('&').join(args);
         }
+        return uri;
+    }
 
-        String respStr = this.requestor.processRequest(
-                this,
-                uri,
-                "GET",
-                null
-        );
+    /**
+     * Parse Wallet Name lookup response
+     */
+    List<WalletName> parseWalletNames(String respStr) throws Exception {
+        return this.walletNamesReader(this.codecs.createParser(respStr)).readAll();
+    }
 
-        JsonNode respJson = this.mapper.readTree(respStr);
+    /**
+     * Stream-decode the wallet_names of a Wallet Name lookup response
+     */
+    private ResponseArrayReader<WalletName> walletNamesReader(JsonParser parser) {
+        return new ResponseArrayReader<WalletName>(this.codecs, parser, "wallet_names", this::toWalletName);
+    }
 
-        if (respJson.get("wallet_name_count").asInt() == 0) {
-            return results;
+    /**
+     * Build a WalletName from a single wallet_names response entry
+     */
+    WalletName toWalletName(JsonNode data) {
+
+        WalletName wn = WalletNameCodec.decode(data, new WalletName());
+
+        for (JsonNode wallet : data.get("wallets")) {
+            wn.setCurrencyAddress(wallet.get("currency").asText(), wallet.get("wallet_address").asText());
         }
 
-        for (JsonNode data : respJson.get("wallet_names")) {
-            WalletName wn = new WalletName(this.requestor);
-            wn.setId(data.get("id").asText());
-            wn.setDomainName(data.get("domain_name").asText());
-            wn.setName(data.get("name").asText());
-            wn.setExternalId(data.get("external_id").asText());
+        wn.setClient(this);
+        return wn;
+    }
 
-            for (JsonNode wallet : data.get("wallets")) {
-                wn.setCurrencyAddress(wallet.get("currency").asText(), wallet.get("wallet_address").asText());
-            }
+    /**
+     * Iterate over Wallet Names matching the given criteria, decoding them one at a time as the response arrives
+     *
+     * Unlike {@link #getWalletNames(String, String)}, memory use does not grow with the number of Wallet Names.
+     * The iterator holds an open connection until it is exhausted or closed.
+     *
+     * @param domainName Domain Name filter
+     * @param externalId External ID filter
+     * @return Iterator of matching Wallet Names
+     * @throws Exception Occurs on Bad HTTP Request / Response
+     */
+    public WalletNameIterator iterateWalletNames(String domainName, String externalId) throws Exception {
 
-            wn.setClient(this);
-            results.add(wn);
-        }
+        InputStream content = this.requestor.processRequestStream(
+                this,
+                this.walletNamesUri(domainName, externalId),
+                "GET",
+                null
+        );
+
+        return new WalletNameIterator(this, content);
+    }
+
+    /**
+     * Stream Wallet Names matching the given criteria, decoding them one at a time as the response arrives
+     *
+     * The stream holds an open connection until it is exhausted or closed; use it in a try-with-resources block.
+     *
+     * @param domainName Domain Name filter
+     * @param externalId External ID filter
+     * @return Stream of matching Wallet Names
+     * @throws Exception Occurs on Bad HTTP Request / Response
+     */
+    public Stream<WalletName> streamWalletNames(String domainName, String externalId) throws Exception {
 
-        return results;
+        WalletNameIterator iterator = this.iterateWalletNames(domainName, externalId);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(iterator::close);
     }
 
     /**
@@ -225,6 +308,27 @@ public class NetkiClient {
         return wn;
     }
 
+    /**
+     * Create New WalletNameBatch
+     *
+     * @return Empty WalletNameBatch. <b>NOTE:</b> the batch must be save()ed to commit to Netki
+     */
+    public WalletNameBatch createWalletNameBatch() {
+        return new WalletNameBatch(this);
+    }
+
+    /**
+     * Save multiple WalletNames to Netki API, batching creates and updates with the {@link WalletNameBatch} defaults
+     *
+     * @param walletNames WalletNames to save
+     * @throws Exception First Bad HTTP Request / Response encountered (remaining requests are cancelled)
+     */
+    public void saveWalletNames(Collection<WalletName> walletNames) throws Exception {
+        WalletNameBatch batch = this.createWalletNameBatch();
+        batch.addAll(walletNames);
+        batch.save();
+    }
+
     /**
      * Create New Certificate
      * @return Newly created Certificate <b>NOTE:</b> the Certificate must go through the
@@ -257,52 +361,50 @@ public class NetkiClient {
      */
     public List<Product> getAvailableProducts() throws Exception {
 
-        List<Product> results = new LinkedList<Product>();
-
-        String respStr = this.requestor.processRequest(
+        InputStream content = this.requestor.processRequestStream(
                 this,
                 "/v1/certificate/products",
                 "GET",
                 null
         );
 
-        JsonNode respJson = this.mapper.readTree(respStr);
-
-        if (respJson.get("products") == null) {
-            return results;
-        }
-
-        for (JsonNode data : respJson.get("products")) {
-            Product p = new Product();
+        return this.productsReader(this.codecs.createParser(content)).readAll();
+    }
 
-            if(data.get("id") == null) {
-                throw new NetkiException("Product Response Missing ID Field");
-            }
+    /**
+     * Parse Available Products response
+     */
+    List<Product> parseProducts(String respStr) throws Exception {
+        return this.productsReader(this.codecs.createParser(respStr)).readAll();
+    }
 
-            p.setId(data.get("id").asText());
+    /**
+     * Stream-decode the products of an Available Products response
+     */
+    private ResponseArrayReader<Product> productsReader(JsonParser parser) {
+        return new ResponseArrayReader<Product>(this.codecs, parser, "products", this::toProduct);
+    }
 
-            if(data.get("product_name") != null)
-                p.setName(data.get("product_name").asText());
+    /**
+     * Build a Product from a single products response entry
+     */
+    Product toProduct(JsonNode data) throws Exception {
 
-            if(data.get("current_tier") != null)
-                p.setCurrentTierName(data.get("current_tier").asText());
+        if(data.get(ProductCodec.ID) == null) {
+            throw new NetkiException("Product Response Missing ID Field");
+        }
 
-            if(data.get("term") != null)
-                p.setTerm(data.get("term").asInt());
+        Product p = ProductCodec.decode(data, new Product());
 
-            if (data.get("current_price") != null) {
-                Iterator<Map.Entry<String, JsonNode>> priceIterator = data.get("current_price").getFields();
-                while(priceIterator.hasNext()) {
-                    Map.Entry<String, JsonNode> field = priceIterator.next();
-                    p.setCurrentPrice(field.getKey(), field.getValue().asInt());
-                }
+        if (data.get(ProductCodec.CURRENT_PRICE) != null) {
+            Iterator<Map.Entry<String, JsonNode>> priceIterator = data.get(ProductCodec.CURRENT_PRICE).getFields();
+            while(priceIterator.hasNext()) {
+                Map.Entry<String, JsonNode> field = priceIterator.next();
+                p.setCurrentPrice(field.getKey(), field.getValue().asInt());
             }
-
-            results.add(p);
         }
 
-        return results;
-
+        return p;
     }
 
     /**
@@ -312,14 +414,26 @@ public class NetkiClient {
      */
     public String getCACertBundle() throws Exception {
 
-        String respStr = this.requestor.processRequest(
+        return this.requestor.processRequest(
                 this,
                 "/v1/certificate/cacert",
                 "GET",
-                null
+                null,
+                this::parseCACertBundle
         );
+    }
 
-        JsonNode respJson = this.mapper.readTree(respStr);
+    /**
+     * Parse CA Certificates response
+     */
+    String parseCACertBundle(String respStr) throws Exception {
+        return this.parseCACertBundle(this.codecs.readTree(respStr));
+    }
+
+    /**
+     * Parse CA Certificates response
+     */
+    String parseCACertBundle(JsonNode respJson) {
 
         if (respJson.get("cacerts") == null) {
             return "";
@@ -335,14 +449,26 @@ public class NetkiClient {
      */
     public Integer getAccountBalance() throws Exception {
 
-        String respStr = this.requestor.processRequest(
+        return this.requestor.processRequest(
                 this,
                 "/v1/certificate/balance",
                 "GET",
-                null
+                null,
+                this::parseAccountBalance
         );
+    }
 
-        JsonNode respJson = this.mapper.readTree(respStr);
+    /**
+     * Parse Account Balance response
+     */
+    Integer parseAccountBalance(String respStr) throws Exception {
+        return this.parseAccountBalance(this.codecs.readTree(respStr));
+    }
+
+    /**
+     * Parse Account Balance response
+     */
+    Integer parseAccountBalance(JsonNode respJson) {
 
         if (respJson.get("available_balance") == null) {
             return 0;
@@ -371,7 +497,15 @@ public class NetkiClient {
                 null
         );
 
-        JsonNode data = this.mapper.readTree(responseStr);
+        return this.parsePartner(responseStr);
+    }
+
+    /**
+     * Parse Partner creation response
+     */
+    Partner parsePartner(String responseStr) throws Exception {
+
+        JsonNode data = this.codecs.readTree(responseStr);
 
         Partner partner = new Partner(data.get("partner").get("id").asText(), data.get("partner").get("name").asText());
         partner.setClient(this);
@@ -386,16 +520,28 @@ public class NetkiClient {
      */
     public List<Partner> getPartners() throws Exception {
 
-        List<Partner> partners = new ArrayList<Partner>();
-
-        String responseStr = this.requestor.processRequest(
+        return this.requestor.processRequest(
                 this,
                 "/v1/admin/partner",
                 "GET",
-                null
+                null,
+                this::parsePartners
         );
+    }
+
+    /**
+     * Parse Partner list response
+     */
+    List<Partner> parsePartners(String responseStr) throws Exception {
+        return this.parsePartners(this.codecs.readTree(responseStr));
+    }
+
+    /**
+     * Parse Partner list response
+     */
+    List<Partner> parsePartners(JsonNode data) {
 
-        JsonNode data = this.mapper.readTree(responseStr);
+        List<Partner> partners = new ArrayList<Partner>();
 
         if (data.get("partners") == null) {
             return partners;
@@ -424,23 +570,39 @@ public class NetkiClient {
      */
     public Domain createDomain(String domainName, Partner partner) throws Exception {
 
+        String responseStr = requestor.processRequest(
+                this,
+                "/v1/partner/domain/" + domainName,
+                "POST",
+                this.createDomainData(partner)
+        );
+
+        return this.parseCreatedDomain(domainName, responseStr);
+    }
+
+    /**
+     * Build Domain creation request data
+     */
+    String createDomainData(Partner partner) throws Exception {
+
         String submitData = null;
 
         if (partner != null) {
             Map<String, String> subDict = new HashMap<String, String>();
             subDict.put("partner_id", partner.getId());
 
-            submitData = this.mapper.writeValueAsString(subDict);
+            submitData = this.codecs.writeRequest(subDict);
         }
 
-        String responseStr = requestor.processRequest(
-                this,
-                "/v1/partner/domain/" + domainName,
-                "POST",
-                submitData
-        );
+        return submitData;
+    }
+
+    /**
+     * Parse Domain creation response
+     */
+    Domain parseCreatedDomain(String domainName, String responseStr) throws Exception {
 
-        JsonNode data = this.mapper.readTree(responseStr);
+        JsonNode data = this.codecs.readTree(responseStr);
 
         Domain domain = new Domain(domainName);
         domain.setClient(this);
@@ -457,37 +619,491 @@ public class NetkiClient {
     /**
      * Get all partner domains
      *
+     * Each Domain's status and DNSSEC details are loaded concurrently, up to {@link #getDomainLoadParallelism()}
+     * calls at once. See {@link #setDnssecLoading(DnssecLoading)} to skip or defer DNSSEC details, or
+     * {@link #setLazyDomainLoading(boolean)} to load them only when first accessed.
+     *
      * @return List of partner domains
      * @throws Exception Occurs on Bad HTTP Request / Response
      */
     public List<Domain> getDomains() throws Exception {
 
-        List<Domain> domains = new ArrayList<Domain>();
-
-        String responseStr = requestor.processRequest(
+        List<Domain> domains = requestor.processRequest(
                 this,
                 "/api/domain",
                 "GET",
-                null
+                null,
+                this::parseDomains
         );
 
-        JsonNode data = this.mapper.readTree(responseStr);
+        if (this.lazyDomainLoading) {
+            for (Domain d : domains) {
+                d.loadOnAccess();
+            }
+            return domains;
+        }
+
+        List<Callable<Void>> loads = new ArrayList<Callable<Void>>(domains.size() * 2);
+        List<Callable<Void>> deferredLoads = new ArrayList<Callable<Void>>(domains.size());
+        for (final Domain d : domains) {
+            loads.add(() -> {
+                d.loadStatus();
+                return null;
+            });
+
+            Callable<Void> dnssecLoad = () -> {
+                d.loadDnssecDetails();
+                return null;
+            };
+            if (this.dnssecLoading == DnssecLoading.EAGER) {
+                loads.add(dnssecLoad);
+            } else if (this.dnssecLoading == DnssecLoading.DEFERRED) {
+                deferredLoads.add(dnssecLoad);
+            }
+        }
+        this.fanOut.invokeAll(loads, this.domainLoadParallelism);
+
+        if (!deferredLoads.isEmpty()) {
+            List<Future<Void>> pending = this.fanOut.submitAll(deferredLoads, this.domainLoadParallelism);
+            for (int i = 0; i < domains.size(); i++) {
+                domains.get(i).deferDnssecDetails(pending.get(i));
+            }
+        }
+
+        return domains;
+    }
+
+    /**
+     * Parse Domain list response. Returned Domains have not loaded their status or DNSSEC details.
+     */
+    List<Domain> parseDomains(String responseStr) throws Exception {
+        return this.parseDomains(this.codecs.readTree(responseStr));
+    }
+
+    /**
+     * Parse Domain list response, without loading Domain details
+     */
+    List<Domain> parseDomains(JsonNode data) {
+
+        List<Domain> domains = new ArrayList<Domain>();
 
         if (data.get("domains") == null) {
             return domains;
         }
 
         for (JsonNode domain : data.get("domains")) {
-            Domain d = new Domain(domain.get("domain_name").asText(), this.requestor);
+            Domain d = new Domain(domain.get("domain_name").asText());
             d.setClient(this);
-            d.loadStatus();
-            d.loadDnssecDetails();
             domains.add(d);
         }
 
         return domains;
     }
 
+    /**
+     * Get JSON codecs shared by this client and its objects
+     *
+     * @return Codecs
+     */
+    Codecs getCodecs() {
+        return codecs;
+    }
+
+    /**
+     * Get the authentication headers sent with every request. The headers (including the hex-encoded user public
+     * key) are built once, under the lock {@link #setRequestSigner} holds, and rebuilt after the signer changes.
+     *
+     * @return Unmodifiable header name to value map
+     */
+    Map<String, String> getAuthHeaders() {
+        Map<String, String> headers = this.authHeaders;
+        if (headers != null) {
+            return headers;
+        }
+
+        synchronized (this) {
+            if (this.authHeaders == null) {
+                headers = new LinkedHashMap<String, String>();
+                if (this.apiKey != null) {
+                    headers.put("Authorization", this.apiKey);
+                }
+                if (this.partnerId != null) {
+                    headers.put("X-Partner-ID", this.partnerId);
+                }
+                if (this.partnerKskHex != null && this.partnerKskSigHex != null) {
+                    headers.put("X-Partner-Key", this.partnerKskHex);
+                    headers.put("X-Partner-KeySig", this.partnerKskSigHex);
+                }
+                RequestSigner signer = this.getRequestSigner();
+                if (signer != null) {
+                    headers.put("X-IdentityDocument", signer.getPublicKeyHex());
+                }
+                this.authHeaders = Collections.unmodifiableMap(headers);
+            }
+            return this.authHeaders;
+        }
+    }
+
+    /**
+     * Get RequestSigner used to sign requests made with the user's key
+     *
+     * @return RequestSigner (a SpongyCastle provider-based signer if none has been set), or null if this client has
+     * no user key
+     */
+    public RequestSigner getRequestSigner() {
+        if (this.requestSigner == null && this.userKey != null) {
+            synchronized (this) {
+                if (this.requestSigner == null) {
+                    this.requestSigner = new EcdsaRequestSigner(this.userKey);
+                }
+            }
+        }
+        return this.requestSigner;
+    }
+
+    /**
+     * Set RequestSigner used to sign requests made with the user's key, i.e., {@link Secp256k1RequestSigner}
+     *
+     * @param requestSigner RequestSigner
+     */
+    public void setRequestSigner(RequestSigner requestSigner) {
+        synchronized (this) {
+            this.requestSigner = requestSigner;
+            this.authHeaders = null;
+        }
+    }
+
+    /**
+     * Get FanOut used for concurrent API operations
+     *
+     * @return FanOut
+     */
+    FanOut getFanOut() {
+        return fanOut;
+    }
+
+    /**
+     * Get Requestor used for API operations
+     *
+     * @return Requestor
+     */
+    Requestor getRequestor() {
+        return requestor;
+    }
+
+    /**
+     * Get an asynchronous view of this client
+     *
+     * @param executor Executor that API calls are run on
+     * @return AsyncNetkiClient backed by this client
+     */
+    public AsyncNetkiClient async(Executor executor) {
+        return new AsyncNetkiClient(this, executor);
+    }
+
+    /**
+     * Get Execution Mode used for fan-out operations
+     *
+     * @return Execution Mode
+     */
+    public ExecutionMode getExecutionMode() {
+        return fanOut.getMode();
+    }
+
+    /**
+     * Set Execution Mode used for fan-out operations ({@link #getDomains()}, {@link #saveWalletNames})
+     *
+     * @param mode Execution Mode. {@link ExecutionMode#SEQUENTIAL} is the default.
+     */
+    public void setExecutionMode(ExecutionMode mode) {
+        this.setExecutionMode(mode, FanOut.DEFAULT_PLATFORM_THREADS);
+    }
+
+    /**
+     * Set Execution Mode used for fan-out operations ({@link #getDomains()}, {@link #saveWalletNames})
+     *
+     * @param mode Execution Mode. {@link ExecutionMode#SEQUENTIAL} is the default.
+     * @param platformThreads Size of the platform thread pool used when virtual threads are not available
+     */
+    public void setExecutionMode(ExecutionMode mode, int platformThreads) {
+        FanOut previous = this.fanOut;
+        this.fanOut = FanOut.create(mode, platformThreads);
+        previous.shutdown();
+    }
+
+    /**
+     * Get number of threads signing requests in pipelined signing mode
+     *
+     * @return Signing threads, or 0 if pipelined signing is disabled
+     */
+    public int getPipelinedSigningThreads() {
+        SigningStage stage = this.signingStage;
+        return stage == null ? 0 : stage.getThreads();
+    }
+
+    /**
+     * Set number of threads signing requests in pipelined signing mode, with the default signing queue capacity
+     *
+     * @param signingThreads Signing threads. 0 disables pipelined signing (default).
+     */
+    public void setPipelinedSigning(int signingThreads) {
+        this.setPipelinedSigning(signingThreads, SigningStage.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Set pipelined signing mode for requests made with the user's key
+     *
+     * When enabled, each request's X-Signature is computed on a small pool of signing threads while the calling
+     * thread has the {@link Transport} check out or open a connection (see {@link Transport#prepare(String)}), and
+     * the request is sent once both are ready. This hides signing time behind connection setup on cold connections.
+     * When queueCapacity requests are already waiting to be signed, callers sign their own requests, which limits
+     * them to the rate the CPUs can sign at.
+     *
+     * @param signingThreads Signing threads. 0 disables pipelined signing (default).
+     * @param queueCapacity Maximum number of requests waiting for a signing thread
+     */
+    public void setPipelinedSigning(int signingThreads, int queueCapacity) {
+        SigningStage previous = this.signingStage;
+        this.signingStage = signingThreads > 0 ? new SigningStage(signingThreads, queueCapacity) : null;
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * Get SigningStage used in pipelined signing mode
+     *
+     * @return SigningStage, or null if pipelined signing is disabled
+     */
+    SigningStage getSigningStage() {
+        return signingStage;
+    }
+
+    /**
+     * Reuse X-Signature values for repeated identical GET requests, such as certificate status polling
+     *
+     * A signature covers only the request URL and body, so it stays valid for an identical request. Cached
+     * signatures are reused for at most ttlMillis, and at most maxEntries are kept (least recently used are evicted
+     * first). Changing the {@link RequestSigner} invalidates them. Disabled by default.
+     *
+     * @param ttlMillis Time a signature is reused for. 0 disables the cache.
+     * @param maxEntries Maximum number of cached signatures
+     */
+    public void setSignatureCache(long ttlMillis, int maxEntries) {
+        this.setSignatureCache(ttlMillis, maxEntries, false);
+    }
+
+    /**
+     * Reuse X-Signature values for repeated identical requests (see {@link #setSignatureCache(long, int)})
+     *
+     * @param ttlMillis Time a signature is reused for. 0 disables the cache.
+     * @param maxEntries Maximum number of cached signatures
+     * @param mutatingMethods Whether POST, PUT and DELETE requests with an identical URL and body reuse signatures too
+     */
+    public void setSignatureCache(long ttlMillis, int maxEntries, boolean mutatingMethods) {
+        this.signatureCache = ttlMillis > 0 ? new SignatureCache(ttlMillis, maxEntries, mutatingMethods) : null;
+    }
+
+    /**
+     * Get SignatureCache used to reuse request signatures
+     *
+     * @return SignatureCache, or null if disabled
+     */
+    SignatureCache getSignatureCache() {
+        return signatureCache;
+    }
+
+    /**
+     * Get ResponseCache used for GET endpoints such as {@link #getAvailableProducts()} and {@link Domain#loadStatus()}
+     *
+     * @return ResponseCache, or null if responses are not cached (default)
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Set ResponseCache used for GET endpoints such as {@link #getAvailableProducts()} and {@link Domain#loadStatus()}
+     *
+     * @param responseCache ResponseCache. A value of null disables response caching.
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Get RequestCoalescer that concurrent identical GET requests, such as {@link #getCertificate(String)} polling,
+     * share a single call through
+     *
+     * @return RequestCoalescer, or null if requests are not coalesced (default)
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Set RequestCoalescer that concurrent identical GET requests share a single call through
+     *
+     * @param requestCoalescer RequestCoalescer, which can be shared with other clients. A value of null disables
+     * coalescing.
+     */
+    public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * Get RetryPolicy used to retry requests that fail transiently, i.e., on connection reset or 503 Service
+     * Unavailable
+     *
+     * @return RetryPolicy, or null if failed requests are not retried (default)
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Set RetryPolicy used to retry requests that fail transiently
+     *
+     * @param retryPolicy RetryPolicy, which can be shared with other clients. A value of null disables retries.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Get HedgePolicy used to send a second attempt of GET requests, such as {@link #getWalletNames(String, String)}
+     * and {@link #getCertificate(String)}, that are slower than recent ones
+     *
+     * @return HedgePolicy, or null if requests are not hedged (default)
+     */
+    public HedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+
+    /**
+     * Set HedgePolicy used to send a second attempt of GET requests that are slower than recent ones
+     *
+     * @param hedgePolicy HedgePolicy. Its latencies and budget are shared by all clients it is set on. A value of
+     * null disables hedging.
+     */
+    public void setHedgePolicy(HedgePolicy hedgePolicy) {
+        this.hedgePolicy = hedgePolicy;
+    }
+
+    /**
+     * Get RateLimiter that paces requests, i.e., bulk WalletName updates, to stay below the API's throttling limits
+     *
+     * @return RateLimiter, or null if requests are not paced (default)
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Set RateLimiter that paces requests to stay below the API's throttling limits
+     *
+     * @param rateLimiter RateLimiter. Clients for the same partner that share it share its limits. A value of null
+     * disables pacing.
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Get ConcurrencyLimiter that adapts the number of concurrent in-flight requests to the API's latency and errors
+     *
+     * @return ConcurrencyLimiter, or null if in-flight requests are not limited (default)
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Set ConcurrencyLimiter that adapts the number of concurrent in-flight requests to the API's latency and errors
+     *
+     * @param concurrencyLimiter ConcurrencyLimiter. Clients that share it share its limit. A value of null removes the
+     * limit.
+     */
+    public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Get CircuitBreaker that fails requests immediately while their endpoint group is failing or slow
+     *
+     * @return CircuitBreaker, or null if requests always go through (default)
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Set CircuitBreaker that fails requests immediately while their endpoint group is failing or slow
+     *
+     * @param circuitBreaker CircuitBreaker. Clients that share it share its circuits. A value of null disables it.
+     */
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Get maximum number of concurrent Domain detail calls made by {@link #getDomains()}
+     *
+     * @return Domain load parallelism
+     */
+    public int getDomainLoadParallelism() {
+        return domainLoadParallelism;
+    }
+
+    /**
+     * Set maximum number of concurrent Domain detail calls made by {@link #getDomains()}
+     *
+     * @param domainLoadParallelism Domain load parallelism. 1 loads domains one call at a time on the calling thread.
+     */
+    public void setDomainLoadParallelism(int domainLoadParallelism) {
+        this.domainLoadParallelism = domainLoadParallelism;
+    }
+
+    /**
+     * Get when {@link #getDomains()} loads DNSSEC details
+     *
+     * @return DNSSEC Loading
+     */
+    public DnssecLoading getDnssecLoading() {
+        return dnssecLoading;
+    }
+
+    /**
+     * Set when {@link #getDomains()} loads DNSSEC details
+     *
+     * @param dnssecLoading DNSSEC Loading. {@link DnssecLoading#EAGER} is the default.
+     */
+    public void setDnssecLoading(DnssecLoading dnssecLoading) {
+        this.dnssecLoading = dnssecLoading;
+    }
+
+    /**
+     * Get whether {@link #getDomains()} leaves Domain details to be loaded on first access
+     *
+     * @return Lazy Domain Loading
+     */
+    public boolean getLazyDomainLoading() {
+        return lazyDomainLoading;
+    }
+
+    /**
+     * Set whether {@link #getDomains()} leaves Domain details to be loaded on first access
+     *
+     * When true, getDomains() makes a single API call. Status fields (status, delegation, wallet name count) and
+     * DNSSEC fields (DS records, nameservers, KSK and next roll) are each fetched once, by the first getter called
+     * from that group. {@link #setDnssecLoading(DnssecLoading)} does not apply.
+     *
+     * @param lazyDomainLoading Lazy Domain Loading
+     */
+    public void setLazyDomainLoading(boolean lazyDomainLoading) {
+        this.lazyDomainLoading = lazyDomainLoading;
+    }
+
     /**
      * Get NetkiClient partnerId
      * @return Netki Partner ID
@@ -536,6 +1152,39 @@ public class NetkiClient {
         return userKey;
     }
 
+    /**
+     * Get Transport used for all Netki API calls made on behalf of this client, including those made by the
+     * WalletName, Domain, Certificate and Partner objects it creates
+     * @return Transport (this client's own default {@link PooledTransport} if none has been set)
+     */
+    public Transport getTransport() {
+        Transport transport = this.transport;
+        if (transport != null) {
+            return transport;
+        }
+        transport = this.defaultTransport;
+        if (transport == null) {
+            synchronized (this) {
+                transport = this.defaultTransport;
+                if (transport == null) {
+                    // No eviction thread, so the pool goes away with the client
+                    transport = new PooledTransport(PooledTransport.DEFAULT_MAX_TOTAL, PooledTransport.DEFAULT_MAX_PER_ROUTE,
+                            PooledTransport.DEFAULT_IDLE_TIMEOUT_MILLIS, PooledTransport.DEFAULT_TIME_TO_LIVE_MILLIS, false);
+                    this.defaultTransport = transport;
+                }
+            }
+        }
+        return transport;
+    }
+
+    /**
+     * Set Transport used for all Netki API calls made on behalf of this client
+     * @param transport Transport (i.e., a {@link PooledTransport} with custom limits). A value of null restores the default.
+     */
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
 //    public static void main(String[] args) {
 //
 //        String ecdsaPrivKey = "30818D020100301006072A8648CE3D020106052B8104000A047630740201010420B5ECE22AB6FCBCAF4BB9B965125C7D96C6FD9988F21A60A24291B5AC9A99626BA00706052B8104000AA14403420004DEC7133D28727AE93AF1003E24538E6471698A86309A1946865D31E8B43748790C6D7AB25132A53D1B2593DACA8C32ACA7083F46E277F8CE374311D2C9F727A5";
@@ -0,0 +1,144 @@
+package com.netki;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Non-blocking {@link AsyncTransport} built on an NIO selector event loop.
+ *
+ * All connections are multiplexed over a small, fixed number of I/O dispatcher threads, so thousands of requests
+ * can be in flight at once without a thread per request. Requests beyond the connection limits are queued without
+ * blocking the caller.
+ */
+public class NioTransport implements AsyncTransport {
+
+    public static final int DEFAULT_MAX_TOTAL = 1000;
+    public static final int DEFAULT_MAX_PER_ROUTE = 200;
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient httpClient;
+
+    /**
+     * Instantiate a NioTransport with one I/O thread per available processor and the default connection limits
+     *
+     * @throws IOReactorException Occurs if the event loop cannot be started
+     */
+    public NioTransport() throws IOReactorException {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE);
+    }
+
+    /**
+     * Instantiate a NioTransport
+     *
+     * @param ioThreads Number of I/O dispatcher (event loop) threads
+     * @param maxTotal Maximum number of open connections across all routes
+     * @param maxPerRoute Maximum number of open connections per route (scheme, host and port)
+     * @throws IOReactorException Occurs if the event loop cannot be started
+     */
+    public NioTransport(int ioThreads, int maxTotal, int maxPerRoute) throws IOReactorException {
+
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads)
+                .setConnectTimeout(PooledTransport.DEFAULT_TIMEOUT_MILLIS)
+                .setSoTimeout(PooledTransport.DEFAULT_TIMEOUT_MILLIS)
+                .build();
+
+        this.connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig));
+        this.connectionManager.setMaxTotal(maxTotal);
+        this.connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(PooledTransport.DEFAULT_TIMEOUT_MILLIS)
+                .setSocketTimeout(PooledTransport.DEFAULT_TIMEOUT_MILLIS)
+                .build();
+
+        this.httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(this.connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        this.httpClient.start();
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+
+        final CompletableFuture<TransportResponse> result = new CompletableFuture<TransportResponse>();
+
+        final Future<HttpResponse> inFlight = this.httpClient.execute(PooledTransport.buildRequest(request), new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    // Body is fully buffered by the async client; the connection is already back in the pool
+                    result.complete(PooledTransport.toTransportResponse(response, null));
+                } catch (IOException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+
+        result.whenComplete((response, e) -> {
+            if (result.isCancelled()) {
+                inFlight.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        try {
+            return this.executeAsync(request).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("HTTP Request Interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            this.httpClient.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Get Connection Pool Statistics across all routes
+     *
+     * @return Leased, pending, available and max connection counts
+     */
+    public PoolStats getTotalStats() {
+        return this.connectionManager.getTotalStats();
+    }
+}
@@ -1,17 +1,19 @@
 package com.netki;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 public class Partner extends BaseObject {
 
     private String id;
     private String name;
-    private Requestor requestor;
 
     /**
      * Instantiate a Partner object
      */
     public Partner()
     {
-        this(new Requestor());
+        this(null);
     }
 
     /**
@@ -20,7 +22,7 @@ public class Partner extends BaseObject {
      */
     public Partner(Requestor requestor)
     {
-        this.requestor = requestor;
+        this.useRequestor(requestor);
     }
 
     /**
@@ -32,7 +34,6 @@ public class Partner extends BaseObject {
     public Partner(String id, String name) {
         this.id = id;
         this.name = name;
-        this.requestor = new Requestor();
     }
 
     /**
@@ -41,7 +42,7 @@ public class Partner extends BaseObject {
      * @throws Exception Occurs on Bad HTTP Request / Response
      */
     public void delete() throws Exception {
-        this.requestor.processRequest(
+        this.activeRequestor().processRequest(
                 this.getClient(),
                 "/v1/admin/partner/" + this.name,
                 "DELETE",
@@ -49,6 +50,22 @@ public class Partner extends BaseObject {
         );
     }
 
+    /**
+     * Delete partner via Netki API asynchronously
+     *
+     * @param executor Executor to run the API call on
+     * @return Future completed with this Partner once deleted
+     */
+    public CompletableFuture<Partner> deleteAsync(Executor executor) {
+        return Futures.map(this.activeRequestor().processRequestAsync(
+                this.getClient(),
+                "/v1/admin/partner/" + this.name,
+                "DELETE",
+                null,
+                executor
+        ), responseStr -> this);
+    }
+
     /****************************
      * Getters and Setters
      */
@@ -95,7 +112,7 @@ public class Partner extends BaseObject {
      * @return Requestor used for API operations
      */
     public Requestor getRequestor() {
-        return requestor;
+        return this.activeRequestor();
     }
 
     /**
@@ -104,7 +121,7 @@ public class Partner extends BaseObject {
      * @param requestor Requestor to use for API operations
      */
     public void setRequestor(Requestor requestor) {
-        this.requestor = requestor;
+        this.useRequestor(requestor);
     }
 
 }
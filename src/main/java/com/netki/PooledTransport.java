@@ -0,0 +1,284 @@
+package com.netki;
+
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.HttpRequestRetryHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection-pooling {@link Transport} with keep-alive, per-route / total connection limits and
+ * idle / TTL connection eviction. Each {@link NetkiClient} that has not been given a Transport creates its own.
+ *
+ * A pooled connection that has been idle for {@link #DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS} is checked before it
+ * is reused, and a request that gets no response at all (the server closed the kept-alive connection as it was
+ * being reused) is sent once more on a fresh connection.
+ */
+public class PooledTransport implements Transport {
+
+    public static final int DEFAULT_MAX_TOTAL = 200;
+    public static final int DEFAULT_MAX_PER_ROUTE = 50;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30000;
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 300000;
+    public static final int DEFAULT_TIMEOUT_MILLIS = 20000;
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS = 500;
+
+    // Only a request the server never answered is resent; any other I/O failure is left to the RetryPolicy
+    private static final HttpRequestRetryHandler STALE_CONNECTION_RETRY = new HttpRequestRetryHandler() {
+        @Override
+        public boolean retryRequest(IOException exception, int executionCount, HttpContext context) {
+            return executionCount <= 1 && exception instanceof NoHttpResponseException;
+        }
+    };
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Instantiate a PooledTransport using the default limits
+     */
+    public PooledTransport() {
+        this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_TIME_TO_LIVE_MILLIS);
+    }
+
+    /**
+     * Instantiate a PooledTransport
+     *
+     * @param maxTotal Maximum number of pooled connections across all routes
+     * @param maxPerRoute Maximum number of pooled connections per route (scheme, host and port)
+     * @param idleTimeoutMillis Idle time after which a pooled connection is evicted
+     * @param timeToLiveMillis Maximum lifetime of a pooled connection, regardless of activity
+     */
+    public PooledTransport(int maxTotal, int maxPerRoute, long idleTimeoutMillis, long timeToLiveMillis) {
+        this(maxTotal, maxPerRoute, idleTimeoutMillis, timeToLiveMillis, true);
+    }
+
+    /**
+     * Instantiate a PooledTransport
+     *
+     * @param maxTotal Maximum number of pooled connections across all routes
+     * @param maxPerRoute Maximum number of pooled connections per route (scheme, host and port)
+     * @param idleTimeoutMillis Idle time after which a pooled connection is evicted
+     * @param timeToLiveMillis Maximum lifetime of a pooled connection, regardless of activity
+     * @param evictInBackground Run an eviction thread. Without one, idle connections are validated when leased and
+     *                          released when the pool is garbage collected, so nothing has to call {@link #shutdown()}.
+     */
+    PooledTransport(int maxTotal, int maxPerRoute, long idleTimeoutMillis, long timeToLiveMillis, boolean evictInBackground) {
+
+        this.connectionManager = new PoolingHttpClientConnectionManager(timeToLiveMillis, TimeUnit.MILLISECONDS);
+        this.connectionManager.setMaxTotal(maxTotal);
+        this.connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        this.connectionManager.setValidateAfterInactivity(DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(DEFAULT_TIMEOUT_MILLIS)
+                .setSocketTimeout(DEFAULT_TIMEOUT_MILLIS)
+                .setConnectionRequestTimeout(DEFAULT_TIMEOUT_MILLIS)
+                .build();
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(this.connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setRetryHandler(STALE_CONNECTION_RETRY);
+        if (evictInBackground) {
+            builder.evictExpiredConnections().evictIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        this.httpClient = builder.build();
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        final CloseableHttpResponse response = this.httpClient.execute(buildRequest(request));
+        return toTransportResponse(response, response);
+    }
+
+    /**
+     * Lease a connection for the URL's route, open it if the pool had no idle connection to the host, and return
+     * it to the pool so the request that follows can reuse it
+     *
+     * @param url Fully qualified request URL
+     * @throws IOException Occurs if no connection can be leased or opened within the timeout
+     */
+    @Override
+    public void prepare(String url) throws IOException {
+
+        HttpHost target = URIUtils.extractHost(URI.create(url));
+        if (target == null) {
+            return;
+        }
+
+        // Same route the client's default route planner picks for this target (no proxy)
+        HttpRoute route = new HttpRoute(target, null, "https".equalsIgnoreCase(target.getSchemeName()));
+        ConnectionRequest connectionRequest = this.connectionManager.requestConnection(route, null);
+
+        HttpClientConnection connection;
+        try {
+            connection = connectionRequest.get(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection");
+        } catch (ExecutionException e) {
+            throw new IOException("Connection request failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        try {
+            if (!connection.isOpen()) {
+                HttpClientContext context = HttpClientContext.create();
+                this.connectionManager.connect(connection, route, DEFAULT_TIMEOUT_MILLIS, context);
+                this.connectionManager.routeComplete(connection, route, context);
+            }
+        } finally {
+            // Kept in the pool only if it is open and its route complete
+            this.connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Convert a TransportRequest to an Apache HttpClient request
+     *
+     * @param request TransportRequest
+     * @return Equivalent HttpUriRequest
+     */
+    static HttpUriRequest buildRequest(TransportRequest request) {
+
+        RequestBuilder builder = RequestBuilder.create(request.getMethod()).setUri(request.getUrl());
+
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.setHeader(header.getKey(), header.getValue());
+        }
+
+        if (request.getContent() != null) {
+            builder.setEntity(new ByteArrayEntity(request.getContent(), ContentType.create(request.getContentType())));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Convert an Apache HttpClient response to a TransportResponse
+     *
+     * @param response HttpResponse
+     * @param release Closed (after the entity is consumed) when the TransportResponse is closed. Can be null.
+     * @return Equivalent TransportResponse
+     * @throws IOException Occurs if the response body cannot be read
+     */
+    static TransportResponse toTransportResponse(HttpResponse response, final Closeable release) throws IOException {
+
+        final HttpEntity entity = response.getEntity();
+        InputStream content;
+        try {
+            content = entity != null ? entity.getContent() : null;
+        } catch (IOException | RuntimeException e) {
+            // Nothing will close the TransportResponse, so give the connection back now
+            if (release != null) {
+                try {
+                    release.close();
+                } catch (IOException ce) {
+                    e.addSuppressed(ce);
+                }
+            }
+            throw e;
+        }
+
+        TransportResponse transportResponse = new TransportResponse(response.getStatusLine().getStatusCode(), content) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    EntityUtils.consume(entity);
+                } finally {
+                    if (release != null) {
+                        release.close();
+                    }
+                }
+            }
+        };
+
+        for (Header header : response.getAllHeaders()) {
+            transportResponse.setHeader(header.getName(), header.getValue());
+        }
+
+        return transportResponse;
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            this.httpClient.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Get Connection Pool Statistics across all routes
+     *
+     * @return Leased, pending, available and max connection counts
+     */
+    public PoolStats getTotalStats() {
+        return this.connectionManager.getTotalStats();
+    }
+
+    /**
+     * Get Maximum Total Connections
+     *
+     * @return Maximum number of pooled connections across all routes
+     */
+    public int getMaxTotal() {
+        return this.connectionManager.getMaxTotal();
+    }
+
+    /**
+     * Set Maximum Total Connections
+     *
+     * @param maxTotal Maximum number of pooled connections across all routes
+     */
+    public void setMaxTotal(int maxTotal) {
+        this.connectionManager.setMaxTotal(maxTotal);
+    }
+
+    /**
+     * Get Maximum Connections per Route
+     *
+     * @return Maximum number of pooled connections per route
+     */
+    public int getMaxPerRoute() {
+        return this.connectionManager.getDefaultMaxPerRoute();
+    }
+
+    /**
+     * Set Maximum Connections per Route
+     *
+     * @param maxPerRoute Maximum number of pooled connections per route
+     */
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+    }
+}
@@ -5,10 +5,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+@JsonCodec
 public class Product {
 
     private String id;
+    @JsonCodec.Field(name = "product_name")
     private String name;
+    @JsonCodec.Field(name = "current_tier")
     private String currentTierName;
     private Map<String, Integer> currentPrice = new HashMap<String, Integer>();
     private int term;
@@ -0,0 +1,238 @@
+package com.netki;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side token-bucket rate limiter, set with {@link NetkiClient#setRateLimiter}
+ *
+ * Each {@link EndpointGroup} is limited only once given a rate with {@link #setLimit}. Requests are then paced per
+ * partner (partner ID, or partner KSK for KSK-authenticated clients) and group: up to burst requests are sent at
+ * once, after which requests are spaced 1 / permitsPerSecond apart.
+ *
+ * Synchronous requests wait for their turn on the calling thread. Asynchronous requests made with
+ * {@link Requestor#processRequestAsync} wait without holding a thread. A request whose turn is more than maxWaitMillis
+ * away fails immediately with a {@link NetkiException} and does not use up a token.
+ *
+ * <pre>
+ * RateLimiter limiter = new RateLimiter(30000);
+ * limiter.setLimit(EndpointGroup.WALLET_NAMES, 20, 40);
+ * client.setRateLimiter(limiter);
+ * </pre>
+ */
+public final class RateLimiter {
+
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 30000;
+
+    private final long maxWaitMillis;
+    private final ConcurrentHashMap<EndpointGroup, Limit> limits = new ConcurrentHashMap<EndpointGroup, Limit>();
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private static class Limit {
+        final long intervalNanos;
+        final int burst;
+
+        Limit(double permitsPerSecond, int burst) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * Generic cell rate algorithm: theoretical arrival time of the next request if requests were evenly spaced
+     */
+    private static class Bucket {
+        private long arrival = Long.MIN_VALUE;
+
+        /**
+         * Take a token, if one is available within maxWaitNanos
+         *
+         * @return Nanoseconds to wait before sending, or -1 if the wait would exceed maxWaitNanos
+         */
+        synchronized long reserve(Limit limit, long now, long maxWaitNanos) {
+            long next = Math.max(this.arrival, now) + limit.intervalNanos;
+            long wait = Math.max(0, next - limit.burst * limit.intervalNanos - now);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            this.arrival = next;
+            return wait;
+        }
+    }
+
+    private static class SchedulerHolder {
+        static final private ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "netki-rate-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Instantiate a RateLimiter that waits up to {@link #DEFAULT_MAX_WAIT_MILLIS} for a token
+     */
+    public RateLimiter() {
+        this(DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    /**
+     * Instantiate a RateLimiter
+     *
+     * @param maxWaitMillis Longest a request waits for a token before failing
+     */
+    public RateLimiter(long maxWaitMillis) {
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("maxWaitMillis MUST NOT be negative");
+        }
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Set rate and burst size of an endpoint group, applied separately to each partner
+     *
+     * @param group EndpointGroup
+     * @param permitsPerSecond Sustained requests per second. A value of 0 or less removes the limit.
+     * @param burst Requests that can be sent at once after an idle period
+     */
+    public void setLimit(EndpointGroup group, double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            this.limits.remove(group);
+            return;
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst MUST be at least 1");
+        }
+        this.limits.put(group, new Limit(permitsPerSecond, burst));
+    }
+
+    /**
+     * Get sustained requests per second of an endpoint group
+     *
+     * @param group EndpointGroup
+     * @return Requests per second, or 0 if the group is not limited
+     */
+    public double getPermitsPerSecond(EndpointGroup group) {
+        Limit limit = this.limits.get(group);
+        return limit == null ? 0 : (double) TimeUnit.SECONDS.toNanos(1) / limit.intervalNanos;
+    }
+
+    /**
+     * Get burst size of an endpoint group
+     *
+     * @param group EndpointGroup
+     * @return Burst size, or 0 if the group is not limited
+     */
+    public int getBurst(EndpointGroup group) {
+        Limit limit = this.limits.get(group);
+        return limit == null ? 0 : limit.burst;
+    }
+
+    /**
+     * Get longest a request waits for a token before failing
+     *
+     * @return Maximum wait in milliseconds
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Wait for a token for a request, blocking the calling thread
+     *
+     * @param client NetkiClient making the request
+     * @param uri Netki Partner URI
+     * @throws NetkiException Occurs if no token is available within maxWaitMillis
+     * @throws InterruptedException Occurs if interrupted while waiting
+     */
+    void acquire(NetkiClient client, String uri) throws NetkiException, InterruptedException {
+        long wait = this.reserve(client, uri);
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Get a token for a request without blocking
+     *
+     * @param client NetkiClient making the request
+     * @param uri Netki Partner URI
+     * @return Future completed when the request may be sent, or failed with a {@link NetkiException} if no token is
+     * available within maxWaitMillis
+     */
+    CompletableFuture<Void> acquireAsync(NetkiClient client, String uri) {
+
+        long wait;
+        try {
+            wait = this.reserve(client, uri);
+        } catch (NetkiException e) {
+            return Futures.failed(e);
+        }
+        if (wait == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final CompletableFuture<Void> ready = new CompletableFuture<Void>();
+        SchedulerHolder.INSTANCE.schedule(() -> ready.complete(null), wait, TimeUnit.NANOSECONDS);
+        return ready;
+    }
+
+    /**
+     * Take a token from the request's bucket
+     *
+     * @return Nanoseconds to wait before sending
+     */
+    private long reserve(NetkiClient client, String uri) throws NetkiException {
+
+        EndpointGroup group = EndpointGroup.match(uri);
+        Limit limit = this.limits.get(group);
+        if (limit == null) {
+            return 0;
+        }
+
+        Bucket bucket = this.buckets.computeIfAbsent(partner(client) + '\n' + group, key -> new Bucket());
+        long wait = bucket.reserve(limit, System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(this.maxWaitMillis));
+        if (wait < 0) {
+            this.rejected.incrementAndGet();
+            throw new NetkiException("Rate Limit Exceeded: " + group);
+        }
+        if (wait > 0) {
+            this.delayed.incrementAndGet();
+        }
+        return wait;
+    }
+
+    /**
+     * Partner the request is made for: partner ID, else partner KSK, else none (i.e., a user-key only client)
+     */
+    private static String partner(NetkiClient client) {
+        if (client.getPartnerId() != null) {
+            return client.getPartnerId();
+        }
+        return client.getPartnerKskHex() != null ? client.getPartnerKskHex() : "";
+    }
+
+    /**
+     * Get number of requests that waited for a token
+     *
+     * @return Delayed requests
+     */
+    public long getDelayedRequests() {
+        return this.delayed.get();
+    }
+
+    /**
+     * Get number of requests that failed because no token was available within maxWaitMillis
+     *
+     * @return Rejected requests
+     */
+    public long getRejectedRequests() {
+        return this.rejected.get();
+    }
+}
@@ -0,0 +1,178 @@
+package com.netki;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Single-flight coalescing of identical concurrent GET requests, set with {@link NetkiClient#setRequestCoalescer}
+ *
+ * While a GET is in flight, identical GETs (same URL, credentials and conditional headers) wait for it instead of
+ * making their own call, and all receive its response (or exception). Responses are read fully so each caller gets
+ * its own copy of the body. A RequestCoalescer can be shared by several clients; requests made with different
+ * credentials are never coalesced.
+ *
+ * GETs made with {@link Requestor#processRequestAsync} over an {@link AsyncTransport} are coalesced the same way,
+ * without holding a thread while they wait, and share in-flight requests with blocking GETs.
+ */
+public final class RequestCoalescer {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Shared>> inFlight = new ConcurrentHashMap<String, CompletableFuture<Shared>>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private static class Shared {
+        final int statusCode;
+        final Map<String, String> headers;
+        final byte[] content;
+
+        Shared(TransportResponse response) throws Exception {
+            try {
+                this.content = IOUtils.toByteArray(response.getContent());
+            } finally {
+                response.close();
+            }
+            this.statusCode = response.getStatusCode();
+            this.headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+            this.headers.putAll(response.getHeaders());
+        }
+
+        TransportResponse toResponse() {
+            TransportResponse response = new TransportResponse(this.statusCode, new ByteArrayInputStream(this.content));
+            for (Map.Entry<String, String> header : this.headers.entrySet()) {
+                response.setHeader(header.getKey(), header.getValue());
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Execute a request, or wait for an identical one already in flight
+     *
+     * @param key Request identity: method, URL, credentials and any headers that change the response
+     * @param call Executes the request
+     * @return Response
+     * @throws Exception Thrown by call, in this or the coalesced request
+     */
+    TransportResponse execute(String key, Callable<TransportResponse> call) throws Exception {
+
+        this.requests.increment();
+
+        CompletableFuture<Shared> mine = new CompletableFuture<Shared>();
+        CompletableFuture<Shared> leader = this.inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            this.coalesced.increment();
+            return await(leader).toResponse();
+        }
+
+        try {
+            Shared shared = new Shared(call.call());
+            mine.complete(shared);
+            return shared.toResponse();
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Execute a request asynchronously, or wait for an identical one already in flight without holding a thread
+     *
+     * @param key Request identity: method, URL, credentials and any headers that change the response
+     * @param call Starts the request
+     * @return Future Response, completed exceptionally with the failure of this or the coalesced request
+     */
+    CompletableFuture<TransportResponse> executeAsync(final String key, Supplier<CompletableFuture<TransportResponse>> call) {
+
+        this.requests.increment();
+
+        final CompletableFuture<Shared> mine = new CompletableFuture<Shared>();
+        CompletableFuture<Shared> leader = this.inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            this.coalesced.increment();
+            return leader.thenApply(Shared::toResponse);
+        }
+
+        CompletableFuture<TransportResponse> sent;
+        try {
+            sent = call.get();
+        } catch (RuntimeException e) {
+            sent = Futures.failed(e);
+        }
+        sent.whenComplete((response, e) -> {
+            try {
+                if (e != null) {
+                    mine.completeExceptionally(e);
+                } else {
+                    mine.complete(new Shared(response));
+                }
+            } catch (Exception se) {
+                mine.completeExceptionally(se);
+            } finally {
+                this.inFlight.remove(key, mine);
+            }
+        });
+        return mine.thenApply(Shared::toResponse);
+    }
+
+    private static Shared await(CompletableFuture<Shared> leader) throws Exception {
+        try {
+            return leader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Get number of requests made through this RequestCoalescer
+     *
+     * @return Requests, coalesced or not
+     */
+    public long getRequests() {
+        return this.requests.sum();
+    }
+
+    /**
+     * Get number of requests answered by an identical request already in flight
+     *
+     * @return Coalesced requests
+     */
+    public long getCoalescedRequests() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * Get share of requests answered by an identical request already in flight
+     *
+     * @return Coalesced requests / requests, or 0 if there have been no requests
+     */
+    public double getCoalescingRatio() {
+        long total = this.requests.sum();
+        return total == 0 ? 0 : (double) this.coalesced.sum() / total;
+    }
+
+    /**
+     * Get number of distinct requests currently in flight
+     *
+     * @return In-flight requests
+     */
+    public int getInFlight() {
+        return this.inFlight.size();
+    }
+}
@@ -0,0 +1,30 @@
+package com.netki;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Signs Netki API requests made with a user key (Distributed or Signed Partner API Access)
+ *
+ * The signature covers the fully qualified request URL followed by the request body and is sent, HEX encoded, in
+ * the X-Signature header. The default signer uses the SpongyCastle "SC" provider's SHA256withECDSA;
+ * {@link Secp256k1RequestSigner} is a faster drop-in replacement. Implementations MUST be thread-safe.
+ */
+public interface RequestSigner {
+
+    /**
+     * Get the DER-encoded user public key in HEX format, sent in the X-IdentityDocument header
+     *
+     * @return Public Key HEX
+     */
+    String getPublicKeyHex();
+
+    /**
+     * Sign a request
+     *
+     * @param url Fully qualified request URL
+     * @param body Request body, or null
+     * @return DER-encoded SHA256withECDSA signature
+     * @throws GeneralSecurityException Occurs if the request cannot be signed
+     */
+    byte[] sign(String url, byte[] body) throws GeneralSecurityException;
+}
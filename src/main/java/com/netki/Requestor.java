@@ -1,28 +1,45 @@
 package com.netki;
 
-import com.google.api.client.http.*;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpStatusCodes;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.security.Signature;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 import com.google.api.client.util.Joiner;
 import com.google.common.io.BaseEncoding;
 import org.apache.commons.io.IOUtils;
 import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
 
 /**
  * Make and process HTTP calls to the Netki API
  */
 public class Requestor {
 
-    static final private HttpTransport HTTP_TRANSPORT = new NetHttpTransport();
+    /**
+     * Get the Requestor shared by all {@link NetkiClient}s and objects that have not been given their own.
+     * Requestor holds no per-call state, so a single instance is safe to share.
+     *
+     * @return Default Requestor
+     */
+    static Requestor getDefault() {
+        return DefaultRequestorHolder.INSTANCE;
+    }
+
+    private static class DefaultRequestorHolder {
+        static final private Requestor INSTANCE = new Requestor();
+    }
 
     /**
      *
@@ -36,113 +53,501 @@ public class Requestor {
      * @throws Exception Occurs on Bad HTTP Request / Response
      */
     public String processRequest(NetkiClient client, String uri, String method, String data) throws Exception {
+        return this.processRequestBody(client, uri, method, toBytes(data));
+    }
 
-        List<String> supportedMethods = new ArrayList<String>(Arrays.asList("GET", "POST", "PUT", "DELETE"));
-        if (!supportedMethods.contains(method)) {
-            throw new Exception("Unsupported HTTP Method: " + method);
+    /**
+     *
+     * Process Netki API request with an already encoded body and response
+     *
+     * The body array is signed and sent as-is, without being copied. It must not be modified until the call returns.
+     *
+     * @param client NetkiClient
+     * @param uri Netki Partner URI (i.e., /v1/partner/walletname)
+     * @param method HTTP Method
+     * @param body UTF-8 encoded POST/PUT Data
+     * @return API Response Content
+     * @throws Exception Occurs on Bad HTTP Request / Response
+     */
+    public String processRequestBody(NetkiClient client, String uri, String method, byte[] body) throws Exception {
+
+        TransportResponse response = this.execute(client, uri, method, body, false);
+        return this.processResponse(method, response);
+    }
+
+    /**
+     *
+     * Process Netki API request and decode the response with a single parse
+     *
+     * @param client NetkiClient
+     * @param uri Netki Partner URI (i.e., /v1/partner/walletname)
+     * @param method HTTP Method
+     * @param data POST/PUT Data
+     * @param handler Decodes the validated response
+     * @param <T> Result Type
+     * @return Decoded API Response
+     * @throws Exception Occurs on Bad HTTP Request / Response
+     */
+    public <T> T processRequest(NetkiClient client, String uri, String method, String data, ResponseHandler<T> handler) throws Exception {
+
+        TransportResponse response = this.execute(client, uri, method, toBytes(data), false);
+
+        int statusCode = response.getStatusCode();
+        JsonNode retData;
+        try {
+            if (method.equals("DELETE") && statusCode == HttpStatusCodes.STATUS_CODE_NO_CONTENT) {
+                return handler.handle(null);
+            }
+            retData = client.getCodecs().readTree(response.getContent());
+        } finally {
+            response.close();
         }
 
-        HttpRequestFactory requestFactory = HTTP_TRANSPORT.createRequestFactory();
-        HttpContent content = null;
+        this.checkEnvelope(statusCode, retData);
+        return handler.handle(retData);
+    }
 
-        if (data != null) {
-            content = new ByteArrayContent("application/json", data.getBytes());
+    /**
+     *
+     * Process Netki API request and return the response body as a stream, so large responses can be decoded
+     * incrementally
+     *
+     * Error responses are read and reported as with {@link #processRequest}. A successful response's envelope is
+     * not validated; the caller is responsible for checking it while decoding.
+     *
+     * @param client NetkiClient
+     * @param uri Netki Partner URI (i.e., /v1/partner/walletname)
+     * @param method HTTP Method
+     * @param data POST/PUT Data
+     * @return API Response Content stream. Closing it releases the connection.
+     * @throws Exception Occurs on Bad HTTP Request / Response
+     */
+    public InputStream processRequestStream(NetkiClient client, String uri, String method, String data) throws Exception {
 
+        final TransportResponse response = this.execute(client, uri, method, toBytes(data), false);
+
+        if (response.getStatusCode() >= HttpStatusCodes.STATUS_CODE_MULTIPLE_CHOICES) {
+            this.processResponse(method, response);
+            throw new Exception("HTTP Request Failed: " + response.getStatusCode());
         }
 
-        HttpRequest request = requestFactory.buildRequest(method.toUpperCase(), new GenericUrl(client.getApiUrl() + uri), content);
+        return new FilterInputStream(response.getContent()) {
+            @Override
+            public void close() throws IOException {
+                response.close();
+            }
+        };
+    }
+
+    /**
+     *
+     * Process Netki API request and response without blocking the calling thread
+     *
+     * If the client's {@link Transport} is an {@link AsyncTransport}, no thread is held while the request is in
+     * flight and the executor is only used to process the response. Otherwise, or if the client has a
+     * {@link RetryPolicy}, {@link HedgePolicy}, {@link ConcurrencyLimiter} or {@link CircuitBreaker}, the whole
+     * blocking request (including any retries and hedges) runs on the executor. With a {@link RateLimiter}, the request waits for its token without
+     * holding a thread. With a {@link RequestCoalescer}, identical concurrent GET requests share one call either way.
+     *
+     * @param client NetkiClient
+     * @param uri Netki Partner URI (i.e., /v1/partner/walletname)
+     * @param method HTTP Method
+     * @param data POST/PUT Data
+     * @param executor Executor used to process the response
+     * @return Future API Response Content, completed exceptionally on Bad HTTP Request / Response
+     */
+    public CompletableFuture<String> processRequestAsync(final NetkiClient client, final String uri, final String method, final String data, final Executor executor) {
 
-        // Add Authorization Header if ApiKey exists
-        if(client.getApiKey() != null) {
-            request.getHeaders().set("Authorization", Collections.singletonList(client.getApiKey()));
+        if (executor == null) {
+            throw new IllegalArgumentException("executor MUST NOT be null");
         }
 
-        // Set PartnerID header if partnerId exists
-        if(client.getPartnerId() != null) {
-            request.getHeaders().set("X-Partner-ID", Collections.singletonList(client.getPartnerId()));
+        RateLimiter limiter = client.getRateLimiter();
+        if (limiter == null) {
+            return this.processRequestAsync(client, uri, method, data, executor, false);
         }
+        return limiter.acquireAsync(client, uri)
+                .thenComposeAsync(ready -> processRequestAsync(client, uri, method, data, executor, true), executor);
+    }
 
-        // Add Partner KSK and KSK-based Signature
-        if(client.getPartnerKskHex() != null && client.getPartnerKskSigHex() != null) {
-            request.getHeaders().set("X-Partner-Key", client.getPartnerKskHex());
-            request.getHeaders().set("X-Partner-KeySig", client.getPartnerKskSigHex());
+    /**
+     * Process Netki API request and response without blocking the calling thread, once any rate limit token has
+     * been taken
+     */
+    private CompletableFuture<String> processRequestAsync(final NetkiClient client, final String uri, final String method, final String data, Executor executor, final boolean acquired) {
+
+        if (!(client.getTransport() instanceof AsyncTransport) || client.getRetryPolicy() != null
+                || client.getHedgePolicy() != null || client.getConcurrencyLimiter() != null
+                || client.getCircuitBreaker() != null) {
+            return Futures.supply(() -> processResponse(method, execute(client, uri, method, toBytes(data), acquired)), executor);
+        }
+
+        TransportRequest request;
+        try {
+            request = this.buildRequest(client, uri, method, data);
+        } catch (Exception e) {
+            return Futures.failed(e);
         }
 
-        // Sign Request if userKey is Present
-        if(client.getUserKey() != null) {
+        final AsyncTransport transport = (AsyncTransport) client.getTransport();
+        final TransportRequest signed = request;
+        CompletableFuture<TransportResponse> sent;
+        RequestCoalescer coalescer = client.getRequestCoalescer();
+        if (coalescer != null && method.equals("GET")) {
+            sent = coalescer.executeAsync(coalescingKey(client, uri, null), () -> transport.executeAsync(signed));
+        } else {
+            sent = transport.executeAsync(signed);
+        }
 
-            byte[] dataByteArray = new byte[0];
-            byte[] urlByteArray = request.getUrl().toString().getBytes();
-            if (data != null) {
-                dataByteArray = data.getBytes();
+        CompletableFuture<String> result = new CompletableFuture<String>();
+        sent.whenCompleteAsync((response, e) -> {
+            ResponseCache cache = client.getResponseCache();
+            if (cache != null) {
+                cache.invalidateAfterWrite(method, uri);
             }
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                result.completeExceptionally(new Exception("HTTP Request Failed: " + cause.getMessage()));
+                return;
+            }
+            try {
+                result.complete(processResponse(method, response));
+            } catch (Exception pe) {
+                result.completeExceptionally(pe);
+            }
+        }, executor);
+        return result;
+    }
+
+    /**
+     * Build the HTTP request for a Netki API call, including authentication headers and signature
+     *
+     * @param client NetkiClient
+     * @param uri Netki Partner URI (i.e., /v1/partner/walletname)
+     * @param method HTTP Method
+     * @param data POST/PUT Data
+     * @return Request ready to be executed by a {@link Transport}
+     * @throws Exception Occurs on unsupported method or signing failure
+     */
+    TransportRequest buildRequest(NetkiClient client, String uri, String method, String data) throws Exception {
+        return this.buildRequest(client, uri, method, toBytes(data));
+    }
 
-            byte[] sigData = new byte[urlByteArray.length + dataByteArray.length];
-            System.arraycopy(urlByteArray, 0, sigData, 0, urlByteArray.length);
-            System.arraycopy(dataByteArray, 0, sigData, urlByteArray.length, dataByteArray.length);
+    /**
+     * Build the HTTP request for a Netki API call from an already encoded body. The same array is used for the
+     * signature and as the request content.
+     *
+     * @param client NetkiClient
+     * @param uri Netki Partner URI (i.e., /v1/partner/walletname)
+     * @param method HTTP Method
+     * @param body UTF-8 encoded POST/PUT Data, or null
+     * @return Request ready to be executed by a {@link Transport}
+     * @throws Exception Occurs on unsupported method or signing failure
+     */
+    TransportRequest buildRequest(NetkiClient client, String uri, String method, byte[] body) throws Exception {
+
+        TransportRequest request = this.buildUnsignedRequest(client, uri, method, body);
+
+        // Sign Request (URL followed by body) if userKey is Present
+        RequestSigner signer = client.getRequestSigner();
+        if(signer != null) {
+            SignatureCache cache = client.getSignatureCache();
+            String key = cache != null ? cache.key(method, request.getUrl(), body) : null;
+            String sig = key != null ? cache.get(key, signer) : null;
+            if (sig == null) {
+                sig = BaseEncoding.base16().encode(signer.sign(request.getUrl(), body));
+                if (key != null) {
+                    cache.put(key, signer, sig);
+                }
+            }
+            request.setHeader("X-Signature", sig);
+        }
 
-            Signature ecdsaSig;
-            ecdsaSig = Signature.getInstance("SHA256withECDSA", "SC");
-            ecdsaSig.initSign(client.getUserKey().getPrivate());
+        return request;
+    }
 
-            ecdsaSig.update(sigData);
-            byte[] sig = ecdsaSig.sign();
+    /**
+     * Build and execute the HTTP request for a Netki API call. GET requests for endpoints cached by the client's
+     * {@link ResponseCache} may be answered from it, and concurrent identical GET requests may be coalesced into
+     * one; other requests invalidate the cache entries they affect.
+     *
+     * @param client NetkiClient
+     * @param uri Netki Partner URI (i.e., /v1/partner/walletname)
+     * @param method HTTP Method
+     * @param body UTF-8 encoded POST/PUT Data, or null
+     * @param acquired Whether a {@link RateLimiter} token has already been taken for this request
+     * @return Response, which <b>MUST</b> be closed by the caller
+     * @throws Exception Occurs on unsupported method, signing failure, rate limit or HTTP request failure
+     */
+    private TransportResponse execute(final NetkiClient client, final String uri, String method, byte[] body, final boolean acquired) throws Exception {
 
-            String encodedPKString = BaseEncoding.base16().encode(client.getUserKey().getPublic().getEncoded());
-            String encodedSig = BaseEncoding.base16().encode(sig);
+        ResponseCache cache = client.getResponseCache();
 
-            request.getHeaders().set("X-IdentityDocument", encodedPKString);
-            request.getHeaders().set("X-Signature", encodedSig);
+        if (method.equals("GET")) {
+            if (cache != null && cache.isCached(uri)) {
+                return cache.get(coalescingKey(client, uri, null), uri,
+                        conditionalHeaders -> sendGet(client, uri, conditionalHeaders, acquired), Requestor::isSuccess);
+            }
+            return this.sendGet(client, uri, null, acquired);
         }
 
-        HttpResponse response = null;
-        HttpResponseException errorResponse = null;
         try {
-            response = request.execute();
-        } catch(IOException e)
-        {
-            if(e instanceof HttpResponseException) {
-                errorResponse = (HttpResponseException)e;
+            return this.send(client, uri, method, body, null, acquired);
+        } finally {
+            if (cache != null) {
+                cache.invalidateAfterWrite(method, uri);
+            }
+        }
+    }
+
+    /**
+     * Execute a GET request, sharing the response of an identical request already in flight if the client has a
+     * {@link RequestCoalescer}
+     *
+     * @param headers Additional request headers (i.e., If-None-Match), or null
+     */
+    private TransportResponse sendGet(final NetkiClient client, final String uri, final Map<String, String> headers, final boolean acquired) throws Exception {
+
+        RequestCoalescer coalescer = client.getRequestCoalescer();
+        if (coalescer == null) {
+            return this.send(client, uri, "GET", null, headers, acquired);
+        }
+
+        return coalescer.execute(coalescingKey(client, uri, headers), () -> send(client, uri, "GET", null, headers, acquired));
+    }
+
+    /**
+     * Get the {@link RequestCoalescer} identity of a GET request
+     *
+     * @param headers Additional request headers (i.e., If-None-Match), or null
+     */
+    private static String coalescingKey(NetkiClient client, String uri, Map<String, String> headers) {
+
+        // Credentials are part of the identity: clients sharing a coalescer may act for different partners or users
+        StringBuilder key = new StringBuilder("GET ").append(client.getApiUrl()).append(uri)
+                .append('\n').append(client.getAuthHeaders());
+        if (headers != null) {
+            key.append('\n').append(headers);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Build and execute the HTTP request for a Netki API call, bypassing the response cache
+     *
+     * With pipelined signing enabled on the client, the request is signed on the client's {@link SigningStage}
+     * while the calling thread has the Transport prepare a connection, and is sent once both are done.
+     *
+     * With a {@link RateLimiter} set on the client, the request first waits for a token unless one was taken
+     * already. With a {@link HedgePolicy}, slow GET requests are hedged with a second identical request. With a
+     * {@link RetryPolicy}, transient failures are retried with the same signed request. With a
+     * {@link ConcurrencyLimiter}, each attempt waits for a free slot. With a {@link CircuitBreaker}, the request fails
+     * immediately while its endpoint group's circuit is open, and its outcome is recorded otherwise.
+     *
+     * @param headers Additional request headers (i.e., If-None-Match), or null
+     */
+    private TransportResponse send(NetkiClient client, String uri, String method, byte[] body, Map<String, String> headers, boolean acquired) throws Exception {
+
+        CircuitBreaker breaker = client.getCircuitBreaker();
+        if (breaker == null) {
+            return this.send(client, uri, method, body, headers, acquired, null);
+        }
+
+        CircuitBreaker.Permit permit = breaker.acquire(uri);
+        try {
+            return this.send(client, uri, method, body, headers, acquired, permit);
+        } finally {
+            permit.cancel();
+        }
+    }
+
+    /**
+     * Build and execute the HTTP request for a Netki API call, recording the transport outcome in the circuit
+     * breaker's permit, if any
+     */
+    private TransportResponse send(NetkiClient client, String uri, String method, byte[] body, Map<String, String> headers, boolean acquired, CircuitBreaker.Permit permit) throws Exception {
+
+        RateLimiter limiter = client.getRateLimiter();
+        if (limiter != null && !acquired) {
+            limiter.acquire(client, uri);
+        }
+
+        SigningStage stage = client.getSigningStage();
+        RequestSigner signer = client.getRequestSigner();
+
+        TransportRequest request;
+        if (stage == null || signer == null) {
+            request = this.buildRequest(client, uri, method, body);
+        } else {
+            request = this.buildUnsignedRequest(client, uri, method, body);
+
+            SignatureCache cache = client.getSignatureCache();
+            String key = cache != null ? cache.key(method, request.getUrl(), body) : null;
+            String cached = key != null ? cache.get(key, signer) : null;
+
+            if (cached != null) {
+                request.setHeader("X-Signature", cached);
             } else {
-                throw new Exception("HTTP Request Failed: " + e.getMessage());
+                Future<byte[]> sig = stage.sign(signer, request.getUrl(), body);
+                try {
+                    client.getTransport().prepare(request.getUrl());
+                } catch(IOException e) {
+                    sig.cancel(false);
+                    throw new Exception("HTTP Request Failed: " + e.getMessage());
+                }
+                String hex = BaseEncoding.base16().encode(SigningStage.await(sig));
+                if (key != null) {
+                    cache.put(key, signer, hex);
+                }
+                request.setHeader("X-Signature", hex);
             }
         }
 
-        int statusCode = errorResponse != null ? errorResponse.getStatusCode() : response.getStatusCode();
-        if (method.equals("DELETE") && statusCode == HttpStatusCodes.STATUS_CODE_NO_CONTENT) {
-            return "";
+        if (headers != null) {
+            request.setHeaders(headers);
+        }
+
+        Transport transport = client.getTransport();
+        ConcurrencyLimiter concurrencyLimiter = client.getConcurrencyLimiter();
+        if (concurrencyLimiter != null) {
+            transport = concurrencyLimiter.wrap(transport);
+        }
+        HedgePolicy hedgePolicy = client.getHedgePolicy();
+        if (hedgePolicy != null && method.equals("GET")) {
+            transport = hedgePolicy.wrap(transport);
+        }
+
+        RetryPolicy retryPolicy = client.getRetryPolicy();
+        long start = System.nanoTime();
+        TransportResponse response;
+        try {
+            if (retryPolicy != null) {
+                response = retryPolicy.execute(transport, request);
+            } else {
+                response = transport.execute(request);
+            }
+        } catch(IOException e) {
+            // A request rejected by the local concurrency limit never reached the API, so says nothing of its health
+            if (permit != null && !(e instanceof ConcurrencyLimiter.LimitExceededException)) {
+                permit.complete(System.nanoTime() - start, true);
+            }
+            throw new Exception("HTTP Request Failed: " + e.getMessage());
         }
 
+        if (permit != null) {
+            permit.complete(System.nanoTime() - start, RetryPolicy.isRetryableStatus(response.getStatusCode()));
+        }
+        return response;
+    }
+
+    /**
+     * Build the HTTP request for a Netki API call, with authentication headers but without the signature
+     */
+    private TransportRequest buildUnsignedRequest(NetkiClient client, String uri, String method, byte[] body) throws Exception {
+
+        List<String> supportedMethods = new ArrayList<String>(Arrays.asList("GET", "POST", "PUT", "DELETE"));
+        if (!supportedMethods.contains(method)) {
+            throw new Exception("Unsupported HTTP Method: " + method);
+        }
+
+        TransportRequest request = new TransportRequest(method.toUpperCase(), new GenericUrl(client.getApiUrl() + uri).build());
+
+        if (body != null) {
+            request.setContent(body);
+        }
+
+        // Authorization, Partner ID, Partner KSK and User Public Key headers, as applicable
+        request.setHeaders(client.getAuthHeaders());
+
+        return request;
+    }
+
+    /**
+     * Encode String request data once
+     */
+    private static byte[] toBytes(String data) {
+        return data == null ? null : data.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read and validate a Netki API response, releasing it in all cases
+     *
+     * @param method HTTP Method of the request
+     * @param response Transport Response
+     * @return API Response Content
+     * @throws Exception Occurs on Bad HTTP Response or API failure
+     */
+    String processResponse(String method, TransportResponse response) throws Exception {
+
+        int statusCode = response.getStatusCode();
         String responseString;
-        if(errorResponse != null) {
-            responseString = errorResponse.getContent();
-        } else {
-            StringWriter writer = new StringWriter();
-            IOUtils.copy(response.getContent(), writer, "utf8");
-            responseString = writer.toString();
+        try {
+            if (method.equals("DELETE") && statusCode == HttpStatusCodes.STATUS_CODE_NO_CONTENT) {
+                return "";
+            }
+            responseString = IOUtils.toString(response.getContent(), "utf8");
+        } finally {
+            response.close();
         }
 
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode retData = mapper.readTree(responseString);
+        JsonNode retData = Codecs.DEFAULT.readTree(responseString);
+
+        this.checkEnvelope(statusCode, retData);
+        return responseString;
+    }
+
+    /**
+     * Check a parsed Netki API response for failure
+     *
+     * @param statusCode HTTP Status Code
+     * @param retData Parsed response body
+     * @throws Exception Occurs on Bad HTTP Response or API failure, with the API's message and failures
+     */
+    private void checkEnvelope(int statusCode, JsonNode retData) throws Exception {
 
         if (statusCode >= HttpStatusCodes.STATUS_CODE_MULTIPLE_CHOICES || !retData.get("success").asBoolean()) {
+            JsonNode message = retData.get("message");
+            throw apiFailure(message == null ? null : message.asText(), retData.get("failures"));
+        }
+    }
 
-            String errorMessage = retData.get("message").asText();
+    /**
+     * Check whether a 2xx response body is a successful Netki API response, which may be cached
+     *
+     * @param content Response body
+     * @return Whether the body parses and its success flag is set
+     */
+    private static boolean isSuccess(byte[] content) {
+        try {
+            JsonNode retData = Codecs.DEFAULT.readTree(new ByteArrayInputStream(content));
+            return retData != null && retData.path("success").asBoolean();
+        } catch (IOException e) {
+            return false;
+        }
+    }
 
-            if (retData.get("failures") != null && retData.get("failures").isArray()) {
-                List<String> failures = new ArrayList<String>();
+    /**
+     * Build the exception reporting a failed Netki API response
+     *
+     * @param message API message, or null if the response had none
+     * @param failures API failures array, or null if the response had none
+     * @return Exception with the API's message and failures
+     */
+    static Exception apiFailure(String message, JsonNode failures) {
 
-                for(JsonNode node : retData.get("failures")) {
-                    failures.add(node.get("message").asText());
-                }
+        String errorMessage = message == null ? "API Request Failed" : message;
+
+        if (failures != null && failures.isArray()) {
+            List<String> messages = new ArrayList<String>();
 
-                errorMessage = errorMessage + " [FAILURES: " + Joiner.on(',').join(failures) + "]";
+            for(JsonNode node : failures) {
+                messages.add(node.path("message").asText());
             }
 
-            throw new Exception(errorMessage);
+            errorMessage = errorMessage + " [FAILURES: " + Joiner.on(',').join(messages) + "]";
         }
 
-        return responseString;
+        return new Exception(errorMessage);
     }
 
 }
@@ -0,0 +1,145 @@
+package com.netki;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * Decode the items of one top-level array field of a Netki API response (i.e., wallet_names) straight from a
+ * Jackson streaming {@link JsonParser}, checking the success / message envelope in the same pass
+ *
+ * Only one item's subtree is held in memory at a time; the rest of the response is skipped token by token.
+ */
+final class ResponseArrayReader<T> implements Closeable {
+
+    private final Codecs codecs;
+    private final JsonParser parser;
+    private final String field;
+    private final Futures.CheckedFunction<JsonNode, T> decoder;
+
+    private boolean success = true;
+    private String message;
+    private JsonNode failures;
+    private boolean inArray;
+    private boolean done;
+
+    /**
+     * @param codecs Codecs used to read each item
+     * @param parser Parser positioned before the response's root object
+     * @param field Name of the top-level array field to decode
+     * @param decoder Converts a single item into a model object
+     */
+    ResponseArrayReader(Codecs codecs, JsonParser parser, String field, Futures.CheckedFunction<JsonNode, T> decoder) {
+        this.codecs = codecs;
+        this.parser = parser;
+        this.field = field;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Read the next item
+     *
+     * @return Next decoded item, or null once the array (and the rest of the envelope) has been read
+     * @throws Exception Occurs on an unreadable response, a failed envelope or an item the decoder rejects
+     */
+    T next() throws Exception {
+
+        if (this.done) {
+            return null;
+        }
+
+        if (!this.inArray) {
+            if (this.parser.getCurrentToken() == null && this.parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new Exception("Invalid API Response");
+            }
+            this.inArray = this.seekField();
+            if (!this.inArray) {
+                this.finish();
+                return null;
+            }
+        }
+
+        if (this.parser.nextToken() == JsonToken.START_OBJECT) {
+            return this.decoder.apply(this.codecs.getMapper().readTree(this.parser));
+        }
+
+        this.seekField();
+        this.finish();
+        return null;
+    }
+
+    /**
+     * Read all remaining items
+     *
+     * @return Decoded items
+     * @throws Exception Occurs on an unreadable response, a failed envelope or an item the decoder rejects
+     */
+    List<T> readAll() throws Exception {
+        List<T> results = new ArrayList<T>();
+        try {
+            T item;
+            while ((item = this.next()) != null) {
+                results.add(item);
+            }
+        } finally {
+            this.close();
+        }
+        return results;
+    }
+
+    /**
+     * Advance through envelope fields until the array field starts or the root object ends. Once the response is
+     * known to have failed, the array is skipped so the message and failures after it are still read.
+     *
+     * @return true if positioned at the start of the array field
+     */
+    private boolean seekField() throws Exception {
+
+        while (this.parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = this.parser.getCurrentName();
+            JsonToken value = this.parser.nextToken();
+
+            if (name.equals("success")) {
+                this.success = value == JsonToken.VALUE_TRUE;
+            } else if (name.equals("message")) {
+                this.message = this.parser.getText();
+            } else if (name.equals("failures") && value == JsonToken.START_ARRAY) {
+                this.failures = this.codecs.getMapper().readTree(this.parser);
+            } else if (name.equals(this.field) && value == JsonToken.START_ARRAY && !this.inArray && this.success) {
+                return true;
+            } else {
+                this.parser.skipChildren();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check the envelope once the whole response has been read
+     */
+    private void finish() throws Exception {
+        this.done = true;
+        this.close();
+        if (!this.success) {
+            throw Requestor.apiFailure(this.message, this.failures);
+        }
+    }
+
+    /**
+     * Release the parser and its underlying response
+     */
+    @Override
+    public void close() {
+        this.done = true;
+        try {
+            this.parser.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
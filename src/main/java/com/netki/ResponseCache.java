@@ -0,0 +1,389 @@
+package com.netki;
+
+import java.io.ByteArrayInputStream;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Client-side cache of successful Netki API GET responses, set with {@link NetkiClient#setResponseCache}
+ *
+ * Each {@link CachedEndpoint} is cached only once given a TTL with {@link #setPolicy}. A response is served from
+ * the cache for ttlMillis. For a further staleMillis it is still served, while a single background request
+ * refreshes it. Once maxEntries responses are cached, the least recently used is evicted. Responses are cached per
+ * API URL and credentials, so clients sharing a ResponseCache never see each other's responses.
+ *
+ * Responses with an ETag or Last-Modified header are refreshed with conditional requests, which the API answers
+ * with an empty 304 Not Modified if they have not changed (see {@link #setRevalidatePolicy}).
+ *
+ * Writes made through the owning client invalidate the entries they affect: saving or deleting WalletNames (including
+ * {@link WalletNameBatch}) and creating or deleting Domains.
+ *
+ * <pre>
+ * ResponseCache cache = new ResponseCache(1000);
+ * cache.setPolicy(CachedEndpoint.AVAILABLE_PRODUCTS, 300000, 60000);
+ * cache.setPolicy(CachedEndpoint.DOMAIN_STATUS, 30000, 30000);
+ * client.setResponseCache(cache);
+ * </pre>
+ */
+public final class ResponseCache {
+
+    private static final int NOT_MODIFIED = 304;
+
+    private final int maxEntries;
+    private final Executor refreshExecutor;
+    private final LongSupplier clock;
+    private final Map<CachedEndpoint, long[]> policies = new EnumMap<CachedEndpoint, long[]>(CachedEndpoint.class);
+    private final Map<String, Cached> entries;
+    private long epoch;
+
+    /**
+     * Executes the GET request for a cached URI
+     */
+    interface Loader {
+
+        /**
+         * @param headers Conditional request headers (If-None-Match, If-Modified-Since) to send, possibly empty
+         * @return Response
+         * @throws Exception Occurs on Bad HTTP Request
+         */
+        TransportResponse load(Map<String, String> headers) throws Exception;
+    }
+
+    private static class Cached {
+        final String uri;
+        final CachedEndpoint endpoint;
+        final int statusCode;
+        final Map<String, String> headers;
+        final byte[] content;
+        final long freshUntil;
+        final long staleUntil;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Cached(String uri, CachedEndpoint endpoint, int statusCode, Map<String, String> headers, byte[] content, long freshUntil, long staleUntil) {
+            this.uri = uri;
+            this.endpoint = endpoint;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.content = content;
+            this.freshUntil = freshUntil;
+            this.staleUntil = staleUntil;
+        }
+
+        /**
+         * Headers that let the server answer 304 Not Modified if this response is still current
+         */
+        Map<String, String> validators() {
+            Map<String, String> validators = new LinkedHashMap<String, String>();
+            if (this.headers.get("ETag") != null) {
+                validators.put("If-None-Match", this.headers.get("ETag"));
+            }
+            if (this.headers.get("Last-Modified") != null) {
+                validators.put("If-Modified-Since", this.headers.get("Last-Modified"));
+            }
+            return validators;
+        }
+
+        TransportResponse toResponse() {
+            TransportResponse response = new TransportResponse(this.statusCode, new ByteArrayInputStream(this.content));
+            for (Map.Entry<String, String> header : this.headers.entrySet()) {
+                response.setHeader(header.getKey(), header.getValue());
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Instantiate a ResponseCache. Background refreshes run on a shared pool of platform threads.
+     *
+     * @param maxEntries Maximum number of cached responses
+     */
+    public ResponseCache(int maxEntries) {
+        this(maxEntries, FanOut.sharedPlatformPool());
+    }
+
+    /**
+     * Instantiate a ResponseCache
+     *
+     * @param maxEntries Maximum number of cached responses
+     * @param refreshExecutor Executor that stale responses are refreshed on
+     */
+    public ResponseCache(int maxEntries, Executor refreshExecutor) {
+        this(maxEntries, refreshExecutor, System::nanoTime);
+    }
+
+    ResponseCache(int maxEntries, Executor refreshExecutor, LongSupplier clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries MUST be at least 1");
+        }
+        if (refreshExecutor == null) {
+            throw new IllegalArgumentException("refreshExecutor MUST NOT be null");
+        }
+
+        this.maxEntries = maxEntries;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Set how long responses from an endpoint are cached
+     *
+     * @param endpoint CachedEndpoint
+     * @param ttlMillis Time a response is served from the cache without a request. 0 stops caching the endpoint.
+     * @param staleMillis Additional time an expired response is still served while it is refreshed in the background
+     */
+    public synchronized void setPolicy(CachedEndpoint endpoint, long ttlMillis, long staleMillis) {
+        if (ttlMillis <= 0) {
+            this.policies.remove(endpoint);
+            this.invalidate(endpoint);
+            return;
+        }
+        this.policies.put(endpoint, new long[] {
+                TimeUnit.MILLISECONDS.toNanos(ttlMillis),
+                TimeUnit.MILLISECONDS.toNanos(Math.max(0, staleMillis))
+        });
+    }
+
+    /**
+     * Keep responses from an endpoint only to revalidate them: every read sends a request, but with If-None-Match /
+     * If-Modified-Since, so an unchanged response is answered with 304 Not Modified instead of being transferred
+     * again. Useful for large responses that must always be current, such as Wallet Name lists.
+     *
+     * @param endpoint CachedEndpoint
+     */
+    public synchronized void setRevalidatePolicy(CachedEndpoint endpoint) {
+        this.policies.put(endpoint, new long[] {0, 0});
+    }
+
+    /**
+     * Get the TTL of an endpoint
+     *
+     * @param endpoint CachedEndpoint
+     * @return TTL in milliseconds, or 0 if the endpoint is not cached or only revalidated
+     */
+    public synchronized long getTtlMillis(CachedEndpoint endpoint) {
+        long[] policy = this.policies.get(endpoint);
+        return policy == null ? 0 : TimeUnit.NANOSECONDS.toMillis(policy[0]);
+    }
+
+    /**
+     * Remove all cached responses
+     */
+    public synchronized void invalidateAll() {
+        this.epoch++;
+        this.entries.clear();
+    }
+
+    /**
+     * Get number of cached responses
+     *
+     * @return Number of cached responses, including stale ones
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Check whether responses for a request URI are cached
+     *
+     * @param uri Netki Partner URI
+     * @return Whether the URI belongs to an endpoint with a policy
+     */
+    synchronized boolean isCached(String uri) {
+        CachedEndpoint endpoint = CachedEndpoint.match(uri);
+        return endpoint != null && this.policies.containsKey(endpoint);
+    }
+
+    /**
+     * Get a response from the cache, or from loader if it has none or it has gone past its stale period. A 2xx
+     * response from loader is read fully and cached if cacheable accepts its content; any other response is
+     * returned as-is.
+     *
+     * An expired response that carried an ETag or Last-Modified header is revalidated with a conditional request.
+     * A 304 Not Modified answer renews it, and its content is served again without being transferred.
+     *
+     * @param key Identity of the request, including the API URL and credentials it is made with
+     * @param uri Netki Partner URI
+     * @param loader Executes the GET request for uri
+     * @param cacheable Whether the content of a 2xx response is a successful API response
+     * @return Response
+     * @throws Exception Thrown by loader
+     */
+    TransportResponse get(final String key, final String uri, final Loader loader, final Predicate<byte[]> cacheable) throws Exception {
+
+        final Cached entry;
+        synchronized (this) {
+            entry = this.entries.get(key);
+        }
+
+        if (entry != null) {
+            long now = this.clock.getAsLong();
+            if (now - entry.freshUntil < 0) {
+                return entry.toResponse();
+            }
+            if (now - entry.staleUntil < 0) {
+                if (entry.refreshing.compareAndSet(false, true)) {
+                    this.refresh(key, entry, loader, cacheable);
+                }
+                return entry.toResponse();
+            }
+        }
+
+        return this.load(key, uri, entry, loader, cacheable);
+    }
+
+    private void refresh(final String key, final Cached entry, final Loader loader, final Predicate<byte[]> cacheable) {
+        try {
+            this.refreshExecutor.execute(() -> {
+                try {
+                    load(key, entry.uri, entry, loader, cacheable).close();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    // Let a later read retry if this refresh failed
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            entry.refreshing.set(false);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Load a response, conditionally if a previous one with validators is cached
+     */
+    private TransportResponse load(String key, String uri, Cached previous, Loader loader, Predicate<byte[]> cacheable) throws Exception {
+
+        long startEpoch;
+        synchronized (this) {
+            startEpoch = this.epoch;
+        }
+
+        Map<String, String> validators = previous != null ? previous.validators() : new LinkedHashMap<String, String>();
+        TransportResponse response = loader.load(validators);
+        int statusCode = response.getStatusCode();
+
+        Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        byte[] content;
+        boolean accepted;
+
+        if (statusCode == NOT_MODIFIED && previous != null && !validators.isEmpty()) {
+            response.close();
+            // A 304 may carry updated validators
+            headers.putAll(previous.headers);
+            headers.putAll(response.getHeaders());
+            statusCode = previous.statusCode;
+            content = previous.content;
+            accepted = true;
+        } else if (statusCode < 200 || statusCode >= 300) {
+            return response;
+        } else {
+            try {
+                content = IOUtils.toByteArray(response.getContent());
+            } finally {
+                response.close();
+            }
+            headers.putAll(response.getHeaders());
+            // A 2xx can still be an API failure, which must not be served for the whole TTL
+            accepted = cacheable.test(content);
+        }
+
+        Cached entry;
+        synchronized (this) {
+            CachedEndpoint endpoint = CachedEndpoint.match(uri);
+            long[] policy = this.policies.get(endpoint);
+            long now = this.clock.getAsLong();
+            entry = new Cached(uri, endpoint, statusCode, headers, content,
+                    now + (policy != null ? policy[0] : 0), now + (policy != null ? policy[0] + policy[1] : 0));
+
+            // Responses fetched before an invalidation may predate the write that caused it
+            if (policy != null && accepted && this.epoch == startEpoch) {
+                this.entries.put(key, entry);
+            }
+        }
+        return entry.toResponse();
+    }
+
+    /**
+     * Remove all cached responses of an endpoint
+     *
+     * @param endpoint CachedEndpoint
+     */
+    synchronized void invalidate(CachedEndpoint endpoint) {
+        this.epoch++;
+        Iterator<Cached> it = this.entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().endpoint == endpoint) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove the cached responses for a request URI, whichever credentials they were loaded with
+     *
+     * @param uri Netki Partner URI
+     */
+    synchronized void invalidate(String uri) {
+        this.epoch++;
+        Iterator<Cached> it = this.entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().uri.equals(uri)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Invalidate the entries a completed (or failed) write may have changed:
+     * <ul>
+     *     <li>Wallet Name create / update / delete: all Wallet Name lookups and the status (which includes the
+     *     Wallet Name count) of the domain, or of all domains if the request does not name it</li>
+     *     <li>Domain create / delete: the domain's status and DNSSEC details, and all Wallet Name lookups</li>
+     * </ul>
+     *
+     * @param method HTTP Method
+     * @param uri Netki Partner URI
+     */
+    void invalidateAfterWrite(String method, String uri) {
+
+        if (method.equals("GET")) {
+            return;
+        }
+
+        int query = uri.indexOf('?');
+        String path = query >= 0 ? uri.substring(0, query) : uri;
+
+        if (path.equals(CachedEndpoint.WALLET_NAMES_PATH)) {
+            this.invalidate(CachedEndpoint.WALLET_NAMES);
+            this.invalidate(CachedEndpoint.DOMAIN_STATUS);
+        } else if (path.startsWith(CachedEndpoint.WALLET_NAMES_PATH + "/")) {
+            // /v1/partner/walletname/{domain}/{id}
+            String rest = path.substring(CachedEndpoint.WALLET_NAMES_PATH.length() + 1);
+            int slash = rest.indexOf('/');
+            this.invalidate(CachedEndpoint.WALLET_NAMES);
+            this.invalidate(CachedEndpoint.DOMAIN_PREFIX + (slash >= 0 ? rest.substring(0, slash) : rest));
+        } else if (CachedEndpoint.match(path) == CachedEndpoint.DOMAIN_STATUS) {
+            String domainName = path.substring(CachedEndpoint.DOMAIN_PREFIX.length());
+            this.invalidate(CachedEndpoint.DOMAIN_PREFIX + domainName);
+            this.invalidate(CachedEndpoint.DNSSEC_PREFIX + domainName);
+            this.invalidate(CachedEndpoint.WALLET_NAMES);
+        }
+    }
+}
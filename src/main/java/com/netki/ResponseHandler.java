@@ -0,0 +1,24 @@
+package com.netki;
+
+import org.codehaus.jackson.JsonNode;
+
+/**
+ * Decode a validated Netki API response into a result
+ *
+ * Used with {@link Requestor#processRequest(NetkiClient, String, String, String, ResponseHandler)} so a response is
+ * parsed once, both to check its success / message envelope and to build the result.
+ *
+ * @param <T> Result Type
+ */
+public interface ResponseHandler<T> {
+
+    /**
+     * Decode a response
+     *
+     * @param data Parsed response body, already checked for API failure (null if the response has no body)
+     * @return Decoded result
+     * @throws Exception Occurs on missing or invalid response data
+     */
+    T handle(JsonNode data) throws Exception;
+
+}
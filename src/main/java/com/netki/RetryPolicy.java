@@ -0,0 +1,280 @@
+package com.netki;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retries Netki API requests that fail transiently, set with {@link NetkiClient#setRetryPolicy}
+ *
+ * A request is retried when the {@link Transport} fails with an IOException (i.e., connection refused or reset, read
+ * timeout) or the API answers 429 Too Many Requests or a 5xx other than 501 Not Implemented. Retries wait a random
+ * delay of up to baseDelayMillis * 2^(retry - 1), capped at maxDelayMillis ("full jitter"), or longer if the response
+ * has a Retry-After header. No retry is made once maxAttempts attempts have been made or its delay would end after
+ * budgetMillis from the first attempt; the last response or failure is then reported as usual.
+ *
+ * GET, PUT and DELETE requests are retried. POST requests are retried only with an Idempotency-Key header, which is
+ * attached to each POST when enabled with {@link #setIdempotencyKeys}.
+ *
+ * <pre>
+ * RetryPolicy retries = new RetryPolicy(5, 200, 5000, 30000);
+ * client.setRetryPolicy(retries);
+ * </pre>
+ */
+public final class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 100;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 2000;
+    public static final long DEFAULT_BUDGET_MILLIS = 10000;
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int NOT_IMPLEMENTED = 501;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long budgetMillis;
+    private volatile boolean idempotencyKeys;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    /**
+     * Instantiate a RetryPolicy with default attempts, delays and budget
+     */
+    public RetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * Instantiate a RetryPolicy
+     *
+     * @param maxAttempts Maximum number of attempts per request, including the first
+     * @param baseDelayMillis Upper bound of the delay before the first retry, doubled for each further retry
+     * @param maxDelayMillis Upper bound of any computed delay
+     * @param budgetMillis Time from the first attempt after which no further retry is started
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, long budgetMillis) {
+
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts MUST be at least 1");
+        }
+        if (baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("delays MUST satisfy 0 <= baseDelayMillis <= maxDelayMillis");
+        }
+        if (budgetMillis < 0) {
+            throw new IllegalArgumentException("budgetMillis MUST NOT be negative");
+        }
+
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * Execute a request, retrying transient failures
+     *
+     * @param transport Transport
+     * @param request Signed request, sent unchanged on every attempt except for any Idempotency-Key header added
+     * @return Response, possibly an error response left after the last attempt
+     * @throws IOException Failure of the last attempt, or InterruptedIOException if interrupted while waiting
+     */
+    TransportResponse execute(Transport transport, TransportRequest request) throws IOException {
+
+        if (this.idempotencyKeys && request.getMethod().equals("POST") && !hasIdempotencyKey(request)) {
+            request.setHeader(IDEMPOTENCY_KEY, UUID.randomUUID().toString());
+        }
+
+        if (!this.isRetryable(request)) {
+            return transport.execute(request);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.budgetMillis);
+
+        for (int attempt = 1; ; attempt++) {
+
+            TransportResponse response = null;
+            IOException failure = null;
+            try {
+                response = transport.execute(request);
+            } catch (IOException e) {
+                failure = e;
+            }
+
+            if (response != null && !isRetryableStatus(response.getStatusCode())) {
+                if (attempt > 1) {
+                    this.recovered.increment();
+                }
+                return response;
+            }
+
+            long delay = attempt < this.maxAttempts ? this.delay(attempt, response) : -1;
+            if (delay < 0 || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) - deadline > 0) {
+                if (attempt > 1) {
+                    this.exhausted.increment();
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return response;
+            }
+
+            if (response != null) {
+                response.close();
+            }
+            this.retries.increment();
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted before retry");
+            }
+        }
+    }
+
+    /**
+     * Whether a request may be sent again without risk of applying it twice
+     */
+    boolean isRetryable(TransportRequest request) {
+        String method = request.getMethod();
+        if (method.equals("GET") || method.equals("PUT") || method.equals("DELETE")) {
+            return true;
+        }
+        return method.equals("POST") && hasIdempotencyKey(request);
+    }
+
+    /**
+     * Whether a response status indicates a failure that may not recur
+     */
+    static boolean isRetryableStatus(int statusCode) {
+        return statusCode == TOO_MANY_REQUESTS || (statusCode >= 500 && statusCode <= 599 && statusCode != NOT_IMPLEMENTED);
+    }
+
+    /**
+     * Delay before a retry
+     *
+     * @param retry 1 for the first retry
+     * @param response Response of the failed attempt, or null if it failed with an IOException
+     * @return Delay in milliseconds
+     */
+    long delay(int retry, TransportResponse response) {
+
+        long cap = this.baseDelayMillis << Math.min(retry - 1, 30);
+        if (cap < 0 || cap > this.maxDelayMillis) {
+            cap = this.maxDelayMillis;
+        }
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+
+        String retryAfter = response != null ? response.getHeader("Retry-After") : null;
+        if (retryAfter != null) {
+            // Only the delta-seconds form; an HTTP-date falls back to the computed delay
+            try {
+                delay = Math.max(delay, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException e) {
+                // Use computed delay
+            }
+        }
+        return delay;
+    }
+
+    private static boolean hasIdempotencyKey(TransportRequest request) {
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            if (header.getKey().equalsIgnoreCase(IDEMPOTENCY_KEY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get maximum number of attempts per request, including the first
+     *
+     * @return Maximum attempts
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Get upper bound of the delay before the first retry
+     *
+     * @return Base delay in milliseconds
+     */
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    /**
+     * Get upper bound of any computed retry delay
+     *
+     * @return Maximum delay in milliseconds
+     */
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * Get time from the first attempt after which no further retry is started
+     *
+     * @return Budget in milliseconds
+     */
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /**
+     * Get whether each POST request is given a random Idempotency-Key header, making it retryable
+     *
+     * @return Whether idempotency keys are attached
+     */
+    public boolean getIdempotencyKeys() {
+        return idempotencyKeys;
+    }
+
+    /**
+     * Set whether each POST request (i.e., creating WalletNames, Domains or Certificate orders) is given a random
+     * Idempotency-Key header, sent unchanged on each of its attempts, making it retryable. Only enable this if the
+     * API deduplicates requests by that header.
+     *
+     * @param idempotencyKeys Whether to attach idempotency keys (default false)
+     */
+    public void setIdempotencyKeys(boolean idempotencyKeys) {
+        this.idempotencyKeys = idempotencyKeys;
+    }
+
+    /**
+     * Get number of retries made
+     *
+     * @return Retries, not counting first attempts
+     */
+    public long getRetries() {
+        return this.retries.sum();
+    }
+
+    /**
+     * Get number of requests that succeeded after at least one retry
+     *
+     * @return Recovered requests
+     */
+    public long getRecoveredRequests() {
+        return this.recovered.sum();
+    }
+
+    /**
+     * Get number of requests that were retried and still failed once attempts or budget ran out
+     *
+     * @return Exhausted requests
+     */
+    public long getExhaustedRequests() {
+        return this.exhausted.sum();
+    }
+}
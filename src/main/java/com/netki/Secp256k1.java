@@ -0,0 +1,329 @@
+package com.netki;
+
+import java.math.BigInteger;
+
+/**
+ * secp256k1 curve arithmetic for signing: generator multiplication using precomputed fixed-base tables
+ *
+ * kG is computed as the sum of one table entry per 8-bit window of k (at most 32 mixed Jacobian-affine additions
+ * and no doublings), instead of the ~256 doublings and additions of a generic scalar multiplication. Field elements
+ * are eight little-endian 32-bit limbs, reduced using p = 2^256 - 0x1000003D1. The tables (8160 affine points,
+ * under 1MB) are built the first time a signer needs them.
+ *
+ * The arithmetic is not constant-time.
+ */
+final class Secp256k1 {
+
+    static final BigInteger P = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16);
+    static final BigInteger N = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+    static final BigInteger GX = new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16);
+    static final BigInteger GY = new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16);
+
+    private static final int WINDOW_BITS = 8;
+    private static final int WINDOW_MASK = (1 << WINDOW_BITS) - 1;
+    private static final int WINDOWS = 256 / WINDOW_BITS;
+
+    private static final int LIMBS = 8;
+    private static final long M = 0xFFFFFFFFL;
+    // 2^256 mod p
+    private static final long C_LOW = 977;
+    private static final int[] P_LIMBS = toLimbs(P);
+
+    private static final BigInteger TWO = BigInteger.valueOf(2);
+    private static final BigInteger THREE = BigInteger.valueOf(3);
+
+    private Secp256k1() {}
+
+    /**
+     * Fixed-base tables: X[i][d - 1], Y[i][d - 1] hold affine d * 256^i * G
+     */
+    private static class Tables {
+        static final int[][][] X = new int[WINDOWS][WINDOW_MASK][];
+        static final int[][][] Y = new int[WINDOWS][WINDOW_MASK][];
+
+        static {
+            BigInteger[] base = {GX, GY};
+            for (int i = 0; i < WINDOWS; i++) {
+                BigInteger[] point = base;
+                for (int d = 1; d <= WINDOW_MASK; d++) {
+                    X[i][d - 1] = toLimbs(point[0]);
+                    Y[i][d - 1] = toLimbs(point[1]);
+                    point = d == 1 ? affineDouble(base) : affineAdd(point, base);
+                }
+                // point is now 256 * base
+                base = point;
+            }
+        }
+    }
+
+    /**
+     * Compute the affine x coordinate of kG
+     *
+     * @param k Scalar in [1, N - 1]
+     * @return x(kG)
+     */
+    static BigInteger multiplyGeneratorX(BigInteger k) {
+
+        if (k.signum() <= 0 || k.compareTo(N) >= 0) {
+            throw new IllegalArgumentException("Scalar out of range");
+        }
+
+        byte[] scalar = k.toByteArray();
+
+        // Jacobian accumulator (X, Y, Z); null X is the point at infinity
+        int[] x = null, y = null, z = null;
+
+        for (int i = 0; i < WINDOWS; i++) {
+            int index = scalar.length - 1 - i;
+            int digit = index >= 0 ? scalar[index] & WINDOW_MASK : 0;
+            if (digit == 0) {
+                continue;
+            }
+
+            int[] x2 = Tables.X[i][digit - 1];
+            int[] y2 = Tables.Y[i][digit - 1];
+
+            if (x == null) {
+                x = x2;
+                y = y2;
+                z = toLimbs(BigInteger.ONE);
+                continue;
+            }
+
+            // Mixed addition (madd-2007-bl)
+            int[] z1z1 = mul(z, z);
+            int[] u2 = mul(x2, z1z1);
+            int[] s2 = mul(y2, mul(z, z1z1));
+            int[] h = sub(u2, x);
+            int[] r = sub(s2, y);
+            r = add(r, r);
+
+            if (isZero(h)) {
+                // Partial sums of distinct windows of k < N cannot meet; kept for completeness
+                if (!isZero(r)) {
+                    x = null;
+                    continue;
+                }
+                int[][] doubled = jacobianDouble(x, y, z);
+                x = doubled[0];
+                y = doubled[1];
+                z = doubled[2];
+                continue;
+            }
+
+            int[] hh = mul(h, h);
+            int[] ii = add(hh, hh);
+            ii = add(ii, ii);
+            int[] j = mul(h, ii);
+            int[] v = mul(x, ii);
+
+            int[] x3 = sub(sub(mul(r, r), j), add(v, v));
+            int[] yj = mul(y, j);
+            int[] y3 = sub(mul(r, sub(v, x3)), add(yj, yj));
+            int[] zh = add(z, h);
+            int[] z3 = sub(sub(mul(zh, zh), z1z1), hh);
+
+            x = x3;
+            y = y3;
+            z = z3;
+        }
+
+        if (x == null) {
+            throw new IllegalStateException("Scalar multiple is the point at infinity");
+        }
+
+        BigInteger zInv = toBigInteger(z).modInverse(P);
+        return toBigInteger(x).multiply(zInv.multiply(zInv)).mod(P);
+    }
+
+    /**
+     * Jacobian doubling for a = 0 (dbl-2009-l)
+     */
+    private static int[][] jacobianDouble(int[] x, int[] y, int[] z) {
+        int[] a = mul(x, x);
+        int[] b = mul(y, y);
+        int[] c = mul(b, b);
+        int[] xb = add(x, b);
+        int[] d = sub(sub(mul(xb, xb), a), c);
+        d = add(d, d);
+        int[] e = add(add(a, a), a);
+        int[] f = mul(e, e);
+        int[] x3 = sub(f, add(d, d));
+        int[] c8 = add(c, c);
+        c8 = add(c8, c8);
+        c8 = add(c8, c8);
+        int[] y3 = sub(mul(e, sub(d, x3)), c8);
+        int[] yz = mul(y, z);
+        int[] z3 = add(yz, yz);
+        return new int[][] {x3, y3, z3};
+    }
+
+    /**
+     * a + b mod p, for a, b &lt; p
+     */
+    static int[] add(int[] a, int[] b) {
+        int[] r = new int[LIMBS];
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (a[i] & M) + (b[i] & M);
+            r[i] = (int) c;
+            c >>>= 32;
+        }
+        if (c != 0 || geqP(r)) {
+            // r - p, i.e., r + (2^256 - p) dropping the carry
+            addC(r, 1);
+        }
+        return r;
+    }
+
+    /**
+     * a - b mod p, for a, b &lt; p
+     */
+    static int[] sub(int[] a, int[] b) {
+        int[] r = new int[LIMBS];
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (a[i] & M) - (b[i] & M);
+            r[i] = (int) c;
+            c >>= 32;
+        }
+        if (c != 0) {
+            // Borrowed: add p back
+            c = 0;
+            for (int i = 0; i < LIMBS; i++) {
+                c += (r[i] & M) + (P_LIMBS[i] & M);
+                r[i] = (int) c;
+                c >>>= 32;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * a * b mod p, for a, b &lt; p
+     */
+    static int[] mul(int[] a, int[] b) {
+
+        long[] t = new long[2 * LIMBS];
+        for (int i = 0; i < LIMBS; i++) {
+            long ai = a[i] & M;
+            long carry = 0;
+            for (int j = 0; j < LIMBS; j++) {
+                // Unsigned: (2^32 - 1)^2 + 2 * (2^32 - 1) = 2^64 - 1
+                long product = ai * (b[j] & M) + t[i + j] + carry;
+                t[i + j] = product & M;
+                carry = product >>> 32;
+            }
+            t[i + LIMBS] = carry;
+        }
+
+        // t = H * 2^256 + L = L + H * (2^32 + 977) mod p
+        int[] r = new int[LIMBS];
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += t[i] + t[i + LIMBS] * C_LOW + (i > 0 ? t[i + LIMBS - 1] : 0);
+            r[i] = (int) c;
+            c >>>= 32;
+        }
+        c += t[2 * LIMBS - 1];
+
+        // c * 2^256 folds into c * (2^32 + 977); c < 2^44
+        long low = c * C_LOW;
+        long carry = (r[0] & M) + (low & M);
+        r[0] = (int) carry;
+        carry = (carry >>> 32) + (r[1] & M) + (low >>> 32) + (c & M);
+        r[1] = (int) carry;
+        carry = (carry >>> 32) + (r[2] & M) + (c >>> 32);
+        r[2] = (int) carry;
+        carry >>>= 32;
+        for (int i = 3; i < LIMBS && carry != 0; i++) {
+            carry += r[i] & M;
+            r[i] = (int) carry;
+            carry >>>= 32;
+        }
+
+        if (carry != 0) {
+            addC(r, 1);
+        }
+        if (geqP(r)) {
+            addC(r, 1);
+        }
+        return r;
+    }
+
+    /**
+     * r += times * (2^256 - p), dropping the carry out of 2^256
+     */
+    private static void addC(int[] r, long times) {
+        long c = (r[0] & M) + times * C_LOW;
+        r[0] = (int) c;
+        c = (c >>> 32) + (r[1] & M) + times;
+        r[1] = (int) c;
+        c >>>= 32;
+        for (int i = 2; i < LIMBS && c != 0; i++) {
+            c += r[i] & M;
+            r[i] = (int) c;
+            c >>>= 32;
+        }
+    }
+
+    private static boolean geqP(int[] r) {
+        for (int i = LIMBS - 1; i >= 0; i--) {
+            int cmp = Integer.compareUnsigned(r[i], P_LIMBS[i]);
+            if (cmp != 0) {
+                return cmp > 0;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(int[] r) {
+        for (int limb : r) {
+            if (limb != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int[] toLimbs(BigInteger value) {
+        int[] r = new int[LIMBS];
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = value.shiftRight(32 * i).intValue();
+        }
+        return r;
+    }
+
+    static BigInteger toBigInteger(int[] limbs) {
+        byte[] bytes = new byte[4 * LIMBS + 1];
+        for (int i = 0; i < LIMBS; i++) {
+            int limb = limbs[i];
+            int offset = bytes.length - 4 * (i + 1);
+            bytes[offset] = (byte) (limb >>> 24);
+            bytes[offset + 1] = (byte) (limb >>> 16);
+            bytes[offset + 2] = (byte) (limb >>> 8);
+            bytes[offset + 3] = (byte) limb;
+        }
+        return new BigInteger(bytes);
+    }
+
+    /**
+     * Affine addition of distinct, non-opposite points; only used to build the tables
+     */
+    private static BigInteger[] affineAdd(BigInteger[] p1, BigInteger[] p2) {
+        BigInteger lambda = p2[1].subtract(p1[1]).multiply(p2[0].subtract(p1[0]).modInverse(P)).mod(P);
+        BigInteger x3 = lambda.multiply(lambda).subtract(p1[0]).subtract(p2[0]).mod(P);
+        BigInteger y3 = lambda.multiply(p1[0].subtract(x3)).subtract(p1[1]).mod(P);
+        return new BigInteger[] {x3, y3};
+    }
+
+    /**
+     * Affine doubling; only used to build the tables
+     */
+    private static BigInteger[] affineDouble(BigInteger[] p1) {
+        BigInteger lambda = p1[0].multiply(p1[0]).multiply(THREE).multiply(p1[1].multiply(TWO).modInverse(P)).mod(P);
+        BigInteger x3 = lambda.multiply(lambda).subtract(p1[0].shiftLeft(1)).mod(P);
+        BigInteger y3 = lambda.multiply(p1[0].subtract(x3)).subtract(p1[1]).mod(P);
+        return new BigInteger[] {x3, y3};
+    }
+}
@@ -0,0 +1,161 @@
+package com.netki;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Pure-Java SHA256withECDSA {@link RequestSigner} for secp256k1 user keys
+ *
+ * Generator multiplication uses precomputed fixed-base tables (see {@link Secp256k1}) and nonces are derived
+ * deterministically from the key and message hash as specified in RFC 6979 (HMAC-SHA256), so no SecureRandom is
+ * consulted per request. Signatures verify with any SHA256withECDSA implementation.
+ *
+ * The arithmetic is not constant-time; prefer the default provider-based signer where untrusted code can observe
+ * signing timings on the same host.
+ *
+ * <pre>
+ * client.setRequestSigner(new Secp256k1RequestSigner(userKey));
+ * </pre>
+ */
+public final class Secp256k1RequestSigner implements RequestSigner {
+
+    private static final int LENGTH = 32;
+
+    private final BigInteger privateKey;
+    private final byte[] privateKeyOctets;
+    private final String publicKeyHex;
+
+    /**
+     * Instantiate a Secp256k1RequestSigner
+     *
+     * @param userKey User's secp256k1 KeyPair
+     * @throws InvalidKeyException Occurs if userKey is not an EC key on secp256k1
+     */
+    public Secp256k1RequestSigner(KeyPair userKey) throws InvalidKeyException {
+
+        if (!(userKey.getPrivate() instanceof ECPrivateKey) || !(userKey.getPublic() instanceof ECPublicKey)) {
+            throw new InvalidKeyException("userKey MUST be an ECDSA Key");
+        }
+
+        this.privateKey = ((ECPrivateKey) userKey.getPrivate()).getS();
+        if (this.privateKey.signum() <= 0 || this.privateKey.compareTo(Secp256k1.N) >= 0) {
+            throw new InvalidKeyException("userKey MUST be on the secp256k1 curve");
+        }
+
+        // A key pair from any other curve will not match its secp256k1 public point
+        if (!Secp256k1.multiplyGeneratorX(this.privateKey).equals(((ECPublicKey) userKey.getPublic()).getW().getAffineX())) {
+            throw new InvalidKeyException("userKey MUST be on the secp256k1 curve");
+        }
+
+        this.privateKeyOctets = toOctets(this.privateKey);
+        this.publicKeyHex = BaseEncoding.base16().encode(userKey.getPublic().getEncoded());
+    }
+
+    @Override
+    public String getPublicKeyHex() {
+        return publicKeyHex;
+    }
+
+    @Override
+    public byte[] sign(String url, byte[] body) throws GeneralSecurityException {
+
+        // Both are cheap next to the point multiplication, and per-call instances leave nothing behind on pool threads
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        Mac mac = Mac.getInstance("HmacSHA256");
+
+        digest.update(url.getBytes(StandardCharsets.UTF_8));
+        if (body != null) {
+            digest.update(body);
+        }
+        byte[] hash = digest.digest();
+        BigInteger e = new BigInteger(1, hash);
+
+        // RFC 6979 section 3.2: qlen = hlen = 256, so bits2int is a plain conversion
+        byte[] hashOctets = toOctets(e.compareTo(Secp256k1.N) >= 0 ? e.subtract(Secp256k1.N) : e);
+        byte[] v = new byte[LENGTH];
+        byte[] k = new byte[LENGTH];
+        Arrays.fill(v, (byte) 0x01);
+
+        k = hmac(mac, k, v, new byte[] {0x00}, this.privateKeyOctets, hashOctets);
+        v = hmac(mac, k, v);
+        k = hmac(mac, k, v, new byte[] {0x01}, this.privateKeyOctets, hashOctets);
+        v = hmac(mac, k, v);
+
+        while (true) {
+            v = hmac(mac, k, v);
+            BigInteger nonce = new BigInteger(1, v);
+
+            if (nonce.signum() > 0 && nonce.compareTo(Secp256k1.N) < 0) {
+                BigInteger r = Secp256k1.multiplyGeneratorX(nonce).mod(Secp256k1.N);
+                if (r.signum() != 0) {
+                    BigInteger s = nonce.modInverse(Secp256k1.N).multiply(e.add(r.multiply(this.privateKey))).mod(Secp256k1.N);
+                    if (s.signum() != 0) {
+                        return toDer(r, s);
+                    }
+                }
+            }
+
+            k = hmac(mac, k, v, new byte[] {0x00});
+            v = hmac(mac, k, v);
+        }
+    }
+
+    /**
+     * HMAC-SHA256 keyed with key over the concatenation of parts
+     */
+    private static byte[] hmac(Mac mac, byte[] key, byte[]... parts) throws InvalidKeyException {
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        for (byte[] part : parts) {
+            mac.update(part);
+        }
+        return mac.doFinal();
+    }
+
+    /**
+     * int2octets: 32-byte big-endian unsigned encoding
+     */
+    private static byte[] toOctets(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length == LENGTH) {
+            return bytes;
+        }
+        byte[] octets = new byte[LENGTH];
+        if (bytes.length > LENGTH) {
+            System.arraycopy(bytes, bytes.length - LENGTH, octets, 0, LENGTH);
+        } else {
+            System.arraycopy(bytes, 0, octets, LENGTH - bytes.length, bytes.length);
+        }
+        return octets;
+    }
+
+    /**
+     * DER SEQUENCE { INTEGER r, INTEGER s }, as produced by JCA SHA256withECDSA
+     */
+    private static byte[] toDer(BigInteger r, BigInteger s) {
+        byte[] rBytes = r.toByteArray();
+        byte[] sBytes = s.toByteArray();
+
+        byte[] der = new byte[6 + rBytes.length + sBytes.length];
+        der[0] = 0x30;
+        der[1] = (byte) (4 + rBytes.length + sBytes.length);
+        der[2] = 0x02;
+        der[3] = (byte) rBytes.length;
+        System.arraycopy(rBytes, 0, der, 4, rBytes.length);
+        der[4 + rBytes.length] = 0x02;
+        der[5 + rBytes.length] = (byte) sBytes.length;
+        System.arraycopy(sBytes, 0, der, 6 + rBytes.length, sBytes.length);
+        return der;
+    }
+}
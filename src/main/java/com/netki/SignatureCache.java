@@ -0,0 +1,130 @@
+package com.netki;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Size- and TTL-bounded cache of X-Signature header values, keyed by method, URL and body hash (see
+ * {@link NetkiClient#setSignatureCache(long, int)})
+ *
+ * A signature covers only the URL and body, so an identical request can be sent again with the same signature
+ * instead of paying for a new one. Only GET requests are cached unless mutating methods are explicitly enabled.
+ * Entries are evicted least recently used first once maxEntries is reached.
+ */
+final class SignatureCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final boolean mutatingMethods;
+    private final LongSupplier clock;
+    private final Map<String, Cached> entries;
+
+    private static class Cached {
+        final RequestSigner signer;
+        final String signature;
+        final long expiresAt;
+
+        Cached(RequestSigner signer, String signature, long expiresAt) {
+            this.signer = signer;
+            this.signature = signature;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Instantiate a SignatureCache
+     *
+     * @param ttlMillis Time a signature is reused for
+     * @param maxEntries Maximum number of cached signatures
+     * @param mutatingMethods Whether POST, PUT and DELETE requests are cached too
+     */
+    SignatureCache(long ttlMillis, int maxEntries, boolean mutatingMethods) {
+        this(ttlMillis, maxEntries, mutatingMethods, System::nanoTime);
+    }
+
+    SignatureCache(long ttlMillis, int maxEntries, boolean mutatingMethods, LongSupplier clock) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis MUST be positive");
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries MUST be at least 1");
+        }
+
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+        this.mutatingMethods = mutatingMethods;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > SignatureCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the cache key for a request
+     *
+     * @param method HTTP Method
+     * @param url Fully qualified request URL
+     * @param body Request body, or null
+     * @return Cache key, or null if requests with this method are not cached
+     * @throws NoSuchAlgorithmException Occurs if SHA-256 is not available
+     */
+    String key(String method, String url, byte[] body) throws NoSuchAlgorithmException {
+
+        if (!method.equals("GET") && !this.mutatingMethods) {
+            return null;
+        }
+
+        if (body == null) {
+            return method + " " + url;
+        }
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+        return method + " " + url + " " + BaseEncoding.base16().encode(hash);
+    }
+
+    /**
+     * Get a cached signature
+     *
+     * @param key Cache key
+     * @param signer RequestSigner the signature must have been made with
+     * @return Hex encoded signature, or null if none is cached or it has expired
+     */
+    synchronized String get(String key, RequestSigner signer) {
+        Cached entry = this.entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.signer != signer || this.clock.getAsLong() - entry.expiresAt >= 0) {
+            this.entries.remove(key);
+            return null;
+        }
+        return entry.signature;
+    }
+
+    /**
+     * Cache a signature
+     *
+     * @param key Cache key
+     * @param signer RequestSigner the signature was made with
+     * @param signature Hex encoded signature
+     */
+    synchronized void put(String key, RequestSigner signer, String signature) {
+        this.entries.put(key, new Cached(signer, signature, this.clock.getAsLong() + this.ttlNanos));
+    }
+
+    synchronized int size() {
+        return this.entries.size();
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+}
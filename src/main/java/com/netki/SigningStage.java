@@ -0,0 +1,112 @@
+package com.netki;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small pool that signs requests while the calling thread acquires a connection for them (see
+ * {@link NetkiClient#setPipelinedSigning(int, int)})
+ *
+ * Signing jobs wait in a bounded queue. When it is full (or the stage has been shut down) the calling thread signs
+ * its own request, so callers are slowed to the rate the signing threads can sustain instead of queueing without
+ * limit.
+ */
+final class SigningStage {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final int queueCapacity;
+
+    /**
+     * Instantiate a SigningStage
+     *
+     * @param threads Number of signing threads
+     * @param queueCapacity Maximum number of requests waiting to be signed
+     */
+    SigningStage(int threads, int queueCapacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads MUST be at least 1");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity MUST be at least 1");
+        }
+
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new SignerThreadFactory(),
+                (task, pool) -> task.run());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Start signing a request
+     *
+     * @param signer RequestSigner
+     * @param url Fully qualified request URL
+     * @param body Request body, or null
+     * @return Future signature. Already complete if the request was signed on the calling thread.
+     */
+    Future<byte[]> sign(final RequestSigner signer, final String url, final byte[] body) {
+        FutureTask<byte[]> task = new FutureTask<byte[]>(() -> signer.sign(url, body));
+        this.executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Wait for a signature started with {@link #sign}
+     *
+     * @param signature Future signature
+     * @return DER encoded signature
+     * @throws Exception Signing failure, as thrown by the RequestSigner
+     */
+    static byte[] await(Future<byte[]> signature) throws Exception {
+        try {
+            return signature.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            signature.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Release the signing threads. Requests already queued are still signed.
+     */
+    void shutdown() {
+        this.executor.shutdown();
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    private static class SignerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "netki-signer-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
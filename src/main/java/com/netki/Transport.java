@@ -0,0 +1,38 @@
+package com.netki;
+
+import java.io.IOException;
+
+/**
+ * HTTP transport used by {@link Requestor} to reach the Netki API.
+ *
+ * A single Transport is meant to be shared by every {@link Requestor} belonging to a {@link NetkiClient}, so
+ * implementations <b>MUST</b> be thread-safe. The default implementation is {@link PooledTransport}.
+ */
+public interface Transport {
+
+    /**
+     * Execute an HTTP request. Non-2xx responses are returned, not thrown.
+     *
+     * @param request Request to execute
+     * @return Response, which <b>MUST</b> be closed by the caller to release the underlying connection
+     * @throws IOException Occurs on connection or I/O failure
+     */
+    TransportResponse execute(TransportRequest request) throws IOException;
+
+    /**
+     * Get ready to execute a request to the given URL, i.e., by opening a pooled connection to its host. Called by
+     * {@link Requestor} while the request is being signed on another thread (see
+     * {@link NetkiClient#setPipelinedSigning(int, int)}). The default implementation does nothing.
+     *
+     * @param url Fully qualified request URL
+     * @throws IOException Occurs on connection failure
+     */
+    default void prepare(String url) throws IOException {
+    }
+
+    /**
+     * Release all resources (connections, background threads) held by this Transport
+     */
+    void shutdown();
+
+}
@@ -0,0 +1,109 @@
+package com.netki;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP request handed to a {@link Transport}
+ */
+public class TransportRequest {
+
+    private String method;
+    private String url;
+    private Map<String, String> headers = new LinkedHashMap<String, String>();
+    private byte[] content;
+    private String contentType = "application/json";
+
+    /**
+     * Instantiate a TransportRequest
+     *
+     * @param method HTTP Method
+     * @param url Fully qualified request URL
+     */
+    public TransportRequest(String method, String url) {
+        this.method = method;
+        this.url = url;
+    }
+
+    /**
+     * Get HTTP Method
+     *
+     * @return HTTP Method
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Get Request URL
+     *
+     * @return Fully qualified request URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Get Request Headers
+     *
+     * @return Header name to value map
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Set Request Header
+     *
+     * @param name Header Name
+     * @param value Header Value
+     */
+    public void setHeader(String name, String value) {
+        this.headers.put(name, value);
+    }
+
+    /**
+     * Set Request Headers, adding to or replacing those already set
+     *
+     * @param headers Header name to value map
+     */
+    public void setHeaders(Map<String, String> headers) {
+        this.headers.putAll(headers);
+    }
+
+    /**
+     * Get Request Body
+     *
+     * @return Request body bytes or null if there is no body
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * Set Request Body
+     *
+     * @param content Request body bytes
+     */
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * Get Request Body Content-Type
+     *
+     * @return Content-Type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Set Request Body Content-Type
+     *
+     * @param contentType Content-Type
+     */
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+}
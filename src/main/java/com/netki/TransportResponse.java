@@ -0,0 +1,89 @@
+package com.netki;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * HTTP response returned by a {@link Transport}
+ */
+public class TransportResponse {
+
+    private int statusCode;
+    private Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+    private InputStream content;
+
+    /**
+     * Instantiate a TransportResponse
+     *
+     * @param statusCode HTTP Status Code
+     * @param content Response body stream (can be null if the response has no body)
+     */
+    public TransportResponse(int statusCode, InputStream content) {
+        this.statusCode = statusCode;
+        this.content = content;
+    }
+
+    /**
+     * Get HTTP Status Code
+     *
+     * @return HTTP Status Code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Get Response Header (case-insensitive)
+     *
+     * @param name Header Name
+     * @return Header value or null if not present
+     */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * Get Response Headers
+     *
+     * @return Case-insensitive header name to value map
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Set Response Header
+     *
+     * @param name Header Name
+     * @param value Header Value
+     */
+    public void setHeader(String name, String value) {
+        this.headers.put(name, value);
+    }
+
+    /**
+     * Get Response Body
+     *
+     * @return Response body stream (never null)
+     */
+    public InputStream getContent() {
+        if (content == null) {
+            content = new ByteArrayInputStream(new byte[0]);
+        }
+        return content;
+    }
+
+    /**
+     * Release the response, returning its connection to the {@link Transport} for reuse
+     *
+     * @throws IOException Occurs if the connection cannot be released
+     */
+    public void close() throws IOException {
+        if (content != null) {
+            content.close();
+        }
+    }
+}
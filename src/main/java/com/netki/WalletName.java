@@ -1,20 +1,21 @@
 package com.netki;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
 
 /**
  * Wallet Name data container
  */
+@JsonCodec
 public class WalletName extends BaseObject {
 
     private String id;
     private String domainName;
     private String name;
     private String externalId;
-    private Requestor requestor = new Requestor();
 
     private Map<String, String> wallets = new HashMap<String, String>();
 
@@ -30,10 +31,7 @@ public class WalletName extends BaseObject {
      */
     public WalletName(Requestor requestor)
     {
-        if(requestor != null)
-        {
-            this.requestor = requestor;
-        }
+        this.useRequestor(requestor);
     }
 
     /**
@@ -87,7 +85,32 @@ public class WalletName extends BaseObject {
      */
     public void save() throws Exception {
 
-        Map<String, Object> fullRequest = new HashMap<String, Object> ();
+        String requestJson = this.buildSaveRequest();
+
+        if (this.id != null) {
+            this.activeRequestor().processRequest(
+                    this.getClient(),
+                    "/v1/partner/walletname",
+                    "PUT",
+                    requestJson
+            );
+        } else {
+            String respJsonString = this.activeRequestor().processRequest(
+                    this.getClient(),
+                    "/v1/partner/walletname",
+                    "POST",
+                    requestJson
+            );
+
+            this.applySaveResponse(respJsonString);
+        }
+    }
+
+    /**
+     * Build the wallet_names request object describing this WalletName
+     */
+    Map<Object, Object> toRequestObject() {
+
         Map<Object, Object> requestObj = new HashMap<Object, Object> ();
 
         // Create JSON Request Object
@@ -109,43 +132,39 @@ public class WalletName extends BaseObject {
         }
 
         requestObj.put("wallets", walletsList);
+        return requestObj;
+    }
+
+    /**
+     * Build save() request JSON
+     */
+    String buildSaveRequest() throws Exception {
+
+        Map<String, Object> fullRequest = new HashMap<String, Object> ();
 
         List<Object> walletNamesObj = new ArrayList<Object>();
-        walletNamesObj.add(requestObj);
+        walletNamesObj.add(this.toRequestObject());
         fullRequest.put("wallet_names", walletNamesObj);
 
-        ObjectMapper mapper = new ObjectMapper();
-        String requestJson;
-
         try {
-            requestJson = mapper.writeValueAsString(fullRequest);
+            return this.codecs().writeRequest(fullRequest);
         } catch (Exception e) {
             e.printStackTrace();
             throw new Exception("Unable to Build JSON Request");
         }
+    }
 
-        if (this.id != null) {
-            this.requestor.processRequest(
-                    this.getClient(),
-                    "/v1/partner/walletname",
-                    "PUT",
-                    requestJson
-            );
-        } else {
-            String respJsonString = this.requestor.processRequest(
-                    this.getClient(),
-                    "/v1/partner/walletname",
-                    "POST",
-                    requestJson
-            );
+    /**
+     * Apply save() creation response, setting this WalletName's ID
+     */
+    void applySaveResponse(String respJsonString) throws Exception {
 
-            JsonNode responseNode = mapper.readTree(respJsonString);
+        JsonNode responseNode = this.codecs().readTree(respJsonString);
 
-            if(responseNode.get("wallet_names") != null && responseNode.get("wallet_names").isArray()) {
-                for(JsonNode wnNode : responseNode.get("wallet_names")) {
-                    if(wnNode.get("domain_name").asText().equals(this.domainName) && wnNode.get("name").asText().equals(this.name)) {
-                        this.id = wnNode.get("id").asText();
-                    }
+        if(responseNode.get("wallet_names") != null && responseNode.get("wallet_names").isArray()) {
+            for(JsonNode wnNode : responseNode.get("wallet_names")) {
+                if(wnNode.get("domain_name").asText().equals(this.domainName) && wnNode.get("name").asText().equals(this.name)) {
+                    this.id = wnNode.get("id").asText();
                 }
             }
         }
@@ -162,7 +181,7 @@ public class WalletName extends BaseObject {
             throw new Exception("Unable to Delete Object that Does Not Exist Remotely");
         }
 
-        this.requestor.processRequest(
+        this.activeRequestor().processRequest(
                 this.getClient(),
                 "/v1/partner/walletname/" + this.domainName + "/" + this.id,
                 "DELETE",
@@ -171,6 +190,57 @@ public class WalletName extends BaseObject {
 
     }
 
+    /**
+     * Save WalletName to Netki API asynchronously
+     *
+     * @param executor Executor to run the API call on
+     * @return Future completed with this WalletName once saved
+     */
+    public CompletableFuture<WalletName> saveAsync(Executor executor) {
+
+        String requestJson;
+        try {
+            requestJson = this.buildSaveRequest();
+        } catch (Exception e) {
+            return Futures.failed(e);
+        }
+
+        final boolean create = this.id == null;
+        return Futures.map(this.activeRequestor().processRequestAsync(
+                this.getClient(),
+                "/v1/partner/walletname",
+                create ? "POST" : "PUT",
+                requestJson,
+                executor
+        ), respJsonString -> {
+            if (create) {
+                applySaveResponse(respJsonString);
+            }
+            return this;
+        });
+    }
+
+    /**
+     * Delete WalletName via Netki API asynchronously
+     *
+     * @param executor Executor to run the API call on
+     * @return Future completed with this WalletName once deleted
+     */
+    public CompletableFuture<WalletName> deleteAsync(Executor executor) {
+
+        if (this.id == null) {
+            return Futures.failed(new Exception("Unable to Delete Object that Does Not Exist Remotely"));
+        }
+
+        return Futures.map(this.activeRequestor().processRequestAsync(
+                this.getClient(),
+                "/v1/partner/walletname/" + this.domainName + "/" + this.id,
+                "DELETE",
+                null,
+                executor
+        ), respJsonString -> this);
+    }
+
     /************************
      * Getters and Setters
      */
@@ -253,7 +323,7 @@ public class WalletName extends BaseObject {
      * @return Requestor
      */
     public Requestor getRequestor() {
-        return requestor;
+        return this.activeRequestor();
     }
 
     /**
@@ -262,7 +332,7 @@ public class WalletName extends BaseObject {
      * @param requestor Requestor
      */
     public void setRequestor(Requestor requestor) {
-        this.requestor = requestor;
+        this.useRequestor(requestor);
     }
 
 }
@@ -0,0 +1,213 @@
+package com.netki;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.codehaus.jackson.JsonNode;
+
+/**
+ * Save many WalletNames to the Netki API in as few requests as possible
+ *
+ * New WalletNames (no ID) are created with POST and existing ones are updated with PUT, each in chunks of
+ * {@link #getBatchSize()} WalletNames per request. Up to {@link #getParallelism()} requests are in flight at once.
+ */
+public class WalletNameBatch {
+
+    /**
+     * Default number of WalletNames sent in a single request
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Default number of requests in flight at once
+     */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final NetkiClient client;
+    private final List<WalletName> walletNames = new ArrayList<WalletName>();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * Instantiate an empty WalletNameBatch
+     *
+     * @param client NetkiClient used to save the WalletNames
+     */
+    public WalletNameBatch(NetkiClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Add a WalletName to the batch
+     *
+     * @param walletName WalletName to save
+     */
+    public void add(WalletName walletName) {
+        this.walletNames.add(walletName);
+    }
+
+    /**
+     * Add WalletNames to the batch
+     *
+     * @param walletNames WalletNames to save
+     */
+    public void addAll(Collection<WalletName> walletNames) {
+        this.walletNames.addAll(walletNames);
+    }
+
+    /**
+     * Save all WalletNames in the batch. Created WalletNames have their ID set from the API response.
+     *
+     * @throws Exception First Bad HTTP Request / Response encountered. Remaining requests are cancelled; chunks
+     * already saved are not rolled back.
+     */
+    public void save() throws Exception {
+
+        List<WalletName> creates = new ArrayList<WalletName>();
+        List<WalletName> updates = new ArrayList<WalletName>();
+        for (WalletName wn : this.walletNames) {
+            if (wn.getClient() == null) {
+                wn.setClient(this.client);
+            }
+            if (wn.getId() == null) {
+                creates.add(wn);
+            } else {
+                updates.add(wn);
+            }
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final List<WalletName> chunk : this.chunk(creates)) {
+            tasks.add(() -> {
+                String respJsonString = this.send("POST", chunk);
+                this.applyCreatedIds(chunk, respJsonString);
+                return null;
+            });
+        }
+        for (final List<WalletName> chunk : this.chunk(updates)) {
+            tasks.add(() -> {
+                this.send("PUT", chunk);
+                return null;
+            });
+        }
+
+        this.client.getFanOut().invokeAll(tasks, this.parallelism);
+    }
+
+    /**
+     * Split WalletNames into lists of at most batchSize
+     */
+    private List<List<WalletName>> chunk(List<WalletName> source) {
+        int size = Math.max(1, this.batchSize);
+        List<List<WalletName>> chunks = new ArrayList<List<WalletName>>();
+        for (int i = 0; i < source.size(); i += size) {
+            chunks.add(source.subList(i, Math.min(i + size, source.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Send a single wallet_names request for a chunk. The body is encoded once, straight to bytes.
+     */
+    private String send(String method, List<WalletName> chunk) throws Exception {
+
+        List<Object> walletNamesObj = new ArrayList<Object>(chunk.size());
+        for (WalletName wn : chunk) {
+            walletNamesObj.add(wn.toRequestObject());
+        }
+
+        Map<String, Object> fullRequest = new HashMap<String, Object>();
+        fullRequest.put("wallet_names", walletNamesObj);
+
+        byte[] requestJson;
+        try {
+            requestJson = this.client.getCodecs().writeRequestBytes(fullRequest);
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new Exception("Unable to Build JSON Request");
+        }
+
+        return this.client.getRequestor().processRequestBody(
+                this.client,
+                "/v1/partner/walletname",
+                method,
+                requestJson
+        );
+    }
+
+    /**
+     * Set the ID of each created WalletName from a POST response, matching on domain name and name
+     */
+    private void applyCreatedIds(List<WalletName> chunk, String respJsonString) throws Exception {
+
+        JsonNode responseNode = this.client.getCodecs().readTree(respJsonString);
+        if (responseNode.get("wallet_names") == null || !responseNode.get("wallet_names").isArray()) {
+            return;
+        }
+
+        Map<String, String> ids = new HashMap<String, String>();
+        for (JsonNode wnNode : responseNode.get("wallet_names")) {
+            ids.put(key(wnNode.get("domain_name").asText(), wnNode.get("name").asText()), wnNode.get("id").asText());
+        }
+
+        for (WalletName wn : chunk) {
+            String id = ids.get(key(wn.getDomainName(), wn.getName()));
+            if (id != null) {
+                wn.setId(id);
+            }
+        }
+    }
+
+    private static String key(String domainName, String name) {
+        return domainName + '\n' + name;
+    }
+
+    /**
+     * Get number of WalletNames sent in a single request
+     *
+     * @return Batch Size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set number of WalletNames sent in a single request
+     *
+     * @param batchSize Batch Size
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get number of requests in flight at once
+     *
+     * @return Parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set number of requests in flight at once
+     *
+     * @param parallelism Parallelism. 1 sends one request at a time on the calling thread.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Get WalletNames in the batch
+     *
+     * @return WalletNames
+     */
+    public List<WalletName> getWalletNames() {
+        return walletNames;
+    }
+}
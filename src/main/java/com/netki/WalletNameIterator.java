@@ -0,0 +1,74 @@
+package com.netki;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over a Wallet Name lookup response that decodes one Wallet Name at a time from the response stream
+ *
+ * The underlying connection is released once the last Wallet Name has been read or {@link #close()} is called.
+ * Failures while iterating (unreadable response or failed API envelope) are thrown as {@link IllegalStateException}.
+ */
+public class WalletNameIterator implements Iterator<WalletName>, Closeable {
+
+    private final ResponseArrayReader<WalletName> reader;
+    private WalletName next;
+
+    /**
+     * Instantiate a WalletNameIterator and advance it to the first Wallet Name
+     *
+     * @param client NetkiClient the Wallet Names belong to
+     * @param content Wallet Name lookup response stream
+     * @throws Exception Occurs on an unreadable or failed API response
+     */
+    WalletNameIterator(NetkiClient client, InputStream content) throws Exception {
+        this.reader = new ResponseArrayReader<WalletName>(
+                client.getCodecs(),
+                client.getCodecs().createParser(content),
+                "wallet_names",
+                client::toWalletName
+        );
+
+        try {
+            this.next = this.reader.next();
+        } catch (Exception e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.next != null) {
+            return true;
+        }
+
+        try {
+            this.next = this.reader.next();
+        } catch (Exception e) {
+            this.close();
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public WalletName next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        WalletName wn = this.next;
+        this.next = null;
+        return wn;
+    }
+
+    /**
+     * Stop iterating and release the underlying connection
+     */
+    @Override
+    public void close() {
+        this.reader.close();
+    }
+}
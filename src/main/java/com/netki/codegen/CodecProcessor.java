@@ -0,0 +1,323 @@
+package com.netki.codegen;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor generating the {@code <Class>Codec} classes for {@code @com.netki.JsonCodec} model classes
+ *
+ * Runs in the library's own build only; it is not part of the published jar.
+ */
+public class CodecProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "com.netki.JsonCodec";
+    static final String FIELD_ANNOTATION = "com.netki.JsonCodec.Field";
+    static final String DEFAULT_NAME = "\0";
+
+    /**
+     * Field types the generated encode / decode methods handle
+     */
+    enum Kind {
+        STRING, DATE, INT, LONG, BOOLEAN, OTHER
+    }
+
+    /**
+     * A model class field with a getter or setter
+     */
+    static final class Property {
+        String field;
+        String jsonName;
+        String constant;
+        String type;
+        Kind kind;
+        String getter;
+        String setter;
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<String>(Arrays.asList(ANNOTATION, FIELD_ANNOTATION));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        for (TypeElement annotation : annotations) {
+            if (annotation.getQualifiedName().contentEquals(FIELD_ANNOTATION)) {
+                for (Element field : roundEnv.getElementsAnnotatedWith(annotation)) {
+                    if (this.mirror(field.getEnclosingElement(), ANNOTATION) == null) {
+                        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "@JsonCodec.Field has no effect outside a @JsonCodec class", field);
+                    }
+                }
+                continue;
+            }
+
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JsonCodec only applies to classes", element);
+                    continue;
+                }
+
+                TypeElement type = (TypeElement) element;
+                try {
+                    this.writeCodec(type, this.datePattern(type), this.properties(type));
+                } catch (IOException e) {
+                    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write codec: " + e.getMessage(), type);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collect the fields with a getter or setter, in declaration order
+     */
+    private List<Property> properties(TypeElement type) {
+
+        List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.PRIVATE) && !method.getModifiers().contains(Modifier.STATIC)) {
+                methods.add(method);
+            }
+        }
+
+        List<Property> properties = new ArrayList<Property>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+
+            AnnotationMirror override = this.mirror(field, FIELD_ANNOTATION);
+            if (override != null && Boolean.TRUE.equals(this.value(override, "ignore"))) {
+                continue;
+            }
+
+            Property p = new Property();
+            p.field = field.getSimpleName().toString();
+            p.type = field.asType().toString();
+            p.kind = kind(p.type);
+            p.getter = this.findGetter(methods, p);
+            p.setter = this.findSetter(methods, p);
+            if (p.getter == null && p.setter == null) {
+                continue;
+            }
+
+            Object name = override == null ? null : this.value(override, "name");
+            p.jsonName = name == null || DEFAULT_NAME.equals(name) ? snakeCase(p.field) : (String) name;
+            p.constant = snakeCase(p.field).toUpperCase();
+            properties.add(p);
+        }
+        return properties;
+    }
+
+    private String findGetter(List<ExecutableElement> methods, Property p) {
+        String suffix = capitalize(p.field);
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            if ((name.equals("get" + suffix) || (p.kind == Kind.BOOLEAN && name.equals("is" + suffix)))
+                    && method.getParameters().isEmpty()
+                    && method.getReturnType().toString().equals(p.type)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private String findSetter(List<ExecutableElement> methods, Property p) {
+        String name = "set" + capitalize(p.field);
+        for (ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(name)
+                    && method.getParameters().size() == 1
+                    && method.getParameters().get(0).asType().toString().equals(p.type)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private String datePattern(TypeElement type) {
+        Object pattern = this.value(this.mirror(type, ANNOTATION), "datePattern");
+        return pattern == null ? "yyyy-MM-dd" : (String) pattern;
+    }
+
+    private AnnotationMirror mirror(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotation)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Object value(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : this.processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write {@code <Class>Codec} into the annotated class' package
+     */
+    private void writeCodec(TypeElement type, String datePattern, List<Property> properties) throws IOException {
+
+        String pkg = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String model = type.getSimpleName().toString();
+        String codec = model + "Codec";
+
+        boolean decodesDates = false;
+        for (Property p : properties) {
+            if (p.kind == Kind.DATE && p.setter != null) {
+                decodesDates = true;
+            }
+        }
+
+        JavaFileObject file = this.processingEnv.getFiler().createSourceFile(pkg + "." + codec, type);
+        PrintWriter out = new PrintWriter(file.openWriter());
+        try {
+            out.println("package " + pkg + ";");
+            out.println();
+            out.println("import java.text.ParseException;");
+            out.println("import java.text.SimpleDateFormat;");
+            out.println("import java.util.Date;");
+            out.println("import java.util.Map;");
+            out.println();
+            out.println("import org.codehaus.jackson.JsonNode;");
+            out.println();
+            out.println("/**");
+            out.println(" * JSON codec for {@link " + model + "}. Generated by " + CodecProcessor.class.getName() + ", do not edit.");
+            out.println(" */");
+            out.println("final class " + codec + " {");
+            out.println();
+
+            for (Property p : properties) {
+                out.println("    static final String " + p.constant + " = \"" + p.jsonName + "\";");
+            }
+            out.println();
+            out.println("    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT =");
+            out.println("            ThreadLocal.withInitial(() -> new SimpleDateFormat(\"" + datePattern + "\"));");
+            out.println();
+            out.println("    private " + codec + "() {}");
+            out.println();
+
+            out.println("    static String formatDate(Date date) {");
+            out.println("        return DATE_FORMAT.get().format(date);");
+            out.println("    }");
+            out.println();
+            out.println("    static Date parseDate(String date) throws ParseException {");
+            out.println("        return DATE_FORMAT.get().parse(date);");
+            out.println("    }");
+            out.println();
+
+            out.println("    static void encode(" + model + " value, String prefix, String suffix, Map<String, String> out) {");
+            for (Property p : properties) {
+                if (p.getter == null || (p.kind != Kind.STRING && p.kind != Kind.DATE)) {
+                    continue;
+                }
+                String read = "value." + p.getter + "()";
+                out.println("        if (" + read + " != null) {");
+                out.println("            out.put(prefix + " + p.constant + " + suffix, " + (p.kind == Kind.DATE ? "formatDate(" + read + ")" : read) + ");");
+                out.println("        }");
+            }
+            out.println("    }");
+            out.println();
+
+            out.println("    static " + model + " decode(JsonNode node, " + model + " target)" + (decodesDates ? " throws ParseException" : "") + " {");
+            out.println("        JsonNode field;");
+            for (Property p : properties) {
+                if (p.setter == null || p.kind == Kind.OTHER) {
+                    continue;
+                }
+                out.println("        field = node.get(" + p.constant + ");");
+                out.println("        if (field != null) {");
+                out.println("            target." + p.setter + "(" + read(p) + ");");
+                out.println("        }");
+            }
+            out.println("        return target;");
+            out.println("    }");
+            out.println("}");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Expression converting {@code field} to the property's type
+     */
+    private static String read(Property p) {
+        boolean boxed = p.type.startsWith("java.lang.");
+        switch (p.kind) {
+            case STRING:
+                return "field.isNull() ? null : field.asText()";
+            case DATE:
+                return "field.isNull() ? null : parseDate(field.asText())";
+            case INT:
+                return boxed ? "field.isNull() ? null : Integer.valueOf(field.asInt())" : "field.asInt()";
+            case LONG:
+                return boxed ? "field.isNull() ? null : Long.valueOf(field.asLong())" : "field.asLong()";
+            case BOOLEAN:
+                return boxed ? "field.isNull() ? null : Boolean.valueOf(field.asBoolean())" : "field.asBoolean()";
+            default:
+                throw new IllegalArgumentException(p.type);
+        }
+    }
+
+    static Kind kind(String type) {
+        if (type.equals("java.lang.String")) return Kind.STRING;
+        if (type.equals("java.util.Date")) return Kind.DATE;
+        if (type.equals("int") || type.equals("java.lang.Integer")) return Kind.INT;
+        if (type.equals("long") || type.equals("java.lang.Long")) return Kind.LONG;
+        if (type.equals("boolean") || type.equals("java.lang.Boolean")) return Kind.BOOLEAN;
+        return Kind.OTHER;
+    }
+
+    /**
+     * lowerCamel to lower_snake, i.e., dlRtaNumber to dl_rta_number
+     */
+    static String snakeCase(String name) {
+        StringBuilder sb = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                sb.append('_').append(Character.toLowerCase(c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,180 @@
+package com.netki;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.Mockito.*;
+import static org.junit.Assert.*;
+
+@PowerMockIgnore({"javax.*", "org.spongycastle.*", "org.mockito.*", "com.madgag.*"})
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(AsyncNetkiClient.class)
+public class AsyncNetkiClientTest {
+
+    private Requestor mockRequestor;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        this.mockRequestor = mock(Requestor.class);
+        this.executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        reset(this.mockRequestor);
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void GetWalletNamesAsync() throws Exception {
+        String respJson = "{\"wallet_name_count\": 1, \"wallet_names\": [{\"id\": \"id\", \"domain_name\": \"domain.com\", \"name\": \"wallet\", \"external_id\": \"external_id\", \"wallets\": [{\"currency\": \"btc\", \"wallet_address\": \"1btcaddress\"}]}]}";
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/v1/partner/walletname?domain_name=domain.com"), eq("GET"), isNull(String.class), any(Executor.class))).thenReturn(CompletableFuture.completedFuture(respJson));
+
+        NetkiClient netki = new NetkiClient("partner_id", "api_key", "http://server", this.mockRequestor);
+        CompletableFuture<List<WalletName>> future = netki.async(this.executor).getWalletNames("domain.com", null);
+
+        List<WalletName> results = future.get();
+        assertEquals(1, results.size());
+        assertEquals("id", results.get(0).getId());
+        assertEquals("1btcaddress", results.get(0).getWalletAddress("btc"));
+    }
+
+    @Test
+    public void GetAccountBalanceAsync() throws Exception {
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/v1/certificate/balance"), eq("GET"), isNull(String.class), any(Executor.class))).thenReturn(CompletableFuture.completedFuture("{\"available_balance\": 100}"));
+
+        NetkiClient netki = new NetkiClient("partner_id", "api_key", "http://server", this.mockRequestor);
+        AsyncNetkiClient async = new AsyncNetkiClient(netki, this.executor);
+
+        assertEquals(100, async.getAccountBalance().get().intValue());
+        assertSame(netki, async.getClient());
+        assertSame(this.executor, async.getExecutor());
+    }
+
+    @Test
+    public void FailureCompletesExceptionally() throws Exception {
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/v1/admin/partner"), eq("GET"), isNull(String.class), any(Executor.class))).thenReturn(Futures.<String>failed(new Exception("failure message")));
+
+        NetkiClient netki = new NetkiClient("partner_id", "api_key", "http://server", this.mockRequestor);
+
+        try {
+            netki.async(this.executor).getPartners().get();
+            fail("Expected Exception");
+        } catch (ExecutionException e) {
+            assertEquals("failure message", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void WalletNameSaveAndDeleteAsync() throws Exception {
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("PUT"), anyString(), any(Executor.class))).thenReturn(CompletableFuture.completedFuture("{}"));
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/v1/partner/walletname/domain.com/id"), eq("DELETE"), isNull(String.class), any(Executor.class))).thenReturn(CompletableFuture.completedFuture(""));
+
+        WalletName walletName = new WalletName(this.mockRequestor);
+        walletName.setClient(new NetkiClient("partner_id", "api_key", "http://server"));
+        walletName.setId("id");
+        walletName.setDomainName("domain.com");
+        walletName.setName("wallet");
+
+        assertSame(walletName, walletName.saveAsync(this.executor).get());
+        assertSame(walletName, walletName.deleteAsync(this.executor).get());
+
+        verify(this.mockRequestor, times(1)).processRequestAsync(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("PUT"), anyString(), eq(this.executor));
+        verify(this.mockRequestor, times(1)).processRequestAsync(any(NetkiClient.class), eq("/v1/partner/walletname/domain.com/id"), eq("DELETE"), isNull(String.class), eq(this.executor));
+    }
+
+    @Test
+    public void CertificateGetStatusAsync() throws Exception {
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/v1/certificate/id"), eq("GET"), isNull(String.class), any(Executor.class))).thenReturn(CompletableFuture.completedFuture("{\"order_status\": \"Order Finalized\"}"));
+
+        Certificate certificate = new Certificate(this.mockRequestor);
+        certificate.setClient(new NetkiClient("partner_id", "api_key", "http://server"));
+        certificate.setId("id");
+
+        assertTrue(certificate.getStatusAsync(this.executor).get().isOrderComplete());
+    }
+
+    @Test
+    public void WalletNameCreateAsyncSetsId() throws Exception {
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("POST"), anyString(), any(Executor.class))).thenReturn(CompletableFuture.completedFuture("{\"wallet_names\": [{\"domain_name\": \"domain.com\", \"name\": \"wallet\", \"id\": \"new_id\"}]}"));
+
+        WalletName walletName = new WalletName(this.mockRequestor);
+        walletName.setClient(new NetkiClient("partner_id", "api_key", "http://server"));
+        walletName.setDomainName("domain.com");
+        walletName.setName("wallet");
+
+        assertEquals("new_id", walletName.saveAsync(this.executor).get().getId());
+    }
+
+    @Test
+    public void GetDomainsAsyncLoadsDetails() throws Exception {
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(Executor.class))).thenReturn(CompletableFuture.completedFuture("{\"domains\": [{\"domain_name\": \"domain.com\"}]}"));
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), isNull(String.class), any(Executor.class))).thenReturn(CompletableFuture.completedFuture("{\"status\": \"status\", \"delegation_status\": true, \"delegation_message\": \"delegated\", \"wallet_name_count\": 42}"));
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), isNull(String.class), any(Executor.class))).thenReturn(CompletableFuture.completedFuture("{\"public_key_signing_key\": \"PUBKEY\"}"));
+
+        NetkiClient netki = new NetkiClient("partner_id", "api_key", "http://server", this.mockRequestor);
+        List<Domain> domains = netki.async(this.executor).getDomains().get();
+
+        assertEquals(1, domains.size());
+        assertEquals("status", domains.get(0).getStatus());
+        assertEquals(42, domains.get(0).getWalletNameCount());
+        assertEquals("PUBKEY", domains.get(0).getPublicKeySigningKey());
+    }
+
+    @Test
+    public void GetDomainsAsyncBoundsConcurrentLoads() throws Exception {
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(Executor.class))).thenReturn(CompletableFuture.completedFuture("{\"domains\": [{\"domain_name\": \"a.com\"}, {\"domain_name\": \"b.com\"}, {\"domain_name\": \"c.com\"}]}"));
+        final List<CompletableFuture<String>> started = new CopyOnWriteArrayList<CompletableFuture<String>>();
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), startsWith("/v1/partner/domain/"), eq("GET"), isNull(String.class), any(Executor.class))).thenAnswer(invocation -> {
+            CompletableFuture<String> load = new CompletableFuture<String>();
+            started.add(load);
+            return load;
+        });
+
+        NetkiClient netki = new NetkiClient("partner_id", "api_key", "http://server", this.mockRequestor);
+        netki.setDomainLoadParallelism(2);
+        CompletableFuture<List<Domain>> future = netki.async(this.executor).getDomains();
+
+        // Status and DNSSEC details of 3 domains, each load only started once an earlier one completes
+        for (int completed = 0; completed < 6; completed++) {
+            assertEquals(Math.min(6, completed + 2), started.size());
+            assertFalse(future.isDone());
+            started.get(completed).complete("{\"status\": \"status\", \"delegation_status\": true, \"delegation_message\": \"delegated\", \"wallet_name_count\": 42}");
+        }
+        assertEquals(3, future.get().size());
+    }
+
+    @Test
+    public void GetDomainsAsyncFollowsLoadingPolicy() throws Exception {
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(Executor.class))).thenReturn(CompletableFuture.completedFuture("{\"domains\": [{\"domain_name\": \"domain.com\"}]}"));
+        when(this.mockRequestor.processRequestAsync(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), isNull(String.class), any(Executor.class))).thenReturn(CompletableFuture.completedFuture("{\"status\": \"status\", \"delegation_status\": true, \"delegation_message\": \"delegated\", \"wallet_name_count\": 42}"));
+
+        NetkiClient netki = new NetkiClient("partner_id", "api_key", "http://server", this.mockRequestor);
+        netki.setDnssecLoading(DnssecLoading.SKIP);
+        assertEquals("status", netki.async(this.executor).getDomains().get().get(0).getStatus());
+        verify(this.mockRequestor, never()).processRequestAsync(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), anyString(), isNull(String.class), any(Executor.class));
+
+        netki.setLazyDomainLoading(true);
+        netki.async(this.executor).getDomains().get();
+        verify(this.mockRequestor, times(1)).processRequestAsync(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), isNull(String.class), any(Executor.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void NullExecutorRejected() {
+        new AsyncNetkiClient(new NetkiClient("partner_id", "api_key", "http://server"), null);
+    }
+}
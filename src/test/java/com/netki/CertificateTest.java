@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static com.netki.TestUtil.generateKey;
+import static com.netki.TestUtil.respondWith;
 import static org.mockito.Mockito.*;
 import static org.junit.Assert.*;
 import static org.powermock.api.mockito.PowerMockito.verifyStatic;
@@ -420,7 +421,7 @@ public class CertificateTest {
     public void GetStatus_GoRight() throws Exception {
 
         String respJson = "{\"order_error\": \"some error\", \"order_status\": \"status\", \"certificate_bundle\": {\"intermediate\": [\"INT1_PEM\", \"INT2_PEM\"], \"root\": \"ROOT_PEM\", \"certificate\": \"CERT_PEM\"}}";
-        doReturn(respJson).when(this.mockRequestor).processRequest(any(NetkiClient.class), eq("/v1/certificate/id"), eq("GET"), anyString());
+        doAnswer(respondWith(respJson)).when(this.mockRequestor).processRequest(any(NetkiClient.class), eq("/v1/certificate/id"), eq("GET"), anyString(), any(ResponseHandler.class));
 
         Certificate cert = new Certificate(this.mockRequestor);
         cert.setId("id");
@@ -431,7 +432,8 @@ public class CertificateTest {
                 any(NetkiClient.class),
                 eq("/v1/certificate/id"),
                 eq("GET"),
-                anyString()
+                anyString(),
+                any(ResponseHandler.class)
         );
 
         assertEquals(cert.getOrderStatus(), "status");
@@ -448,7 +450,7 @@ public class CertificateTest {
     public void GetStatus_StatusOnly() throws Exception {
 
         String respJson = "{\"order_status\": \"status\"}";
-        doReturn(respJson).when(this.mockRequestor).processRequest(any(NetkiClient.class), eq("/v1/certificate/id"), eq("GET"), anyString());
+        doAnswer(respondWith(respJson)).when(this.mockRequestor).processRequest(any(NetkiClient.class), eq("/v1/certificate/id"), eq("GET"), anyString(), any(ResponseHandler.class));
 
         Certificate cert = new Certificate(this.mockRequestor);
         cert.setId("id");
@@ -459,7 +461,8 @@ public class CertificateTest {
                 any(NetkiClient.class),
                 eq("/v1/certificate/id"),
                 eq("GET"),
-                anyString()
+                anyString(),
+                any(ResponseHandler.class)
         );
 
         assertEquals(cert.getOrderStatus(), "status");
@@ -486,7 +489,8 @@ public class CertificateTest {
                 any(NetkiClient.class),
                 eq("/v1/certificate/id"),
                 eq("GET"),
-                anyString()
+                anyString(),
+                any(ResponseHandler.class)
         );
     }
 }
@@ -0,0 +1,236 @@
+package com.netki;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    private static final String URI = "/v1/partner/walletname";
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final List<String> transitions = new ArrayList<String>();
+
+    private CircuitBreaker breaker(int windowSize, int minimumCalls, long openMillis, int halfOpenCalls) {
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setWindowSize(windowSize);
+        config.setMinimumCalls(minimumCalls);
+        config.setOpenMillis(openMillis);
+        config.setHalfOpenCalls(halfOpenCalls);
+        config.setSlowCallMillis(100);
+
+        CircuitBreaker breaker = new CircuitBreaker(config);
+        breaker.addListener((group, from, to) -> {
+            synchronized (this.transitions) {
+                this.transitions.add(group + " " + from + " -> " + to);
+            }
+        });
+        return breaker;
+    }
+
+    private static void assertRejected(CircuitBreaker breaker, String uri) {
+        try {
+            breaker.acquire(uri);
+            fail("Expected NetkiException");
+        } catch (NetkiException e) {
+            assertEquals("Circuit Open: " + EndpointGroup.match(uri), e.getMessage());
+        }
+    }
+
+    @Test
+    public void OpensOnFailureRate() throws Exception {
+        CircuitBreaker breaker = this.breaker(10, 4, 60000, 1);
+
+        breaker.acquire(URI).complete(FAST, false);
+        breaker.acquire(URI).complete(FAST, true);
+        breaker.acquire(URI).complete(FAST, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(EndpointGroup.WALLET_NAMES));
+
+        breaker.acquire(URI).complete(FAST, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(EndpointGroup.WALLET_NAMES));
+        assertEquals(1, this.transitions.size());
+        assertEquals("WALLET_NAMES CLOSED -> OPEN", this.transitions.get(0));
+
+        assertRejected(breaker, URI + "?domain_name=domain.com");
+        assertEquals(1, breaker.getRejectedRequests());
+
+        // Other groups have their own circuit
+        breaker.acquire("/v1/certificate/products").complete(FAST, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(EndpointGroup.CERTIFICATES));
+    }
+
+    @Test
+    public void OpensOnSlowCallRate() throws Exception {
+        CircuitBreaker breaker = this.breaker(10, 4, 60000, 1);
+        long slow = TimeUnit.MILLISECONDS.toNanos(150);
+
+        breaker.acquire(URI).complete(slow, false);
+        breaker.acquire(URI).complete(slow, false);
+        breaker.acquire(URI).complete(slow, false);
+        breaker.acquire(URI).complete(FAST, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(EndpointGroup.WALLET_NAMES));
+
+        breaker.acquire(URI).complete(slow, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(EndpointGroup.WALLET_NAMES));
+    }
+
+    @Test
+    public void OnlyRecentCallsCount() throws Exception {
+        CircuitBreaker breaker = this.breaker(4, 4, 60000, 1);
+
+        breaker.acquire(URI).complete(FAST, true);
+        for (int i = 0; i < 10; i++) {
+            breaker.acquire(URI).complete(FAST, false);
+        }
+        breaker.acquire(URI).complete(FAST, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(EndpointGroup.WALLET_NAMES));
+
+        breaker.acquire(URI).complete(FAST, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(EndpointGroup.WALLET_NAMES));
+    }
+
+    @Test
+    public void HalfOpenTrialsClose() throws Exception {
+        CircuitBreaker breaker = this.breaker(2, 2, 50, 2);
+        breaker.acquire(URI).complete(FAST, true);
+        breaker.acquire(URI).complete(FAST, true);
+        assertRejected(breaker, URI);
+
+        Thread.sleep(60);
+        CircuitBreaker.Permit first = breaker.acquire(URI);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(EndpointGroup.WALLET_NAMES));
+        CircuitBreaker.Permit second = breaker.acquire(URI);
+        assertRejected(breaker, URI);
+
+        first.complete(FAST, false);
+        second.complete(FAST, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(EndpointGroup.WALLET_NAMES));
+
+        assertEquals(3, this.transitions.size());
+        assertEquals("WALLET_NAMES OPEN -> HALF_OPEN", this.transitions.get(1));
+        assertEquals("WALLET_NAMES HALF_OPEN -> CLOSED", this.transitions.get(2));
+    }
+
+    @Test
+    public void FailedTrialReopens() throws Exception {
+        CircuitBreaker breaker = this.breaker(2, 2, 50, 2);
+        breaker.acquire(URI).complete(FAST, true);
+        breaker.acquire(URI).complete(FAST, true);
+
+        Thread.sleep(60);
+        CircuitBreaker.Permit cancelled = breaker.acquire(URI);
+        CircuitBreaker.Permit failed = breaker.acquire(URI);
+
+        // A permit given back without an outcome frees its trial
+        cancelled.cancel();
+        CircuitBreaker.Permit late = breaker.acquire(URI);
+
+        failed.complete(FAST, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(EndpointGroup.WALLET_NAMES));
+        assertRejected(breaker, URI);
+
+        // Outcomes from before the circuit reopened are ignored
+        late.complete(FAST, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(EndpointGroup.WALLET_NAMES));
+        assertEquals("WALLET_NAMES HALF_OPEN -> OPEN", this.transitions.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void RejectsMinimumCallsAboveWindow() throws Exception {
+        this.breaker(5, 10, 1000, 1);
+    }
+
+    @Test
+    public void RequestorFailsFastWhileOpen() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        client.setTransport(new Transport() {
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                calls.incrementAndGet();
+                throw new ConnectException("Connection refused");
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        });
+        client.setCircuitBreaker(this.breaker(2, 2, 60000, 1));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                new Requestor().processRequest(client, URI, "GET", null);
+                fail("Expected Exception");
+            } catch (Exception e) {
+                assertEquals("HTTP Request Failed: Connection refused", e.getMessage());
+            }
+        }
+
+        try {
+            new Requestor().processRequest(client, URI, "GET", null);
+            fail("Expected NetkiException");
+        } catch (NetkiException e) {
+            assertEquals("Circuit Open: WALLET_NAMES", e.getMessage());
+        }
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void ConcurrencyLimitRejectionsAreNotFailures() throws Exception {
+        final CountDownLatch inFlight = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        client.setTransport(new Transport() {
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                inFlight.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException("interrupted");
+                }
+                return new TransportResponse(200, new ByteArrayInputStream(new byte[0]));
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        });
+        client.setConcurrencyLimiter(new ConcurrencyLimiter(1, 1, 1, 0));
+        CircuitBreaker breaker = this.breaker(2, 2, 60000, 1);
+        client.setCircuitBreaker(breaker);
+
+        Thread holder = new Thread(() -> {
+            try {
+                new Requestor().processRequestStream(client, URI, "GET", null).close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+        holder.start();
+        try {
+            assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                try {
+                    new Requestor().processRequestStream(client, URI, "GET", null);
+                    fail("Expected Exception");
+                } catch (Exception e) {
+                    assertEquals("HTTP Request Failed: Concurrency Limit Exceeded", e.getMessage());
+                }
+            }
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(EndpointGroup.WALLET_NAMES));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.netki;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.*;
+
+public class ConcurrencyLimiterTest {
+
+    /**
+     * Stub API with a fixed capacity: requests beyond capacity share it, so latency grows with concurrency
+     */
+    private static class CapacityTransport implements Transport {
+
+        final int capacity;
+        final long baseLatencyMillis;
+        final AtomicInteger active = new AtomicInteger();
+
+        CapacityTransport(int capacity, long baseLatencyMillis) {
+            this.capacity = capacity;
+            this.baseLatencyMillis = baseLatencyMillis;
+        }
+
+        @Override
+        public TransportResponse execute(TransportRequest request) throws IOException {
+            int concurrent = this.active.incrementAndGet();
+            try {
+                Thread.sleep(this.baseLatencyMillis * Math.max(this.capacity, concurrent) / this.capacity);
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted");
+            } finally {
+                this.active.decrementAndGet();
+            }
+            return new TransportResponse(200, new ByteArrayInputStream("{}".getBytes("UTF-8")));
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static TransportRequest get() {
+        return new TransportRequest("GET", "http://localhost:9191/v1/partner/walletname");
+    }
+
+    @Test
+    public void RejectsImmediatelyWithoutWait() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10, 0);
+
+        limiter.acquire();
+        try {
+            limiter.acquire();
+            fail("Expected LimitExceededException");
+        } catch (ConcurrencyLimiter.LimitExceededException e) {
+            assertEquals("Concurrency Limit Exceeded", e.getMessage());
+        }
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1, limiter.getRejectedRequests());
+    }
+
+    @Test
+    public void QueuedRequestRunsWhenSlotIsReleased() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10, 5000);
+        limiter.acquire();
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }).start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getRejectedRequests());
+    }
+
+    @Test
+    public void FailuresCutLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 5, 100, 0);
+
+        limiter.acquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+        assertEquals(18, limiter.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+        }
+        assertEquals(5, limiter.getLimit());
+        assertEquals(51, limiter.getFailedRequests());
+    }
+
+    @Test
+    public void RisingLatencyLowersLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(50, 1, 100, 0);
+
+        limiter.acquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        int before = limiter.getLimit();
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(40), false);
+        }
+        assertTrue(limiter.getLimit() < before);
+    }
+
+    @Test
+    public void ServerErrorsLowerLimitThroughTransport() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 100, 0);
+        Transport unavailable = limiter.wrap(new Transport() {
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                return new TransportResponse(503, new ByteArrayInputStream(new byte[0]));
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        });
+
+        assertEquals(503, unavailable.execute(get()).getStatusCode());
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void LimitTracksServerCapacity() throws Exception {
+        final int capacity = 8;
+        final CapacityTransport api = new CapacityTransport(capacity, 5);
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(40, 1, 200, 30000);
+        final Transport limited = limiter.wrap(api);
+        final LongAdder limitSum = new LongAdder();
+        final LongAdder limitSamples = new LongAdder();
+
+        ExecutorService callers = Executors.newFixedThreadPool(48);
+        try {
+            List<Future<?>> results = new ArrayList<Future<?>>();
+            for (int i = 0; i < 48; i++) {
+                results.add(callers.submit(() -> {
+                    for (int j = 0; j < 40; j++) {
+                        limited.execute(get()).close();
+                        // Sample once the limit has had time to settle, while every caller is still busy
+                        if (j >= 15 && j < 30) {
+                            limitSum.add(limiter.getLimit());
+                            limitSamples.increment();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdown();
+        }
+
+        // Settles where queueing at the API stays small: near its capacity, far below the callers' concurrency
+        double limit = (double) limitSum.sum() / limitSamples.sum();
+        assertTrue("limit " + limit, limit >= capacity / 2 && limit <= capacity * 3);
+        assertEquals(0, limiter.getRejectedRequests());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void RejectsInitialLimitOutsideBounds() throws Exception {
+        new ConcurrencyLimiter(0, 1, 10, 0);
+    }
+}
@@ -11,6 +11,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import java.io.IOException;
 import java.util.*;
 
+import static com.netki.TestUtil.respondWith;
 import static org.mockito.Mockito.*;
 import static org.junit.Assert.*;
 
@@ -48,8 +49,8 @@ public class DomainTest {
             throw new Exception("TestDomain Setup Failed");
         }
 
-        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), anyString())).thenReturn(domainStatusJson);
-        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), anyString())).thenReturn(domainDnssecStatusJson);
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), anyString(), any(ResponseHandler.class))).thenAnswer(respondWith(domainStatusJson));
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), anyString(), any(ResponseHandler.class))).thenAnswer(respondWith(domainDnssecStatusJson));
         when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("DELETE"), anyString())).thenReturn("");
 
     }
@@ -106,7 +107,7 @@ public class DomainTest {
 
         // Validate Call
         try {
-            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), anyString());
+            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), anyString(), any(ResponseHandler.class));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -135,7 +136,7 @@ public class DomainTest {
 
         // Validate Call
         try {
-            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), anyString());
+            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), anyString(), any(ResponseHandler.class));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -0,0 +1,88 @@
+package com.netki;
+
+import com.google.common.io.BaseEncoding;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.Signature;
+
+import static com.netki.TestUtil.generateKey;
+import static org.junit.Assert.*;
+
+public class EcdsaRequestSignerTest {
+
+    private static KeyPair userKey = generateKey("ECDSA");
+
+    private static boolean verify(String url, String body, byte[] sig) throws Exception {
+        Signature verifier = Signature.getInstance("SHA256withECDSA", "SC");
+        verifier.initVerify(userKey.getPublic());
+        verifier.update((url + (body == null ? "" : body)).getBytes("UTF-8"));
+        return verifier.verify(sig);
+    }
+
+    @Test
+    public void PublicKeyHex()
+    {
+        EcdsaRequestSigner signer = new EcdsaRequestSigner(userKey);
+        assertEquals(BaseEncoding.base16().encode(userKey.getPublic().getEncoded()), signer.getPublicKeyHex());
+    }
+
+    @Test
+    public void SignReusesSignature() throws Exception
+    {
+        EcdsaRequestSigner signer = new EcdsaRequestSigner(userKey);
+
+        // Same pooled Signature signs consecutive requests independently
+        assertTrue(verify("https://api.netki.com/v1/partner/walletname", "{\"a\": 1}", signer.sign("https://api.netki.com/v1/partner/walletname", "{\"a\": 1}".getBytes("UTF-8"))));
+        assertTrue(verify("https://api.netki.com/v1/partner/domain", null, signer.sign("https://api.netki.com/v1/partner/domain", null)));
+        assertEquals(1, signer.getPooled());
+    }
+
+    @Test
+    public void SignLongAndNonAsciiUrl() throws Exception
+    {
+        EcdsaRequestSigner signer = new EcdsaRequestSigner(userKey);
+
+        StringBuilder longUrl = new StringBuilder("https://api.netki.com/v1/partner/walletname?external_id=");
+        for (int i = 0; i < 100; i++) {
+            longUrl.append("abcdef");
+        }
+        assertTrue(verify(longUrl.toString(), null, signer.sign(longUrl.toString(), null)));
+
+        String unicodeUrl = "https://api.netki.com/v1/partner/domain/d\u00f6main.com";
+        assertTrue(verify(unicodeUrl, "{}", signer.sign(unicodeUrl, "{}".getBytes("UTF-8"))));
+    }
+
+    @Test
+    public void SignFromManyThreads() throws Exception
+    {
+        final EcdsaRequestSigner signer = new EcdsaRequestSigner(userKey);
+        final boolean[] results = new boolean[8];
+
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    String url = "https://api.netki.com/v1/partner/walletname/" + index;
+                    boolean ok = true;
+                    for (int j = 0; j < 20; j++) {
+                        ok &= verify(url, "body" + j, signer.sign(url, ("body" + j).getBytes("UTF-8")));
+                    }
+                    results[index] = ok;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (boolean result : results) {
+            assertTrue(result);
+        }
+        assertTrue(signer.getPooled() <= EcdsaRequestSigner.MAX_POOLED);
+    }
+}
@@ -0,0 +1,172 @@
+package com.netki;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class FanOutTest {
+
+    @Test
+    public void SequentialRunsOnCallingThread() throws Exception {
+        FanOut fanOut = FanOut.create(ExecutionMode.SEQUENTIAL, 4);
+        final Thread caller = Thread.currentThread();
+
+        List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+        for (int i = 0; i < 3; i++) {
+            tasks.add(() -> Thread.currentThread() == caller);
+        }
+
+        assertEquals(ExecutionMode.SEQUENTIAL, fanOut.getMode());
+        assertEquals(Arrays.asList(true, true, true), fanOut.invokeAll(tasks));
+    }
+
+    @Test
+    public void VirtualThreadsRunConcurrentlyAndKeepOrder() throws Exception {
+        FanOut fanOut = FanOut.create(ExecutionMode.VIRTUAL_THREADS, 4);
+        assertEquals(FanOut.newVirtualThreadExecutor() != null, fanOut.isVirtual());
+
+        // Every task waits for all the others, which only completes if they run at the same time
+        final CountDownLatch started = new CountDownLatch(4);
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 4; i++) {
+            final int index = i;
+            tasks.add(() -> {
+                started.countDown();
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+                return index;
+            });
+        }
+
+        try {
+            assertEquals(Arrays.asList(0, 1, 2, 3), fanOut.invokeAll(tasks));
+        } finally {
+            fanOut.shutdown();
+        }
+    }
+
+    @Test
+    public void FailureCancelsRemainingTasks() throws Exception {
+        FanOut fanOut = FanOut.create(ExecutionMode.VIRTUAL_THREADS, 2);
+        final AtomicInteger finished = new AtomicInteger();
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        tasks.add(() -> {
+            throw new NetkiException("failure message");
+        });
+        for (int i = 0; i < 10; i++) {
+            tasks.add(() -> {
+                try {
+                    Thread.sleep(10000);
+                } finally {
+                    finished.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            fanOut.invokeAll(tasks);
+            fail("Expected Exception");
+        } catch (NetkiException e) {
+            assertEquals("failure message", e.getMessage());
+        } finally {
+            fanOut.shutdown();
+        }
+
+        // Sleeping tasks were interrupted rather than waited out, and none outlive invokeAll
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        int finishedAtReturn = finished.get();
+        Thread.sleep(100);
+        assertEquals(finishedAtReturn, finished.get());
+    }
+
+    @Test
+    public void LaterFailureCancelsEarlierTasksPromptly() throws Exception {
+        FanOut fanOut = FanOut.create(ExecutionMode.VIRTUAL_THREADS, 2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger interrupted = new AtomicInteger();
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        tasks.add(() -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                throw e;
+            }
+            return null;
+        });
+        tasks.add(() -> {
+            throw new NetkiException("failure message");
+        });
+
+        long start = System.currentTimeMillis();
+        try {
+            fanOut.invokeAll(tasks);
+            fail("Expected Exception");
+        } catch (NetkiException e) {
+            assertEquals("failure message", e.getMessage());
+        } finally {
+            release.countDown();
+            fanOut.shutdown();
+        }
+
+        // The first task was cancelled when the second failed, not waited for
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(1, interrupted.get());
+    }
+
+    @Test
+    public void MaxConcurrencyBoundsRunningTasks() throws Exception {
+        FanOut fanOut = FanOut.create(ExecutionMode.SEQUENTIAL, 0);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 20; i++) {
+            final int index = i;
+            tasks.add(() -> {
+                int now = running.incrementAndGet();
+                peak.accumulateAndGet(now, Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return index;
+            });
+        }
+
+        List<Integer> result = fanOut.invokeAll(tasks, 4);
+
+        assertEquals(20, result.size());
+        assertEquals(Integer.valueOf(19), result.get(19));
+        assertTrue(peak.get() > 1);
+        assertTrue(peak.get() <= 4);
+    }
+
+    @Test
+    public void SubmitAllReturnsWithoutWaiting() throws Exception {
+        FanOut fanOut = FanOut.create(ExecutionMode.SEQUENTIAL, 0);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+        tasks.add(() -> {
+            release.await(10, TimeUnit.SECONDS);
+            return "done";
+        });
+
+        List<Future<String>> futures = fanOut.submitAll(tasks, 2);
+        assertFalse(futures.get(0).isDone());
+
+        release.countDown();
+        assertEquals("done", futures.get(0).get(10, TimeUnit.SECONDS));
+    }
+}
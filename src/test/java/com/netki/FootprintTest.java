@@ -0,0 +1,67 @@
+package com.netki;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+// Model objects borrow their Requestor and JSON codecs from the NetkiClient, so each one only retains its own fields.
+// Bytes per object are measured by FootprintBenchmark in the benchmark profile.
+public class FootprintTest {
+
+    private static final List<Class<?>> MODELS = Arrays.<Class<?>>asList(Domain.class, WalletName.class, Certificate.class, Partner.class);
+
+    // Shared services a model object must never own a copy of
+    private static final List<Class<?>> SERVICES = Arrays.<Class<?>>asList(ObjectMapper.class, Codecs.class, Transport.class, RequestSigner.class);
+
+    private static Object ownRequestor(BaseObject object) throws Exception {
+        Field field = BaseObject.class.getDeclaredField("requestor");
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    @Test
+    public void ModelObjectsHoldNoServices() {
+        for (Class<?> model : MODELS) {
+            for (Class<?> type = model; type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    for (Class<?> service : SERVICES) {
+                        assertFalse(type.getSimpleName() + "." + field.getName() + " holds a " + service.getSimpleName(),
+                                service.isAssignableFrom(field.getType()));
+                    }
+                    if (Requestor.class.isAssignableFrom(field.getType())) {
+                        assertEquals("Only BaseObject may hold a Requestor", BaseObject.class, type);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void ObjectsShareClientServices() throws Exception {
+        NetkiClient client = new NetkiClient("partner_id", "api_key", null);
+        Domain domain = new Domain("domain.com");
+        domain.setClient(client);
+        WalletName walletName = client.createWalletName("domain.com", "wallet", null);
+        Certificate certificate = client.createCertificate();
+
+        assertSame(client.getRequestor(), domain.getRequestor());
+        assertSame(client.getRequestor(), walletName.getRequestor());
+        assertSame(client.getCodecs(), domain.codecs());
+        assertSame(client.getCodecs(), walletName.codecs());
+        assertSame(client.getCodecs(), certificate.codecs());
+
+        // Borrowed, not copied: each object only keeps its reference to the client
+        assertNull(ownRequestor(domain));
+        assertNull(ownRequestor(walletName));
+        assertNull(ownRequestor(certificate));
+    }
+}
@@ -0,0 +1,330 @@
+package com.netki;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HedgePolicyTest {
+
+    /**
+     * Blocking Transport whose first call waits for release; later calls answer immediately
+     */
+    private static class SlowFirstTransport implements Transport {
+
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch firstClosed = new CountDownLatch(1);
+        final boolean fail;
+
+        SlowFirstTransport(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public TransportResponse execute(TransportRequest request) throws IOException {
+            final int call = this.calls.incrementAndGet();
+            if (call == 1) {
+                try {
+                    this.release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException("interrupted");
+                }
+            }
+            if (this.fail) {
+                throw new SocketTimeoutException("Read timed out " + call);
+            }
+            return new TransportResponse(200, new ByteArrayInputStream(("{\"call\": " + call + "}").getBytes("UTF-8"))) {
+                @Override
+                public void close() throws IOException {
+                    if (call == 1) {
+                        firstClosed.countDown();
+                    }
+                    super.close();
+                }
+            };
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static TransportRequest get() {
+        return new TransportRequest("GET", "http://localhost:9191/v1/certificate/1234");
+    }
+
+    private static String read(TransportResponse response) throws Exception {
+        try {
+            return IOUtils.toString(response.getContent(), "UTF-8");
+        } finally {
+            response.close();
+        }
+    }
+
+    @Test
+    public void FastRequestsAreNotHedged() throws Exception {
+        HedgePolicy policy = new HedgePolicy(0.95, 0, 1000, 1.0);
+        SlowFirstTransport transport = new SlowFirstTransport(false);
+        transport.release.countDown();
+
+        assertEquals("{\"call\": 1}", read(policy.execute(transport, get())));
+        assertEquals("{\"call\": 2}", read(policy.execute(transport, get())));
+
+        assertEquals(2, transport.calls.get());
+        assertEquals(2, policy.getRequests());
+        assertEquals(0, policy.getHedges());
+    }
+
+    @Test
+    public void SlowRequestIsHedgedAndLoserReleased() throws Exception {
+        HedgePolicy policy = new HedgePolicy(0.95, 0, 20, 1.0);
+        SlowFirstTransport transport = new SlowFirstTransport(false);
+
+        long start = System.currentTimeMillis();
+        assertEquals("{\"call\": 2}", read(policy.execute(transport, get())));
+        assertTrue(System.currentTimeMillis() - start < 2000);
+
+        assertEquals(1, policy.getHedges());
+        assertEquals(1, policy.getHedgeWins());
+
+        // The slow attempt's response is discarded once it arrives
+        transport.release.countDown();
+        assertTrue(transport.firstClosed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void HedgesStayWithinBudget() throws Exception {
+        HedgePolicy policy = new HedgePolicy(0.95, 0, 20, 0.5);
+        assertFalse(policy.acquireHedge());
+
+        SlowFirstTransport transport = new SlowFirstTransport(false);
+        transport.release.countDown();
+        policy.execute(transport, get()).close();
+        policy.execute(transport, get()).close();
+
+        assertTrue(policy.acquireHedge());
+        assertFalse(policy.acquireHedge());
+        assertEquals(1, policy.getHedges());
+    }
+
+    @Test
+    public void HedgeCreditIsCapped() throws Exception {
+        HedgePolicy policy = new HedgePolicy(0.95, 1000, 1000, 0.5);
+        SlowFirstTransport transport = new SlowFirstTransport(false);
+        transport.release.countDown();
+
+        // Healthy traffic saves up at most MAX_HEDGE_TOKENS hedges
+        for (int i = 0; i < 100; i++) {
+            policy.execute(transport, get()).close();
+        }
+        for (int i = 0; i < HedgePolicy.MAX_HEDGE_TOKENS; i++) {
+            assertTrue(policy.acquireHedge());
+        }
+        assertFalse(policy.acquireHedge());
+        assertEquals(HedgePolicy.MAX_HEDGE_TOKENS, policy.getHedges());
+    }
+
+    @Test
+    public void NoBudgetWaitsForFirstAttempt() throws Exception {
+        HedgePolicy policy = new HedgePolicy(0.95, 0, 20, 0);
+        final SlowFirstTransport transport = new SlowFirstTransport(false);
+        new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                // Release now
+            }
+            transport.release.countDown();
+        }).start();
+
+        assertEquals("{\"call\": 1}", read(policy.execute(transport, get())));
+        assertEquals(1, transport.calls.get());
+        assertEquals(0, policy.getHedges());
+    }
+
+    @Test
+    public void FailsOnlyWhenBothAttemptsFail() throws Exception {
+        HedgePolicy policy = new HedgePolicy(0.95, 0, 20, 1.0);
+        final SlowFirstTransport transport = new SlowFirstTransport(true);
+        new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                // Release now
+            }
+            transport.release.countDown();
+        }).start();
+
+        // The hedge fails at once, but the first attempt is still awaited
+        try {
+            policy.execute(transport, get());
+            fail("Expected IOException");
+        } catch (SocketTimeoutException e) {
+            assertEquals("Read timed out 1", e.getMessage());
+        }
+        assertEquals(1, policy.getHedges());
+        assertEquals(0, policy.getHedgeWins());
+    }
+
+    @Test
+    public void AsyncLoserIsCancelled() throws Exception {
+        HedgePolicy policy = new HedgePolicy(0.95, 0, 20, 1.0);
+        final List<CompletableFuture<TransportResponse>> attempts = new ArrayList<CompletableFuture<TransportResponse>>();
+
+        AsyncTransport transport = new AsyncTransport() {
+            @Override
+            public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+                CompletableFuture<TransportResponse> attempt = new CompletableFuture<TransportResponse>();
+                attempts.add(attempt);
+                if (attempts.size() == 2) {
+                    attempt.complete(new TransportResponse(200, new ByteArrayInputStream("{\"call\": 2}".getBytes())));
+                }
+                return attempt;
+            }
+
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                throw new IOException("blocking path not expected");
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+
+        assertEquals("{\"call\": 2}", read(policy.execute(transport, get())));
+        assertEquals(2, attempts.size());
+        assertTrue(attempts.get(0).isCancelled());
+    }
+
+    @Test
+    public void DelayFollowsPercentile() throws Exception {
+        HedgePolicy policy = new HedgePolicy(0.9, 5, 1000, 0.05);
+        assertEquals(1000, policy.getDelayMillis());
+
+        for (int i = 1; i <= 160; i++) {
+            policy.record(i);
+        }
+        assertEquals(144, policy.getDelayMillis());
+
+        for (int i = 0; i < HedgePolicy.SAMPLES; i++) {
+            policy.record(1);
+        }
+        assertEquals(5, policy.getDelayMillis());
+    }
+
+    @Test
+    public void HedgedRequestsRaiseDelay() throws Exception {
+        HedgePolicy policy = new HedgePolicy(0.9, 10, 1000, 1.0);
+        final AtomicInteger slowCalls = new AtomicInteger(-1);
+        Transport transport = new Transport() {
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                // Once slow, first attempts (odd calls) take 300ms and their hedges 30ms
+                int call = slowCalls.get() < 0 ? -1 : slowCalls.incrementAndGet();
+                try {
+                    Thread.sleep(call < 0 ? 0 : call % 2 == 1 ? 300 : 30);
+                } catch (InterruptedException e) {
+                    throw new IOException("interrupted");
+                }
+                return new TransportResponse(200, new ByteArrayInputStream("{}".getBytes("UTF-8")));
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+
+        for (int i = 0; i < 32; i++) {
+            policy.execute(transport, get()).close();
+        }
+        assertEquals(10, policy.getDelayMillis());
+
+        // Every request is now won by its hedge; the cancelled first attempts still count
+        slowCalls.set(0);
+        for (int i = 0; i < 32; i++) {
+            policy.execute(transport, get()).close();
+        }
+        assertEquals(32, policy.getHedgeWins());
+        assertTrue(policy.getDelayMillis() >= 30);
+    }
+
+    @Test
+    public void RequestorHedgesGet() throws Exception {
+        SlowFirstTransport transport = new SlowFirstTransport(false);
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        client.setTransport(transport);
+        HedgePolicy policy = new HedgePolicy(0.95, 0, 20, 1.0);
+        client.setHedgePolicy(policy);
+
+        try {
+            assertEquals("{\"call\": 2}", IOUtils.toString(new Requestor().processRequestStream(client, "/v1/certificate/1234", "GET", null), "UTF-8"));
+        } finally {
+            transport.release.countDown();
+        }
+        assertEquals(1, policy.getHedgeWins());
+    }
+
+    @Test
+    public void BlockingAttemptsUseBoundedPool() throws Exception {
+        final HedgePolicy policy = new HedgePolicy(0.95, 0, 1000, 0);
+        final int callers = HedgePolicy.MAX_POOL_THREADS + 8;
+        final CountDownLatch started = new CountDownLatch(callers);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger onCaller = new AtomicInteger();
+        final Transport transport = new Transport() {
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                if (!Thread.currentThread().getName().startsWith("netki-hedge-")) {
+                    onCaller.incrementAndGet();
+                }
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException("interrupted");
+                }
+                return new TransportResponse(200, new ByteArrayInputStream("{}".getBytes("UTF-8")));
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> read(policy.execute(transport, get()))));
+            }
+
+            // Requests beyond the pool run on their callers instead of starting more threads
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(onCaller.get() >= 8);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("{}", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+        assertEquals(0, policy.getHedges());
+    }
+}
@@ -0,0 +1,128 @@
+package com.netki;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class JsonCodecTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void NameConstants()
+    {
+        assertEquals("first_name", CustomerDataCodec.FIRST_NAME);
+        assertEquals("dl_rta_number", IdentityDocumentCodec.DL_RTA_NUMBER);
+        assertEquals("", IdentityDocumentCodec.IDENTITY);
+        assertEquals("product_name", ProductCodec.NAME);
+        assertEquals("current_tier", ProductCodec.CURRENT_TIER_NAME);
+        assertEquals("nextroll_date", DomainCodec.NEXT_ROLL);
+        assertEquals("external_id", WalletNameCodec.EXTERNAL_ID);
+    }
+
+    @Test
+    public void EncodeCustomerData() throws Exception
+    {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-mm-dd");
+
+        CustomerData cd = new CustomerData();
+        cd.setFirstName("Testy");
+        cd.setStreetAddress("123 Main St.");
+        cd.setOrganizationName("Netki, Inc.");
+        cd.setDob(sdf.parse("1980-04-02"));
+
+        Map<String, String> out = new HashMap<String, String>();
+        CustomerDataCodec.encode(cd, "", "", out);
+
+        assertEquals(3, out.size());
+        assertEquals("Testy", out.get("first_name"));
+        assertEquals("123 Main St.", out.get("street_address"));
+        assertEquals("1980-04-02", out.get("dob"));
+        assertFalse(out.containsKey("organization_name"));
+    }
+
+    @Test
+    public void EncodeIdentityDocument() throws Exception
+    {
+        IdentityDocument id = new IdentityDocument();
+        id.setIdentity("P12345678");
+        id.setType("passport");
+        id.setDlRtaNumber("12345");
+        id.setExpiration(new SimpleDateFormat("yyyy-mm-dd").parse("2031-07-12"));
+
+        Map<String, String> out = new HashMap<String, String>();
+        IdentityDocumentCodec.encode(id, "identity_", "2", out);
+
+        assertEquals(4, out.size());
+        assertEquals("P12345678", out.get("identity_2"));
+        assertEquals("passport", out.get("identity_type2"));
+        assertEquals("12345", out.get("identity_dl_rta_number2"));
+        assertEquals("2031-07-12", out.get("identity_expiration2"));
+    }
+
+    @Test
+    public void DecodeWalletName() throws Exception
+    {
+        WalletName wn = WalletNameCodec.decode(
+                mapper.readTree("{\"id\": \"id\", \"domain_name\": \"domain.com\", \"name\": \"wallet\", \"external_id\": null}"),
+                new WalletName()
+        );
+
+        assertEquals("id", wn.getId());
+        assertEquals("domain.com", wn.getDomainName());
+        assertEquals("wallet", wn.getName());
+        assertNull(wn.getExternalId());
+    }
+
+    @Test
+    public void DecodeProduct() throws Exception
+    {
+        Product p = ProductCodec.decode(
+                mapper.readTree("{\"id\": \"pid\", \"product_name\": \"SSL\", \"current_tier\": \"tier1\", \"term\": 12}"),
+                new Product()
+        );
+
+        assertEquals("pid", p.getId());
+        assertEquals("SSL", p.getName());
+        assertEquals("tier1", p.getCurrentTierName());
+        assertEquals(12, p.getTerm());
+    }
+
+    @Test
+    public void DateFormatThreadSafe() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+            for (int i = 0; i < 8; i++) {
+                final String date = "2016-01-0" + (i + 1) + " 0" + (i + 1) + ":15:30";
+                tasks.add(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        Date parsed = DomainCodec.parseDate(date);
+                        if (!date.equals(DomainCodec.formatDate(parsed))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            }
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
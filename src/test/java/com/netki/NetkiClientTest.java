@@ -9,10 +9,13 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.ByteArrayInputStream;
 import java.security.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static com.netki.TestUtil.generateKey;
+import static com.netki.TestUtil.respondWith;
 import static java.util.Arrays.*;
 import static org.mockito.Mockito.*;
 import static org.junit.Assert.*;
@@ -60,6 +63,23 @@ public class NetkiClientTest {
         assertEquals("https://api.netki.com", netki.getApiUrl());
     }
 
+    @Test
+    public void TransportDefaultAndOverride()
+    {
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl);
+        assertNotNull(netki.getTransport());
+        assertSame(netki.getTransport(), netki.getTransport());
+        // Clients do not share a process-wide pool
+        assertNotSame(netki.getTransport(), new NetkiClient(this.partnerId, this.apiKey, this.apiUrl).getTransport());
+
+        Transport transport = mock(Transport.class);
+        netki.setTransport(transport);
+        assertSame(transport, netki.getTransport());
+
+        netki.setTransport(null);
+        assertNotSame(transport, netki.getTransport());
+    }
+
     @Test
     public void DistributedAccessInstantiation() {
         NetkiClient netki = null;
@@ -105,7 +125,7 @@ public class NetkiClientTest {
         WalletNameGetResponse.put("wallet_name_count", 0);
 
         try {
-            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("GET"), isNull(String.class))).thenReturn(mapper.writeValueAsString(WalletNameGetResponse));
+            when(this.mockRequestor.processRequestStream(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("GET"), isNull(String.class))).thenReturn(new ByteArrayInputStream(mapper.writeValueAsString(WalletNameGetResponse).getBytes()));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -120,7 +140,7 @@ public class NetkiClientTest {
 
         // Validate Call
         try {
-            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("GET"), anyString());
+            verify(this.mockRequestor, times(1)).processRequestStream(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("GET"), anyString());
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -153,7 +173,7 @@ public class NetkiClientTest {
         getResponse.put("wallet_names", new ArrayList<Object>(Collections.singletonList(walletNameObj)));
 
         try {
-            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/walletname?domain_name=domain.com&external_id=external_id"), eq("GET"), isNull(String.class))).thenReturn(mapper.writeValueAsString(getResponse));
+            when(this.mockRequestor.processRequestStream(any(NetkiClient.class), eq("/v1/partner/walletname?domain_name=domain.com&external_id=external_id"), eq("GET"), isNull(String.class))).thenReturn(new ByteArrayInputStream(mapper.writeValueAsString(getResponse).getBytes()));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -168,7 +188,7 @@ public class NetkiClientTest {
 
         // Validate Call
         try {
-            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/partner/walletname?domain_name=domain.com&external_id=external_id"), eq("GET"), anyString());
+            verify(this.mockRequestor, times(1)).processRequestStream(any(NetkiClient.class), eq("/v1/partner/walletname?domain_name=domain.com&external_id=external_id"), eq("GET"), anyString());
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -184,6 +204,84 @@ public class NetkiClientTest {
         assertTrue(results.get(0).getUsedCurrencies().contains("ltc"));
     }
 
+    @Test
+    public void IterateWalletNames() throws Exception
+    {
+        String response = "{\"success\": true, \"wallet_name_count\": 2, \"wallet_names\": [" +
+                "{\"id\": \"id1\", \"domain_name\": \"domain.com\", \"name\": \"wallet1\", \"external_id\": \"ext1\", \"wallets\": [{\"currency\": \"btc\", \"wallet_address\": \"1btcaddress\"}]}," +
+                "{\"id\": \"id2\", \"domain_name\": \"domain.com\", \"name\": \"wallet2\", \"external_id\": \"ext2\", \"wallets\": []}" +
+                "], \"message\": \"\"}";
+        when(this.mockRequestor.processRequestStream(any(NetkiClient.class), eq("/v1/partner/walletname?domain_name=domain.com"), eq("GET"), isNull(String.class))).thenReturn(new ByteArrayInputStream(response.getBytes("UTF-8")));
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        WalletNameIterator iterator = netki.iterateWalletNames("domain.com", null);
+
+        assertTrue(iterator.hasNext());
+        WalletName first = iterator.next();
+        assertEquals("id1", first.getId());
+        assertEquals("wallet1", first.getName());
+        assertEquals("ext1", first.getExternalId());
+        assertEquals("1btcaddress", first.getWalletAddress("btc"));
+        assertEquals(netki, first.getClient());
+
+        assertTrue(iterator.hasNext());
+        assertEquals("id2", iterator.next().getId());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void StreamWalletNames() throws Exception
+    {
+        when(this.mockRequestor.processRequestStream(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("GET"), isNull(String.class))).thenReturn(new ByteArrayInputStream("{\"wallet_name_count\": 0}".getBytes("UTF-8")));
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        try (Stream<WalletName> walletNames = netki.streamWalletNames(null, null)) {
+            assertEquals(0, walletNames.count());
+        }
+    }
+
+    @Test
+    public void IterateWalletNamesFailure() throws Exception
+    {
+        when(this.mockRequestor.processRequestStream(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("GET"), isNull(String.class))).thenReturn(new ByteArrayInputStream("{\"success\": false, \"message\": \"Error Message\", \"wallet_names\": []}".getBytes("UTF-8")));
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        try {
+            netki.iterateWalletNames(null, null);
+            fail("Expected Exception");
+        } catch (Exception e) {
+            assertEquals("Error Message", e.getMessage());
+        }
+    }
+
+    @Test
+    public void GetWalletNamesTrailingFailure() throws Exception
+    {
+        when(this.mockRequestor.processRequestStream(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("GET"), isNull(String.class))).thenReturn(new ByteArrayInputStream("{\"wallet_names\": [], \"success\": false, \"message\": \"Error Message\"}".getBytes("UTF-8")));
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        try {
+            netki.getWalletNames();
+            fail("Expected Exception");
+        } catch (Exception e) {
+            assertEquals("Error Message", e.getMessage());
+        }
+    }
+
+    @Test
+    public void GetWalletNamesFailureBeforeMessage() throws Exception
+    {
+        when(this.mockRequestor.processRequestStream(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("GET"), isNull(String.class))).thenReturn(new ByteArrayInputStream("{\"success\": false, \"wallet_names\": [{\"id\": \"id\"}], \"message\": \"Error Message\", \"failures\": [{\"message\": \"Failure 1\"}, {\"message\": \"Failure 2\"}]}".getBytes("UTF-8")));
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        try {
+            netki.getWalletNames();
+            fail("Expected Exception");
+        } catch (Exception e) {
+            assertEquals("Error Message [FAILURES: Failure 1,Failure 2]", e.getMessage());
+        }
+    }
+
     @Test
     public void CreateWalletName()
     {
@@ -224,12 +322,12 @@ public class NetkiClientTest {
 
         NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
         String respJson = "{\"products\": [{\"current_price\": {\"UK\": 200, \"US\": 100}, \"id\": \"id1\", \"current_tier\": \"Base Tier\", \"product_name\": \"Product1\"}, {\"current_price\": {\"DE\": 500, \"AU\": 1000}, \"id\": \"id2\", \"current_tier\": \"Expensive Tier\", \"product_name\": \"Product2\"}]}";
-        when(this.mockRequestor.processRequest(
+        when(this.mockRequestor.processRequestStream(
                 any(NetkiClient.class),
                 eq("/v1/certificate/products"),
                 eq("GET"),
                 anyString())
-        ).thenReturn(respJson);
+        ).thenReturn(new ByteArrayInputStream(respJson.getBytes()));
 
         List<Product> products = netki.getAvailableProducts();
 
@@ -252,12 +350,12 @@ public class NetkiClientTest {
     public void GetAvailableProducts_MissingData() throws Exception {
         NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
         String respJson = "{\"products\": [{\"id\": \"id1\", \"current_tier\": \"Base Tier\", \"product_name\": \"Product1\"}, {\"current_price\": {\"DE\": 500, \"AU\": 1000}, \"id\": \"id2\"}]}";
-        when(this.mockRequestor.processRequest(
+        when(this.mockRequestor.processRequestStream(
                 any(NetkiClient.class),
                 eq("/v1/certificate/products"),
                 eq("GET"),
                 anyString())
-        ).thenReturn(respJson);
+        ).thenReturn(new ByteArrayInputStream(respJson.getBytes()));
 
         List<Product> products = netki.getAvailableProducts();
 
@@ -278,12 +376,12 @@ public class NetkiClientTest {
     public void GetAvailableProducts_MissingID() throws Exception {
         NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
         String respJson = "{\"products\": [{\"current_tier\": \"Base Tier\", \"product_name\": \"Product1\"}, {\"current_price\": {\"DE\": 500, \"AU\": 1000}, \"id\": \"id2\"}]}";
-        when(this.mockRequestor.processRequest(
+        when(this.mockRequestor.processRequestStream(
                 any(NetkiClient.class),
                 eq("/v1/certificate/products"),
                 eq("GET"),
                 anyString())
-        ).thenReturn(respJson);
+        ).thenReturn(new ByteArrayInputStream(respJson.getBytes()));
 
         try {
             netki.getAvailableProducts();
@@ -301,13 +399,14 @@ public class NetkiClientTest {
                 any(NetkiClient.class),
                 eq("/v1/certificate/cacert"),
                 eq("GET"),
-                isNull(String.class))
-        ).thenReturn(respJson);
+                isNull(String.class),
+                any(ResponseHandler.class))
+        ).thenAnswer(respondWith(respJson));
 
         String bundle = netki.getCACertBundle();
         assertEquals("CACERT_PEMS", bundle);
 
-        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/certificate/cacert"), eq("GET"), isNull(String.class));
+        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/certificate/cacert"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
     }
 
     @Test
@@ -318,13 +417,14 @@ public class NetkiClientTest {
                 any(NetkiClient.class),
                 eq("/v1/certificate/cacert"),
                 eq("GET"),
-                isNull(String.class))
-        ).thenReturn(respJson);
+                isNull(String.class),
+                any(ResponseHandler.class))
+        ).thenAnswer(respondWith(respJson));
 
         String bundle = netki.getCACertBundle();
         assertEquals("", bundle);
 
-        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/certificate/cacert"), eq("GET"), isNull(String.class));
+        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/certificate/cacert"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
     }
 
     @Test
@@ -335,13 +435,14 @@ public class NetkiClientTest {
                 any(NetkiClient.class),
                 eq("/v1/certificate/balance"),
                 eq("GET"),
-                isNull(String.class))
-        ).thenReturn(respJson);
+                isNull(String.class),
+                any(ResponseHandler.class))
+        ).thenAnswer(respondWith(respJson));
 
         Integer balance = netki.getAccountBalance();
         assertEquals(100, balance.intValue());
 
-        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/certificate/balance"), eq("GET"), isNull(String.class));
+        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/certificate/balance"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
     }
 
     @Test
@@ -352,13 +453,14 @@ public class NetkiClientTest {
                 any(NetkiClient.class),
                 eq("/v1/certificate/balance"),
                 eq("GET"),
-                isNull(String.class))
-        ).thenReturn(respJson);
+                isNull(String.class),
+                any(ResponseHandler.class))
+        ).thenAnswer(respondWith(respJson));
 
         Integer balance = netki.getAccountBalance();
         assertEquals(0, balance.intValue());
 
-        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/certificate/balance"), eq("GET"), isNull(String.class));
+        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/certificate/balance"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
     }
 
 
@@ -405,7 +507,7 @@ public class NetkiClientTest {
     {
         Map<String, String> getResponse = new HashMap<String, String>();
         try {
-            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/admin/partner"), eq("GET"), isNull(String.class))).thenReturn(mapper.writeValueAsString(getResponse));
+            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/admin/partner"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith(mapper.writeValueAsString(getResponse)));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -420,7 +522,7 @@ public class NetkiClientTest {
 
         // Validate Call
         try {
-            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/admin/partner"), eq("GET"), isNull(String.class));
+            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/admin/partner"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -439,7 +541,7 @@ public class NetkiClientTest {
         getResponse.put("partners", Collections.singletonList(partnerObj));
 
         try {
-            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/admin/partner"), eq("GET"), isNull(String.class))).thenReturn(mapper.writeValueAsString(getResponse));
+            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/admin/partner"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith(mapper.writeValueAsString(getResponse)));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -454,7 +556,7 @@ public class NetkiClientTest {
 
         // Validate Call
         try {
-            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/admin/partner"), eq("GET"), isNull(String.class));
+            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/admin/partner"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -541,7 +643,7 @@ public class NetkiClientTest {
     {
         Map<String, String> getResponse = new HashMap<String, String>();
         try {
-            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class))).thenReturn(mapper.writeValueAsString(getResponse));
+            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith(mapper.writeValueAsString(getResponse)));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -556,7 +658,7 @@ public class NetkiClientTest {
 
         // Validate Call
         try {
-            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class));
+            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -581,8 +683,8 @@ public class NetkiClientTest {
         domainDnssecStatusData.put("nameservers", asList("ns1.domain.com", "ns2.domain.com"));
 
         try {
-            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), isNull(String.class))).thenReturn(mapper.writeValueAsString(domainStatusData));
-            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), isNull(String.class))).thenReturn(mapper.writeValueAsString(domainDnssecStatusData));
+            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith(mapper.writeValueAsString(domainStatusData)));
+            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith(mapper.writeValueAsString(domainDnssecStatusData)));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -595,7 +697,7 @@ public class NetkiClientTest {
         getResponse.put("domains", Collections.singletonList(domainObj));
 
         try {
-            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class))).thenReturn(mapper.writeValueAsString(getResponse));
+            when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith(mapper.writeValueAsString(getResponse)));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -610,7 +712,7 @@ public class NetkiClientTest {
 
         // Validate Call
         try {
-            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class));
+            verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -619,4 +721,152 @@ public class NetkiClientTest {
         assertEquals(netki, result.get(0).getClient());
     }
 
-}
+    @Test
+    public void GetDomainsVirtualThreads() throws Exception
+    {
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith("{\"domains\": [{\"domain_name\": \"domain.com\"}, {\"domain_name\": \"domain2.com\"}]}"));
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), startsWith("/v1/partner/domain/"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith("{\"status\": \"status\", \"delegation_status\": true, \"delegation_message\": \"delegated\", \"wallet_name_count\": 42}"));
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        netki.setExecutionMode(ExecutionMode.VIRTUAL_THREADS);
+        assertEquals(ExecutionMode.VIRTUAL_THREADS, netki.getExecutionMode());
+
+        List<Domain> result = netki.getDomains();
+
+        assertEquals(2, result.size());
+        assertEquals("domain.com", result.get(0).getName());
+        assertEquals("domain2.com", result.get(1).getName());
+        assertEquals("status", result.get(1).getStatus());
+        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain2.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
+        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain2.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
+
+        netki.setExecutionMode(ExecutionMode.SEQUENTIAL);
+    }
+
+    @Test
+    public void GetDomainsSkipDnssec() throws Exception
+    {
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith("{\"domains\": [{\"domain_name\": \"domain.com\"}, {\"domain_name\": \"domain2.com\"}]}"));
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), startsWith("/v1/partner/domain/"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith("{\"status\": \"status\", \"delegation_status\": true, \"delegation_message\": \"delegated\", \"wallet_name_count\": 42}"));
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        assertEquals(NetkiClient.DEFAULT_DOMAIN_LOAD_PARALLELISM, netki.getDomainLoadParallelism());
+        assertEquals(DnssecLoading.EAGER, netki.getDnssecLoading());
+        netki.setDomainLoadParallelism(1);
+        netki.setDnssecLoading(DnssecLoading.SKIP);
+
+        List<Domain> result = netki.getDomains();
+
+        assertEquals(2, result.size());
+        assertEquals("status", result.get(0).getStatus());
+        assertEquals("status", result.get(1).getStatus());
+        assertNull(result.get(1).getNextRoll());
+        verify(this.mockRequestor, times(2)).processRequest(any(NetkiClient.class), startsWith("/v1/partner/domain/domain"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
+        verify(this.mockRequestor, never()).processRequest(any(NetkiClient.class), startsWith("/v1/partner/domain/dnssec/"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
+    }
+
+    @Test
+    public void GetDomainsDeferredDnssec() throws Exception
+    {
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith("{\"domains\": [{\"domain_name\": \"domain.com\"}]}"));
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith("{\"status\": \"status\", \"delegation_status\": true, \"delegation_message\": \"delegated\", \"wallet_name_count\": 42}"));
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return respondWith("{\"public_key_signing_key\": \"PUBKEY\", \"ds_records\": [\"DS1\"], \"nameservers\": [\"ns1.domain.com\"]}").answer(invocation);
+        });
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        netki.setDnssecLoading(DnssecLoading.DEFERRED);
+
+        List<Domain> result = netki.getDomains();
+
+        assertEquals(1, result.size());
+        assertEquals("status", result.get(0).getStatus());
+        assertEquals("PUBKEY", result.get(0).getPublicKeySigningKey());
+        assertEquals(asList("DS1"), result.get(0).getDsRecords());
+        assertEquals(asList("ns1.domain.com"), result.get(0).getNameservers());
+    }
+
+    @Test
+    public void GetDomainsLazy() throws Exception
+    {
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith("{\"domains\": [{\"domain_name\": \"domain.com\"}, {\"domain_name\": \"domain2.com\"}]}"));
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith("{\"status\": \"status\", \"delegation_status\": true, \"delegation_message\": \"delegated\", \"wallet_name_count\": 42}"));
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith("{\"public_key_signing_key\": \"PUBKEY\", \"ds_records\": [\"DS1\"], \"nameservers\": [\"ns1.domain.com\"]}"));
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        assertFalse(netki.getLazyDomainLoading());
+        netki.setLazyDomainLoading(true);
+
+        List<Domain> result = netki.getDomains();
+
+        assertEquals(2, result.size());
+        assertEquals("domain2.com", result.get(1).getName());
+        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), anyString(), anyString(), isNull(String.class), any(ResponseHandler.class));
+
+        // Status group is loaded once, on first access
+        Domain domain = result.get(0);
+        assertEquals("status", domain.getStatus());
+        assertTrue(domain.getDelegationStatus());
+        assertEquals("delegated", domain.getDelegationMessage());
+        assertEquals(42, domain.getWalletNameCount());
+        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
+        verify(this.mockRequestor, never()).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
+
+        // DNSSEC group is loaded once, on first access
+        assertEquals(asList("DS1"), domain.getDsRecords());
+        assertEquals(asList("ns1.domain.com"), domain.getNameservers());
+        assertEquals("PUBKEY", domain.getPublicKeySigningKey());
+        verify(this.mockRequestor, times(1)).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
+
+        verify(this.mockRequestor, never()).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain2.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
+    }
+
+    @Test
+    public void GetDomainsLazyLoadFailureThrows() throws Exception
+    {
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/api/domain"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenAnswer(respondWith("{\"domains\": [{\"domain_name\": \"domain.com\"}]}"));
+        when(this.mockRequestor.processRequest(any(NetkiClient.class), eq("/v1/partner/domain/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class))).thenThrow(new Exception("HTTP Request Failed: refused"));
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        netki.setLazyDomainLoading(true);
+        Domain domain = netki.getDomains().get(0);
+
+        try {
+            domain.getStatus();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("HTTP Request Failed: refused", e.getCause().getMessage());
+        }
+
+        // Setting DNSSEC details replaces loading them
+        domain.setNameservers(asList("ns1.domain.com"));
+        assertEquals(asList("ns1.domain.com"), domain.getNameservers());
+        verify(this.mockRequestor, never()).processRequest(any(NetkiClient.class), eq("/v1/partner/domain/dnssec/domain.com"), eq("GET"), isNull(String.class), any(ResponseHandler.class));
+    }
+
+    @Test
+    public void SaveWalletNames() throws Exception
+    {
+        when(this.mockRequestor.processRequestBody(any(NetkiClient.class), eq("/v1/partner/walletname"), eq("PUT"), any(byte[].class))).thenReturn("{}");
+
+        NetkiClient netki = new NetkiClient(this.partnerId, this.apiKey, this.apiUrl, this.mockRequestor);
+        netki.setExecutionMode(ExecutionMode.VIRTUAL_THREADS);
+
+        List<WalletName> walletNames = new ArrayList<WalletName>();
+        for (int i = 0; i < 10; i++) {
+            WalletName wn = new WalletName(this.mockRequestor);
+            wn.setId("id" + i);
+            wn.setDomainName("domain.com");
+            wn.setName("wallet" + i);
+            walletNames.add(wn);
+        }
+
+        netki.saveWalletNames(walletNames);
+
+        // All ten updates fit in a single default-sized batch
+        verify(this.mockRequestor, times(1)).processRequestBody(eq(netki), eq("/v1/partner/walletname"), eq("PUT"), any(byte[].class));
+        netki.setExecutionMode(ExecutionMode.SEQUENTIAL);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.netki;
+
+import com.github.tomakehurst.wiremock.client.MappingBuilder;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.google.api.client.http.HttpStatusCodes;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.Assert.*;
+
+public class NioTransportTest {
+
+    private static final int IO_THREADS = 2;
+    private static final int CONCURRENT_REQUESTS = 5000;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(9191);
+    private NioTransport transport;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        // Stay under WireMock's request thread pool so every connection is served
+        this.transport = new NioTransport(IO_THREADS, 8, 8);
+        this.executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        this.transport.shutdown();
+        this.executor.shutdownNow();
+    }
+
+    public void setupHttpStub(String endpoint, RequestMethod method, int statusCode, String responseData) {
+        stubFor(new MappingBuilder(method, urlEqualTo(endpoint))
+                .willReturn(
+                        aResponse()
+                                .withStatus(statusCode)
+                                .withHeader("Content-Type", "application/json")
+                                .withBody(responseData)
+                )
+        );
+    }
+
+    @Test
+    public void ExecuteAsyncGoRight() throws Exception {
+        this.setupHttpStub("/endpoint", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_OK, "{\"success\":true}");
+
+        TransportResponse response = this.transport.executeAsync(new TransportRequest("GET", "http://localhost:9191/endpoint")).get();
+        try {
+            assertEquals(HttpStatusCodes.STATUS_CODE_OK, response.getStatusCode());
+            assertEquals("{\"success\":true}", IOUtils.toString(response.getContent(), "utf8"));
+        } finally {
+            response.close();
+        }
+    }
+
+    @Test
+    public void ExecuteBlockingGoRight() throws Exception {
+        this.setupHttpStub("/endpoint", RequestMethod.POST, HttpStatusCodes.STATUS_CODE_NOT_FOUND, "{\"success\":false}");
+
+        TransportRequest request = new TransportRequest("POST", "http://localhost:9191/endpoint");
+        request.setContent("post data".getBytes());
+
+        TransportResponse response = this.transport.execute(request);
+        try {
+            assertEquals(HttpStatusCodes.STATUS_CODE_NOT_FOUND, response.getStatusCode());
+        } finally {
+            response.close();
+        }
+
+        verify(postRequestedFor(urlMatching("/endpoint")).withRequestBody(matching("post data")));
+    }
+
+    @Test
+    public void ManyConcurrentRequestsOnBoundedThreads() throws Exception {
+        this.setupHttpStub("/v1/partner/walletname", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_OK, "{\"success\":true,\"wallet_name_count\":0}");
+
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        client.setTransport(this.transport);
+        Requestor requestor = new Requestor();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>(CONCURRENT_REQUESTS);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            futures.add(requestor.processRequestAsync(client, "/v1/partner/walletname", "GET", null, this.executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).get(120, TimeUnit.SECONDS);
+
+        for (CompletableFuture<String> future : futures) {
+            assertTrue(future.get().contains("\"success\":true"));
+        }
+
+        // Thousands of requests in flight, but only a handful of extra threads (I/O dispatchers, response executor, server)
+        assertTrue(threads.getPeakThreadCount() - baseline < 50);
+        assertEquals(0, this.transport.getTotalStats().getLeased());
+    }
+}
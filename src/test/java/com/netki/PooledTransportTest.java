@@ -0,0 +1,159 @@
+package com.netki;
+
+import com.github.tomakehurst.wiremock.client.MappingBuilder;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.google.api.client.http.HttpStatusCodes;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.Assert.*;
+
+public class PooledTransportTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(9191);
+    private PooledTransport transport;
+
+    @Before
+    public void setUp() {
+        this.transport = new PooledTransport(10, 5, 30000, 300000);
+    }
+
+    @After
+    public void tearDown() {
+        this.transport.shutdown();
+    }
+
+    public void setupHttpStub(String endpoint, RequestMethod method, int statusCode, String responseData) {
+        stubFor(new MappingBuilder(method, urlEqualTo(endpoint))
+                .willReturn(
+                        aResponse()
+                                .withStatus(statusCode)
+                                .withHeader("Content-Type", "application/json")
+                                .withBody(responseData)
+                )
+        );
+    }
+
+    @Test
+    public void ExecuteGetGoRight() throws Exception {
+        this.setupHttpStub("/endpoint", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_OK, "{\"success\":true}");
+
+        TransportRequest request = new TransportRequest("GET", "http://localhost:9191/endpoint");
+        request.setHeader("X-Partner-ID", "partner_id");
+
+        TransportResponse response = this.transport.execute(request);
+        try {
+            assertEquals(HttpStatusCodes.STATUS_CODE_OK, response.getStatusCode());
+            assertEquals("application/json", response.getHeader("content-type"));
+            assertEquals("{\"success\":true}", IOUtils.toString(response.getContent(), "utf8"));
+        } finally {
+            response.close();
+        }
+
+        verify(getRequestedFor(urlMatching("/endpoint")).withHeader("X-Partner-ID", equalTo("partner_id")));
+    }
+
+    @Test
+    public void ExecutePostSendsBody() throws Exception {
+        this.setupHttpStub("/endpoint", RequestMethod.POST, HttpStatusCodes.STATUS_CODE_OK, "{\"success\":true}");
+
+        TransportRequest request = new TransportRequest("POST", "http://localhost:9191/endpoint");
+        request.setContent("post data".getBytes());
+        this.transport.execute(request).close();
+
+        verify(postRequestedFor(urlMatching("/endpoint"))
+                .withHeader("Content-Type", containing("application/json"))
+                .withRequestBody(matching("post data")));
+    }
+
+    @Test
+    public void ExecuteErrorStatusIsReturned() throws Exception {
+        this.setupHttpStub("/endpoint", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_NOT_FOUND, "{\"success\":false}");
+
+        TransportResponse response = this.transport.execute(new TransportRequest("GET", "http://localhost:9191/endpoint"));
+        try {
+            assertEquals(HttpStatusCodes.STATUS_CODE_NOT_FOUND, response.getStatusCode());
+            assertEquals("{\"success\":false}", IOUtils.toString(response.getContent(), "utf8"));
+        } finally {
+            response.close();
+        }
+    }
+
+    @Test
+    public void ConnectionReturnedToPoolOnClose() throws Exception {
+        this.setupHttpStub("/endpoint", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_OK, "{\"success\":true}");
+
+        for (int i = 0; i < 3; i++) {
+            TransportResponse response = this.transport.execute(new TransportRequest("GET", "http://localhost:9191/endpoint"));
+            assertEquals(1, this.transport.getTotalStats().getLeased());
+            response.close();
+        }
+
+        // Keep-Alive: the single connection is reused and parked in the pool
+        assertEquals(0, this.transport.getTotalStats().getLeased());
+        assertEquals(1, this.transport.getTotalStats().getAvailable());
+        assertEquals(10, this.transport.getTotalStats().getMax());
+    }
+
+    @Test
+    public void PrepareOpensPooledConnection() throws Exception {
+        this.setupHttpStub("/endpoint", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_OK, "{\"success\":true}");
+
+        this.transport.prepare("http://localhost:9191/endpoint");
+
+        // Opened and parked in the pool without sending anything
+        assertEquals(0, this.transport.getTotalStats().getLeased());
+        assertEquals(1, this.transport.getTotalStats().getAvailable());
+        verify(0, getRequestedFor(urlMatching("/endpoint")));
+
+        this.transport.execute(new TransportRequest("GET", "http://localhost:9191/endpoint")).close();
+
+        // The request reused the prepared connection
+        assertEquals(1, this.transport.getTotalStats().getAvailable());
+        verify(1, getRequestedFor(urlMatching("/endpoint")));
+    }
+
+    @Test
+    public void ReleasedWhenContentCannotBeRead() throws Exception {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatusCodes.STATUS_CODE_OK, "OK");
+        response.setEntity(new BasicHttpEntity() {
+            @Override
+            public InputStream getContent() {
+                throw new IllegalStateException("Content has been consumed");
+            }
+        });
+        final AtomicBoolean released = new AtomicBoolean();
+
+        try {
+            PooledTransport.toTransportResponse(response, () -> released.set(true));
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Content has been consumed", e.getMessage());
+        }
+        assertTrue(released.get());
+    }
+
+    @Test
+    public void Limits() {
+        assertEquals(10, this.transport.getMaxTotal());
+        assertEquals(5, this.transport.getMaxPerRoute());
+
+        this.transport.setMaxTotal(20);
+        this.transport.setMaxPerRoute(10);
+
+        assertEquals(20, this.transport.getMaxTotal());
+        assertEquals(10, this.transport.getMaxPerRoute());
+    }
+}
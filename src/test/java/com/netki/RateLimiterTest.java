@@ -0,0 +1,136 @@
+package com.netki;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTest {
+
+    private final NetkiClient partner = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+    private final NetkiClient otherPartner = new NetkiClient("other_partner_id", "api_key", "http://localhost:9191");
+
+    @Test
+    public void BurstThenPaced() throws Exception {
+        RateLimiter limiter = new RateLimiter(5000);
+        limiter.setLimit(EndpointGroup.WALLET_NAMES, 10, 3);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(this.partner, "/v1/partner/walletname");
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 50);
+        assertEquals(0, limiter.getDelayedRequests());
+
+        limiter.acquire(this.partner, "/v1/partner/walletname?domain_name=domain.com");
+        limiter.acquire(this.partner, "/v1/partner/walletname/domain.com/id");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        assertEquals(2, limiter.getDelayedRequests());
+    }
+
+    @Test
+    public void BucketsArePerPartnerAndGroup() throws Exception {
+        RateLimiter limiter = new RateLimiter(0);
+        limiter.setLimit(EndpointGroup.WALLET_NAMES, 1, 1);
+        limiter.setLimit(EndpointGroup.DOMAINS, 1, 1);
+
+        limiter.acquire(this.partner, "/v1/partner/walletname");
+        limiter.acquire(this.otherPartner, "/v1/partner/walletname");
+        limiter.acquire(this.partner, "/v1/partner/domain/domain.com");
+
+        // Groups without a limit are not paced
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(this.partner, "/v1/certificate/products");
+        }
+        assertEquals(0, limiter.getRejectedRequests());
+    }
+
+    @Test
+    public void RejectsWhenWaitExceedsMaximum() throws Exception {
+        RateLimiter limiter = new RateLimiter(100);
+        limiter.setLimit(EndpointGroup.CERTIFICATES, 2, 1);
+
+        limiter.acquire(this.partner, "/v1/certificate");
+        for (int i = 0; i < 2; i++) {
+            try {
+                limiter.acquire(this.partner, "/v1/certificate/id");
+                fail("Expected NetkiException");
+            } catch (NetkiException e) {
+                assertEquals("Rate Limit Exceeded: CERTIFICATES", e.getMessage());
+            }
+        }
+        assertEquals(2, limiter.getRejectedRequests());
+
+        // Rejected requests did not use up tokens
+        Thread.sleep(500);
+        limiter.acquire(this.partner, "/v1/certificate/id");
+    }
+
+    @Test
+    public void AsyncAcquireDoesNotBlock() throws Exception {
+        RateLimiter limiter = new RateLimiter(5000);
+        limiter.setLimit(EndpointGroup.ADMIN, 5, 1);
+
+        assertTrue(limiter.acquireAsync(this.partner, "/v1/admin/partner").isDone());
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> paced = limiter.acquireAsync(this.partner, "/v1/admin/partner");
+        assertFalse(paced.isDone());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+
+        paced.get(5, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+
+        RateLimiter strict = new RateLimiter(0);
+        strict.setLimit(EndpointGroup.ADMIN, 1, 1);
+        strict.acquireAsync(this.partner, "/v1/admin/partner");
+        try {
+            strict.acquireAsync(this.partner, "/v1/admin/partner").get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NetkiException);
+        }
+    }
+
+    @Test
+    public void MatchesEndpointGroups() throws Exception {
+        assertEquals(EndpointGroup.WALLET_NAMES, EndpointGroup.match("/v1/partner/walletname?domain_name=domain.com"));
+        assertEquals(EndpointGroup.DOMAINS, EndpointGroup.match("/v1/partner/domain/dnssec/domain.com"));
+        assertEquals(EndpointGroup.CERTIFICATES, EndpointGroup.match("/v1/certificate/token"));
+        assertEquals(EndpointGroup.ADMIN, EndpointGroup.match("/v1/admin/partner/name"));
+    }
+
+    @Test
+    public void RequestorWaitsForToken() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        this.partner.setTransport(new Transport() {
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                calls.incrementAndGet();
+                return new TransportResponse(200, new ByteArrayInputStream("{}".getBytes("UTF-8")));
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        });
+        RateLimiter limiter = new RateLimiter(0);
+        limiter.setLimit(EndpointGroup.WALLET_NAMES, 1, 1);
+        this.partner.setRateLimiter(limiter);
+
+        new Requestor().processRequestStream(this.partner, "/v1/partner/walletname", "GET", null).close();
+        try {
+            new Requestor().processRequestStream(this.partner, "/v1/partner/walletname", "GET", null);
+            fail("Expected NetkiException");
+        } catch (NetkiException e) {
+            assertEquals("Rate Limit Exceeded: WALLET_NAMES", e.getMessage());
+        }
+        assertEquals(1, calls.get());
+    }
+}
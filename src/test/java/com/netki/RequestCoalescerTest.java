@@ -0,0 +1,234 @@
+package com.netki;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RequestCoalescerTest {
+
+    /**
+     * Transport that holds every request until released, answering with the call count
+     */
+    private static class GatedTransport implements Transport {
+
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<TransportRequest> requests = new ArrayList<TransportRequest>();
+
+        @Override
+        public TransportResponse execute(TransportRequest request) throws IOException {
+            synchronized (this.requests) {
+                this.requests.add(request);
+            }
+            int call = this.calls.incrementAndGet();
+            try {
+                this.release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted");
+            }
+            return new TransportResponse(200, new ByteArrayInputStream(("{\"call\": " + call + "}").getBytes("UTF-8")));
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static String read(InputStream content) throws Exception {
+        try {
+            return IOUtils.toString(content, "UTF-8");
+        } finally {
+            content.close();
+        }
+    }
+
+    /**
+     * Wait until count - 1 calls are waiting on a leader already in flight
+     */
+    private static void awaitCoalesced(RequestCoalescer coalescer, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalescer.getCoalescedRequests() < count - 1) {
+            assertTrue("timed out waiting for requests", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void ConcurrentIdenticalRequestsShareOneCall() throws Exception {
+        final GatedTransport transport = new GatedTransport();
+        final NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        client.setTransport(transport);
+        RequestCoalescer coalescer = new RequestCoalescer();
+        client.setRequestCoalescer(coalescer);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> read(new Requestor().processRequestStream(client, "/v1/certificate/products", "GET", null))));
+            }
+            awaitCoalesced(coalescer, 8);
+            assertEquals(1, coalescer.getInFlight());
+            transport.release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("{\"call\": 1}", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            transport.release.countDown();
+            pool.shutdown();
+        }
+
+        assertEquals(1, transport.calls.get());
+        assertEquals(8, coalescer.getRequests());
+        assertEquals(7, coalescer.getCoalescedRequests());
+        assertEquals(7.0 / 8, coalescer.getCoalescingRatio(), 0.0001);
+        assertEquals(0, coalescer.getInFlight());
+
+        // Once the call has completed, the next request makes its own
+        transport.calls.set(0);
+        assertEquals("{\"call\": 1}", read(new Requestor().processRequestStream(client, "/v1/certificate/products", "GET", null)));
+        assertEquals(1, transport.calls.get());
+    }
+
+    @Test
+    public void DifferentCredentialsAreNotCoalesced() throws Exception {
+        final GatedTransport transport = new GatedTransport();
+        RequestCoalescer coalescer = new RequestCoalescer();
+        final NetkiClient first = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        final NetkiClient second = new NetkiClient("partner_id", "other_api_key", "http://localhost:9191");
+        for (NetkiClient client : new NetkiClient[] {first, second}) {
+            client.setTransport(transport);
+            client.setRequestCoalescer(coalescer);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> a = pool.submit(() -> read(new Requestor().processRequestStream(first, "/v1/certificate/products", "GET", null)));
+            Future<String> b = pool.submit(() -> read(new Requestor().processRequestStream(second, "/v1/certificate/products", "GET", null)));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (transport.calls.get() < 2) {
+                assertTrue("timed out waiting for requests", System.currentTimeMillis() < deadline);
+                Thread.sleep(1);
+            }
+            transport.release.countDown();
+            assertNotEquals(a.get(5, TimeUnit.SECONDS), b.get(5, TimeUnit.SECONDS));
+        } finally {
+            transport.release.countDown();
+            pool.shutdown();
+        }
+
+        assertEquals(2, transport.calls.get());
+        assertEquals(0, coalescer.getCoalescedRequests());
+    }
+
+    @Test
+    public void FailureIsSharedWithCoalescedRequests() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<TransportResponse> failing = () -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw new Exception("HTTP Request Failed: refused");
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<TransportResponse>> results = new ArrayList<Future<TransportResponse>>();
+            for (int i = 0; i < 3; i++) {
+                results.add(pool.submit(() -> coalescer.execute("GET http://localhost/x", failing)));
+            }
+            awaitCoalesced(coalescer, 3);
+            release.countDown();
+
+            for (Future<TransportResponse> result : results) {
+                try {
+                    result.get(5, TimeUnit.SECONDS);
+                    fail("Expected Exception");
+                } catch (java.util.concurrent.ExecutionException e) {
+                    assertEquals("HTTP Request Failed: refused", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+
+        assertEquals(2, coalescer.getCoalescedRequests());
+        assertEquals(0, coalescer.getInFlight());
+    }
+
+    @Test
+    public void WritesAreNotCoalesced() throws Exception {
+        GatedTransport transport = new GatedTransport();
+        transport.release.countDown();
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        client.setTransport(transport);
+        RequestCoalescer coalescer = new RequestCoalescer();
+        client.setRequestCoalescer(coalescer);
+
+        read(new Requestor().processRequestStream(client, "/v1/certificate/products", "GET", null));
+        assertEquals(1, coalescer.getRequests());
+
+        new Requestor().processRequestStream(client, "/v1/partner/walletname", "POST", "{}").close();
+        assertEquals(1, coalescer.getRequests());
+        assertEquals(0.0, coalescer.getCoalescingRatio(), 0.0);
+    }
+
+    @Test
+    public void AsyncRequestsShareOneCall() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final CompletableFuture<TransportResponse> response = new CompletableFuture<TransportResponse>();
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        client.setTransport(new AsyncTransport() {
+            @Override
+            public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+                calls.incrementAndGet();
+                return response;
+            }
+
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                throw new IOException("blocking call");
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        });
+        RequestCoalescer coalescer = new RequestCoalescer();
+        client.setRequestCoalescer(coalescer);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<CompletableFuture<String>> results = new ArrayList<CompletableFuture<String>>();
+            for (int i = 0; i < 4; i++) {
+                results.add(new Requestor().processRequestAsync(client, "/v1/certificate/products", "GET", null, executor));
+            }
+            assertEquals(1, calls.get());
+            assertEquals(3, coalescer.getCoalescedRequests());
+
+            response.complete(new TransportResponse(200, new ByteArrayInputStream("{\"success\": true}".getBytes("UTF-8"))));
+            for (CompletableFuture<String> result : results) {
+                assertEquals("{\"success\": true}", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(0, coalescer.getInFlight());
+    }
+}
@@ -12,6 +12,7 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.InputStream;
 import java.security.*;
 import java.util.*;
 
@@ -22,7 +23,7 @@ import com.github.tomakehurst.wiremock.junit.WireMockRule;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 
-@PowerMockIgnore("javax.net.ssl.*")
+@PowerMockIgnore({"javax.*", "org.spongycastle.*", "org.mockito.*", "com.madgag.*"})
 @RunWith(PowerMockRunner.class)
 @PrepareForTest(Requestor.class)
 public class RequestorTest {
@@ -244,4 +245,220 @@ public class RequestorTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void ProcessRequestBodyGoRight() throws Exception
+    {
+        Map<String, Boolean> respData = new HashMap<String, Boolean>();
+        respData.put("success", true);
+        this.setupHttpStub("/endpoint", RequestMethod.POST, HttpStatusCodes.STATUS_CODE_OK, this.mapper.writeValueAsString(respData));
+
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        Requestor requestor = new Requestor();
+        String returnData = requestor.processRequestBody(client, "/endpoint", "POST", "{\"name\": \"w\u00e4llet\"}".getBytes("UTF-8"));
+
+        verify(postRequestedFor(urlMatching("/endpoint")).withRequestBody(equalTo("{\"name\": \"w\u00e4llet\"}")));
+        assertTrue(this.mapper.readTree(returnData).get("success").asBoolean());
+    }
+
+    @Test
+    public void BuildRequestSignsUrlAndBody() throws Exception
+    {
+        KeyPair userKey = generateKey("ECDSA");
+        NetkiClient client = new NetkiClient("partner_ksk_hex", "partner_ksk_sig_hex", userKey, "http://localhost:9191");
+        byte[] body = "{\"key\": \"value\"}".getBytes("UTF-8");
+
+        TransportRequest request = new Requestor().buildRequest(client, "/endpoint", "POST", body);
+
+        // Body is sent as-is, not copied
+        assertSame(body, request.getContent());
+
+        Signature verifier = Signature.getInstance("SHA256withECDSA", "SC");
+        verifier.initVerify(userKey.getPublic());
+        verifier.update((request.getUrl() + "{\"key\": \"value\"}").getBytes("UTF-8"));
+        assertTrue(verifier.verify(BaseEncoding.base16().decode(request.getHeaders().get("X-Signature"))));
+
+        // String data is encoded to the same bytes
+        TransportRequest stringRequest = new Requestor().buildRequest(client, "/endpoint", "POST", "{\"key\": \"value\"}");
+        assertArrayEquals(body, stringRequest.getContent());
+    }
+
+    @Test
+    public void PipelinedSigningPreparesConnectionAndSigns() throws Exception
+    {
+        this.setupHttpStubDistributedAccess("/endpoint", RequestMethod.POST, HttpStatusCodes.STATUS_CODE_OK, "{\"success\": true}");
+
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final List<TransportRequest> sent = new ArrayList<TransportRequest>();
+        final PooledTransport pooled = new PooledTransport();
+        Transport transport = new Transport() {
+            @Override
+            public void prepare(String url) throws java.io.IOException {
+                calls.add("prepare " + url);
+                pooled.prepare(url);
+            }
+
+            @Override
+            public TransportResponse execute(TransportRequest request) throws java.io.IOException {
+                calls.add("execute " + request.getUrl());
+                sent.add(request);
+                return pooled.execute(request);
+            }
+
+            @Override
+            public void shutdown() {
+                pooled.shutdown();
+            }
+        };
+
+        KeyPair userKey = RequestorTest.userKeyPair;
+        NetkiClient client = new NetkiClient("partner_ksk_hex", "partner_ksk_sig_hex", userKey, "http://localhost:9191");
+        client.setTransport(transport);
+        client.setPipelinedSigning(2);
+        assertEquals(2, client.getPipelinedSigningThreads());
+
+        try {
+            new Requestor().processRequestBody(client, "/endpoint", "POST", "{\"key\": \"value\"}".getBytes("UTF-8"));
+
+            assertEquals(Arrays.asList("prepare http://localhost:9191/endpoint", "execute http://localhost:9191/endpoint"), calls);
+
+            Signature verifier = Signature.getInstance("SHA256withECDSA", "SC");
+            verifier.initVerify(userKey.getPublic());
+            verifier.update("http://localhost:9191/endpoint{\"key\": \"value\"}".getBytes("UTF-8"));
+            assertTrue(verifier.verify(BaseEncoding.base16().decode(sent.get(0).getHeaders().get("X-Signature"))));
+        } finally {
+            client.setPipelinedSigning(0);
+            transport.shutdown();
+        }
+        assertEquals(0, client.getPipelinedSigningThreads());
+    }
+
+    @Test
+    public void ResponseCacheServesRepeatedGetsAndInvalidatesOnWrite() throws Exception
+    {
+        this.setupHttpStub("/v1/partner/domain/example.com", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_OK, "{\"success\": true, \"status\": \"ok\"}");
+        this.setupHttpStub("/v1/partner/walletname/example.com/id", RequestMethod.DELETE, HttpStatusCodes.STATUS_CODE_NO_CONTENT, "");
+
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        ResponseCache cache = new ResponseCache(10);
+        cache.setPolicy(CachedEndpoint.DOMAIN_STATUS, 60000, 0);
+        client.setResponseCache(cache);
+        Requestor requestor = new Requestor();
+
+        for (int i = 0; i < 3; i++) {
+            String returnData = requestor.processRequest(client, "/v1/partner/domain/example.com", "GET", null);
+            assertEquals("ok", this.mapper.readTree(returnData).get("status").asText());
+        }
+        verify(1, getRequestedFor(urlEqualTo("/v1/partner/domain/example.com")));
+
+        // Deleting a wallet name changes the domain's wallet name count
+        requestor.processRequest(client, "/v1/partner/walletname/example.com/id", "DELETE", null);
+        requestor.processRequest(client, "/v1/partner/domain/example.com", "GET", null);
+        verify(2, getRequestedFor(urlEqualTo("/v1/partner/domain/example.com")));
+    }
+
+    @Test
+    public void ResponseCacheSkipsApiFailures() throws Exception
+    {
+        this.setupHttpStub("/v1/partner/domain/example.com", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_OK, "{\"success\": false, \"message\": \"Domain Not Found\"}");
+
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        ResponseCache cache = new ResponseCache(10);
+        cache.setPolicy(CachedEndpoint.DOMAIN_STATUS, 60000, 60000);
+        client.setResponseCache(cache);
+        Requestor requestor = new Requestor();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                requestor.processRequest(client, "/v1/partner/domain/example.com", "GET", null);
+                fail("Expected Exception");
+            } catch (Exception e) {
+                assertEquals("Domain Not Found", e.getMessage());
+            }
+        }
+        assertEquals(0, cache.size());
+        verify(2, getRequestedFor(urlEqualTo("/v1/partner/domain/example.com")));
+    }
+
+    @Test
+    public void ResponseCacheRevalidatesWithEtag() throws Exception
+    {
+        String walletNames = "{\"success\": true, \"wallet_names\": []}";
+        stubFor(get(urlEqualTo("/v1/partner/walletname"))
+                .willReturn(aResponse().withStatus(HttpStatusCodes.STATUS_CODE_OK).withHeader("ETag", "\"v1\"").withBody(walletNames)));
+        stubFor(get(urlEqualTo("/v1/partner/walletname"))
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304).withHeader("ETag", "\"v1\"")));
+
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        ResponseCache cache = new ResponseCache(10);
+        cache.setRevalidatePolicy(CachedEndpoint.WALLET_NAMES);
+        client.setResponseCache(cache);
+        Requestor requestor = new Requestor();
+
+        assertEquals(walletNames, requestor.processRequest(client, "/v1/partner/walletname", "GET", null));
+        assertEquals(walletNames, requestor.processRequest(client, "/v1/partner/walletname", "GET", null));
+
+        verify(2, getRequestedFor(urlEqualTo("/v1/partner/walletname")));
+        verify(1, getRequestedFor(urlEqualTo("/v1/partner/walletname")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+
+    @Test
+    public void ProcessRequestStreamGoRight() throws Exception
+    {
+        this.setupHttpStub("/endpoint", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_OK, "{\"success\": true}");
+
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        Requestor requestor = new Requestor();
+        InputStream content = requestor.processRequestStream(client, "/endpoint", "GET", null);
+        try {
+            assertTrue(this.mapper.readTree(content).get("success").asBoolean());
+        } finally {
+            content.close();
+        }
+    }
+
+    @Test
+    public void ProcessRequestStreamErrorStatus() throws Exception
+    {
+        this.setupHttpStub("/endpoint", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_SERVER_ERROR, "{\"success\": false, \"message\": \"Error Message\"}");
+
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        Requestor requestor = new Requestor();
+        try {
+            requestor.processRequestStream(client, "/endpoint", "GET", null);
+            fail("Expected Exception");
+        } catch (Exception e) {
+            assertEquals("Error Message", e.getMessage());
+        }
+    }
+
+    @Test
+    public void ProcessRequestTypedGoRight() throws Exception
+    {
+        this.setupHttpStub("/endpoint", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_OK, "{\"success\": true, \"available_balance\": 42}");
+
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        Requestor requestor = new Requestor();
+        Integer balance = requestor.processRequest(client, "/endpoint", "GET", null, data -> data.get("available_balance").asInt());
+
+        assertEquals(Integer.valueOf(42), balance);
+    }
+
+    @Test
+    public void ProcessRequestTypedFailure() throws Exception
+    {
+        this.setupHttpStub("/endpoint", RequestMethod.GET, HttpStatusCodes.STATUS_CODE_OK, "{\"success\": false, \"message\": \"Error Message\", \"failures\": [{\"message\": \"Failure 1\"}]}");
+
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        Requestor requestor = new Requestor();
+        try {
+            requestor.processRequest(client, "/endpoint", "GET", null, data -> {
+                fail("Handler called for failed response");
+                return null;
+            });
+            fail("Expected Exception");
+        } catch (Exception e) {
+            assertEquals("Error Message [FAILURES: Failure 1]", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.netki;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ResponseCacheTest {
+
+    private static final String KEY_PREFIX = "GET https://api.netki.com\n";
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<Runnable> refreshes = new ArrayList<Runnable>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ResponseCache newCache(int maxEntries) {
+        ResponseCache cache = new ResponseCache(maxEntries, refreshes::add, now::get);
+        cache.setPolicy(CachedEndpoint.AVAILABLE_PRODUCTS, 1000, 500);
+        cache.setPolicy(CachedEndpoint.DOMAIN_STATUS, 1000, 0);
+        cache.setPolicy(CachedEndpoint.DOMAIN_DNSSEC, 1000, 0);
+        cache.setPolicy(CachedEndpoint.WALLET_NAMES, 1000, 0);
+        return cache;
+    }
+
+    /**
+     * Loader answering with the load count as the body
+     */
+    private ResponseCache.Loader loader(final int statusCode) {
+        return headers -> {
+            TransportResponse response = new TransportResponse(statusCode, new ByteArrayInputStream(String.valueOf(loads.incrementAndGet()).getBytes("UTF-8")));
+            response.setHeader("Content-Type", "application/json");
+            return response;
+        };
+    }
+
+    /**
+     * Get a response with one client's credentials, caching any 2xx
+     */
+    private static TransportResponse get(ResponseCache cache, String uri, ResponseCache.Loader loader) throws Exception {
+        return cache.get(KEY_PREFIX + uri, uri, loader, content -> true);
+    }
+
+    private static String body(TransportResponse response) throws Exception {
+        try {
+            return IOUtils.toString(response.getContent(), "UTF-8");
+        } finally {
+            response.close();
+        }
+    }
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    public void MatchEndpoints() {
+        assertEquals(CachedEndpoint.AVAILABLE_PRODUCTS, CachedEndpoint.match("/v1/certificate/products"));
+        assertEquals(CachedEndpoint.CA_CERT_BUNDLE, CachedEndpoint.match("/v1/certificate/cacert"));
+        assertEquals(CachedEndpoint.DOMAIN_STATUS, CachedEndpoint.match("/v1/partner/domain/example.com"));
+        assertEquals(CachedEndpoint.DOMAIN_DNSSEC, CachedEndpoint.match("/v1/partner/domain/dnssec/example.com"));
+        assertEquals(CachedEndpoint.WALLET_NAMES, CachedEndpoint.match("/v1/partner/walletname"));
+        assertEquals(CachedEndpoint.WALLET_NAMES, CachedEndpoint.match("/v1/partner/walletname?domain_name=example.com&external_id=x"));
+
+        assertNull(CachedEndpoint.match("/v1/partner/domain"));
+        assertNull(CachedEndpoint.match("/v1/partner/domain/"));
+        assertNull(CachedEndpoint.match("/v1/certificate/balance"));
+        assertNull(CachedEndpoint.match("/v1/partner/walletname/example.com/id"));
+    }
+
+    @Test
+    public void FreshResponseIsServedFromCache() throws Exception {
+        ResponseCache cache = newCache(10);
+
+        assertEquals("1", body(get(cache, "/v1/certificate/products", loader(200))));
+        advanceMillis(999);
+        TransportResponse cached = get(cache, "/v1/certificate/products", loader(200));
+        assertEquals(200, cached.getStatusCode());
+        assertEquals("application/json", cached.getHeader("content-type"));
+        assertEquals("1", body(cached));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void StaleResponseIsServedWhileOneRefreshRuns() throws Exception {
+        ResponseCache cache = newCache(10);
+        body(get(cache, "/v1/certificate/products", loader(200)));
+
+        advanceMillis(1200);
+        assertEquals("1", body(get(cache, "/v1/certificate/products", loader(200))));
+        assertEquals("1", body(get(cache, "/v1/certificate/products", loader(200))));
+        assertEquals(1, refreshes.size());
+        assertEquals(1, loads.get());
+
+        refreshes.get(0).run();
+        assertEquals("2", body(get(cache, "/v1/certificate/products", loader(200))));
+        assertEquals(1, refreshes.size());
+    }
+
+    @Test
+    public void ExpiredResponseIsLoaded() throws Exception {
+        ResponseCache cache = newCache(10);
+        body(get(cache, "/v1/certificate/products", loader(200)));
+
+        advanceMillis(1500);
+        assertEquals("2", body(get(cache, "/v1/certificate/products", loader(200))));
+        assertEquals(0, refreshes.size());
+    }
+
+    @Test
+    public void ErrorResponsesAreNotCached() throws Exception {
+        ResponseCache cache = newCache(10);
+
+        assertEquals(404, get(cache, "/v1/partner/domain/example.com", loader(404)).getStatusCode());
+        assertEquals(0, cache.size());
+        assertEquals("2", body(get(cache, "/v1/partner/domain/example.com", loader(200))));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void SizeIsCapped() throws Exception {
+        ResponseCache cache = newCache(2);
+
+        body(get(cache, "/v1/partner/domain/a.com", loader(200)));
+        body(get(cache, "/v1/partner/domain/b.com", loader(200)));
+        body(get(cache, "/v1/partner/domain/a.com", loader(200)));
+        body(get(cache, "/v1/partner/domain/c.com", loader(200)));
+
+        // b.com was least recently used
+        assertEquals(2, cache.size());
+        assertEquals("1", body(get(cache, "/v1/partner/domain/a.com", loader(200))));
+        assertEquals("4", body(get(cache, "/v1/partner/domain/b.com", loader(200))));
+    }
+
+    @Test
+    public void EndpointsWithoutPolicyAreNotCached() {
+        ResponseCache cache = newCache(10);
+
+        assertTrue(cache.isCached("/v1/certificate/products"));
+        assertFalse(cache.isCached("/v1/certificate/cacert"));
+        assertFalse(cache.isCached("/v1/certificate/balance"));
+
+        cache.setPolicy(CachedEndpoint.AVAILABLE_PRODUCTS, 0, 0);
+        assertFalse(cache.isCached("/v1/certificate/products"));
+        assertEquals(0, cache.getTtlMillis(CachedEndpoint.AVAILABLE_PRODUCTS));
+        assertEquals(1000, cache.getTtlMillis(CachedEndpoint.DOMAIN_STATUS));
+    }
+
+    @Test
+    public void WalletNameWritesInvalidateLookupsAndDomainStatus() throws Exception {
+        ResponseCache cache = newCache(10);
+        body(get(cache, "/v1/partner/walletname?domain_name=a.com", loader(200)));
+        body(get(cache, "/v1/partner/domain/a.com", loader(200)));
+        body(get(cache, "/v1/partner/domain/b.com", loader(200)));
+        body(get(cache, "/v1/partner/domain/dnssec/a.com", loader(200)));
+        body(get(cache, "/v1/certificate/products", loader(200)));
+
+        cache.invalidateAfterWrite("GET", "/v1/partner/walletname");
+        assertEquals(5, cache.size());
+
+        // DELETE names the domain
+        cache.invalidateAfterWrite("DELETE", "/v1/partner/walletname/a.com/id");
+        assertEquals(3, cache.size());
+        assertEquals("3", body(get(cache, "/v1/partner/domain/b.com", loader(200))));
+
+        // POST / PUT bodies may cover any domain
+        body(get(cache, "/v1/partner/walletname?domain_name=a.com", loader(200)));
+        cache.invalidateAfterWrite("PUT", "/v1/partner/walletname");
+        assertEquals(2, cache.size());
+        assertEquals("4", body(get(cache, "/v1/partner/domain/dnssec/a.com", loader(200))));
+        assertEquals("5", body(get(cache, "/v1/certificate/products", loader(200))));
+    }
+
+    @Test
+    public void DomainDeleteInvalidatesDomainEntries() throws Exception {
+        ResponseCache cache = newCache(10);
+        body(get(cache, "/v1/partner/domain/a.com", loader(200)));
+        body(get(cache, "/v1/partner/domain/dnssec/a.com", loader(200)));
+        body(get(cache, "/v1/partner/domain/b.com", loader(200)));
+        body(get(cache, "/v1/partner/walletname", loader(200)));
+
+        cache.invalidateAfterWrite("DELETE", "/v1/partner/domain/a.com");
+
+        assertEquals(1, cache.size());
+        assertEquals("3", body(get(cache, "/v1/partner/domain/b.com", loader(200))));
+    }
+
+    @Test
+    public void LoadOverlappingInvalidationIsNotCached() throws Exception {
+        final ResponseCache cache = newCache(10);
+
+        TransportResponse response = get(cache, "/v1/partner/walletname", headers -> {
+            TransportResponse loaded = loader(200).load(headers);
+            // A write completes while this response is in flight
+            cache.invalidateAfterWrite("POST", "/v1/partner/walletname");
+            return loaded;
+        });
+
+        assertEquals("1", body(response));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void FailedRefreshIsRetried() throws Exception {
+        ResponseCache cache = newCache(10);
+        body(get(cache, "/v1/certificate/products", loader(200)));
+        advanceMillis(1200);
+
+        body(get(cache, "/v1/certificate/products", headers -> {
+            throw new Exception("HTTP Request Failed: refused");
+        }));
+        refreshes.get(0).run();
+
+        assertEquals("1", body(get(cache, "/v1/certificate/products", loader(200))));
+        assertEquals(2, refreshes.size());
+    }
+
+    /**
+     * Loader answering 304 when sent the expected validators, recording the headers it was sent
+     */
+    private ResponseCache.Loader conditionalLoader(final List<Map<String, String>> sent) {
+        return headers -> {
+            sent.add(new HashMap<String, String>(headers));
+            int n = loads.incrementAndGet();
+            if ("\"v1\"".equals(headers.get("If-None-Match"))) {
+                TransportResponse notModified = new TransportResponse(304, null);
+                notModified.setHeader("ETag", "\"v1\"");
+                return notModified;
+            }
+            TransportResponse response = new TransportResponse(200, new ByteArrayInputStream(String.valueOf(n).getBytes("UTF-8")));
+            response.setHeader("ETag", "\"v1\"");
+            response.setHeader("Last-Modified", "Wed, 21 Oct 2026 07:28:00 GMT");
+            return response;
+        };
+    }
+
+    @Test
+    public void ExpiredResponseIsRevalidated() throws Exception {
+        ResponseCache cache = newCache(10);
+        List<Map<String, String>> sent = new ArrayList<Map<String, String>>();
+
+        assertEquals("1", body(get(cache, "/v1/partner/walletname", conditionalLoader(sent))));
+        assertTrue(sent.get(0).isEmpty());
+
+        advanceMillis(1000);
+        TransportResponse revalidated = get(cache, "/v1/partner/walletname", conditionalLoader(sent));
+        assertEquals(200, revalidated.getStatusCode());
+        assertEquals("1", body(revalidated));
+        assertEquals("\"v1\"", sent.get(1).get("If-None-Match"));
+        assertEquals("Wed, 21 Oct 2026 07:28:00 GMT", sent.get(1).get("If-Modified-Since"));
+
+        // Renewed for another TTL
+        advanceMillis(999);
+        assertEquals("1", body(get(cache, "/v1/partner/walletname", conditionalLoader(sent))));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void RevalidatePolicyAlwaysSendsConditionalRequest() throws Exception {
+        ResponseCache cache = newCache(10);
+        cache.setRevalidatePolicy(CachedEndpoint.CA_CERT_BUNDLE);
+        List<Map<String, String>> sent = new ArrayList<Map<String, String>>();
+
+        assertTrue(cache.isCached("/v1/certificate/cacert"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals("1", body(get(cache, "/v1/certificate/cacert", conditionalLoader(sent))));
+        }
+        assertEquals(3, loads.get());
+        assertTrue(sent.get(0).isEmpty());
+        assertEquals("\"v1\"", sent.get(2).get("If-None-Match"));
+    }
+
+    @Test
+    public void ResponseWithoutValidatorsIsFetchedInFull() throws Exception {
+        ResponseCache cache = newCache(10);
+        cache.setRevalidatePolicy(CachedEndpoint.CA_CERT_BUNDLE);
+        final List<Map<String, String>> sent = new ArrayList<Map<String, String>>();
+        final ResponseCache.Loader plain = loader(200);
+
+        body(get(cache, "/v1/certificate/cacert", headers -> {
+            sent.add(headers);
+            return plain.load(headers);
+        }));
+        assertEquals("2", body(get(cache, "/v1/certificate/cacert", headers -> {
+            sent.add(headers);
+            return plain.load(headers);
+        })));
+        assertTrue(sent.get(1).isEmpty());
+    }
+
+    @Test
+    public void ResponsesAreCachedPerCredentials() throws Exception {
+        ResponseCache cache = newCache(10);
+        String uri = "/v1/partner/domain/example.com";
+
+        assertEquals("1", body(cache.get(KEY_PREFIX + "partner_a" + uri, uri, loader(200), content -> true)));
+        assertEquals("2", body(cache.get(KEY_PREFIX + "partner_b" + uri, uri, loader(200), content -> true)));
+        assertEquals("1", body(cache.get(KEY_PREFIX + "partner_a" + uri, uri, loader(200), content -> true)));
+        assertEquals(2, cache.size());
+
+        // A write through either client invalidates both
+        cache.invalidateAfterWrite("DELETE", uri);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void RejectedResponseIsNotCached() throws Exception {
+        ResponseCache cache = newCache(10);
+
+        assertEquals("1", body(cache.get(KEY_PREFIX, "/v1/certificate/products", loader(200), content -> false)));
+        assertEquals(0, cache.size());
+        assertEquals("2", body(get(cache, "/v1/certificate/products", loader(200))));
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,200 @@
+package com.netki;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+
+    /**
+     * Transport answering each request with the next scripted status, or failing where the script has null
+     */
+    private static class ScriptedTransport implements Transport {
+
+        final LinkedList<Integer> script;
+        final List<TransportRequest> requests = new ArrayList<TransportRequest>();
+        final List<Boolean> closed = new ArrayList<Boolean>();
+
+        ScriptedTransport(Integer... statuses) {
+            this.script = new LinkedList<Integer>(Arrays.asList(statuses));
+        }
+
+        @Override
+        public TransportResponse execute(TransportRequest request) throws IOException {
+            this.requests.add(request);
+            Integer status = this.script.removeFirst();
+            if (status == null) {
+                throw new SocketException("Connection reset");
+            }
+            final int index = this.closed.size();
+            this.closed.add(false);
+            TransportResponse response = new TransportResponse(status, new ByteArrayInputStream(("{\"status\": " + status + "}").getBytes("UTF-8"))) {
+                @Override
+                public void close() throws IOException {
+                    closed.set(index, true);
+                    super.close();
+                }
+            };
+            return response;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static TransportRequest request(String method) {
+        return new TransportRequest(method, "http://localhost:9191/v1/partner/walletname");
+    }
+
+    @Test
+    public void RetriesConnectionFailuresAndServerErrors() throws Exception {
+        RetryPolicy policy = new RetryPolicy(4, 1, 5, 5000);
+        ScriptedTransport transport = new ScriptedTransport(null, 503, 200);
+
+        TransportResponse response = policy.execute(transport, request("GET"));
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(3, transport.requests.size());
+        assertTrue(transport.closed.get(0));
+        assertFalse(transport.closed.get(1));
+        assertEquals(2, policy.getRetries());
+        assertEquals(1, policy.getRecoveredRequests());
+        assertEquals(0, policy.getExhaustedRequests());
+    }
+
+    @Test
+    public void ReturnsLastResponseWhenAttemptsRunOut() throws Exception {
+        RetryPolicy policy = new RetryPolicy(3, 1, 5, 5000);
+        ScriptedTransport transport = new ScriptedTransport(502, 429, 504, 200);
+
+        TransportResponse response = policy.execute(transport, request("DELETE"));
+
+        assertEquals(504, response.getStatusCode());
+        assertEquals(3, transport.requests.size());
+        assertEquals(2, policy.getRetries());
+        assertEquals(1, policy.getExhaustedRequests());
+    }
+
+    @Test
+    public void RethrowsLastFailureWhenAttemptsRunOut() throws Exception {
+        RetryPolicy policy = new RetryPolicy(2, 1, 5, 5000);
+        ScriptedTransport transport = new ScriptedTransport(null, null);
+
+        try {
+            policy.execute(transport, request("PUT"));
+            fail("Expected IOException");
+        } catch (SocketException e) {
+            assertEquals("Connection reset", e.getMessage());
+        }
+        assertEquals(2, transport.requests.size());
+        assertEquals(1, policy.getExhaustedRequests());
+    }
+
+    @Test
+    public void ClientErrorsAreNotRetried() throws Exception {
+        RetryPolicy policy = new RetryPolicy(3, 1, 5, 5000);
+
+        assertEquals(400, policy.execute(new ScriptedTransport(400), request("GET")).getStatusCode());
+        assertEquals(501, policy.execute(new ScriptedTransport(501), request("GET")).getStatusCode());
+        assertEquals(0, policy.getRetries());
+    }
+
+    @Test
+    public void PostIsRetriedOnlyWithIdempotencyKey() throws Exception {
+        RetryPolicy policy = new RetryPolicy(3, 1, 5, 5000);
+
+        ScriptedTransport transport = new ScriptedTransport(503, 200);
+        assertEquals(503, policy.execute(transport, request("POST")).getStatusCode());
+        assertEquals(1, transport.requests.size());
+        assertEquals(0, policy.getRetries());
+
+        policy.setIdempotencyKeys(true);
+        transport = new ScriptedTransport(503, 200);
+        assertEquals(200, policy.execute(transport, request("POST")).getStatusCode());
+        assertEquals(2, transport.requests.size());
+
+        String key = transport.requests.get(0).getHeaders().get(RetryPolicy.IDEMPOTENCY_KEY);
+        assertNotNull(key);
+        assertSame(transport.requests.get(0), transport.requests.get(1));
+
+        // A key set by the caller is kept
+        TransportRequest keyed = request("POST");
+        keyed.setHeader("idempotency-key", "order-1");
+        transport = new ScriptedTransport(503, 200);
+        assertEquals(200, policy.execute(transport, keyed).getStatusCode());
+        assertNull(keyed.getHeaders().get(RetryPolicy.IDEMPOTENCY_KEY));
+        assertEquals("order-1", keyed.getHeaders().get("idempotency-key"));
+    }
+
+    @Test
+    public void RetryAfterBeyondBudgetStopsRetrying() throws Exception {
+        RetryPolicy policy = new RetryPolicy(5, 1, 5, 500);
+
+        TransportResponse unavailable = new TransportResponse(503, new ByteArrayInputStream(new byte[0]));
+        unavailable.setHeader("Retry-After", "2");
+        assertTrue(policy.delay(1, unavailable) >= 2000);
+
+        long start = System.currentTimeMillis();
+
+        ScriptedTransport throttled = new ScriptedTransport(429, 200) {
+            @Override
+            public TransportResponse execute(TransportRequest request) throws IOException {
+                TransportResponse response = super.execute(request);
+                response.setHeader("Retry-After", "2");
+                return response;
+            }
+        };
+        assertEquals(429, policy.execute(throttled, request("GET")).getStatusCode());
+        assertEquals(1, throttled.requests.size());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    public void DelayIsJitteredWithinExponentialCap() throws Exception {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 5000);
+
+        for (int i = 0; i < 100; i++) {
+            long first = policy.delay(1, null);
+            assertTrue(first >= 0 && first <= 100);
+            long third = policy.delay(3, null);
+            assertTrue(third >= 0 && third <= 400);
+            long capped = policy.delay(40, null);
+            assertTrue(capped >= 0 && capped <= 1000);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void RejectsNoAttempts() throws Exception {
+        new RetryPolicy(0, 1, 5, 5000);
+    }
+
+    @Test
+    public void RequestorRetriesTransientFailure() throws Exception {
+        ScriptedTransport transport = new ScriptedTransport(null, 502, 200);
+        NetkiClient client = new NetkiClient("partner_id", "api_key", "http://localhost:9191");
+        client.setTransport(transport);
+        RetryPolicy policy = new RetryPolicy(3, 1, 5, 5000);
+        client.setRetryPolicy(policy);
+
+        InputStream content = new Requestor().processRequestStream(client, "/v1/partner/walletname", "GET", null);
+        try {
+            assertEquals("{\"status\": 200}", IOUtils.toString(content, "UTF-8"));
+        } finally {
+            content.close();
+        }
+        assertEquals(3, transport.requests.size());
+        assertEquals("api_key", transport.requests.get(2).getHeaders().get("Authorization"));
+        assertEquals(1, policy.getRecoveredRequests());
+    }
+}
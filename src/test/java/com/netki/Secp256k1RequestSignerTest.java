@@ -0,0 +1,143 @@
+package com.netki;
+
+import com.google.common.io.BaseEncoding;
+import org.junit.Test;
+import org.spongycastle.asn1.ASN1Integer;
+import org.spongycastle.asn1.ASN1Sequence;
+import org.spongycastle.jce.ECNamedCurveTable;
+import org.spongycastle.jce.provider.BouncyCastleProvider;
+import org.spongycastle.jce.spec.ECParameterSpec;
+import org.spongycastle.jce.spec.ECPrivateKeySpec;
+import org.spongycastle.jce.spec.ECPublicKeySpec;
+
+import java.math.BigInteger;
+import java.security.*;
+import java.util.Arrays;
+
+import static com.netki.TestUtil.generateKey;
+import static org.junit.Assert.*;
+
+public class Secp256k1RequestSignerTest {
+
+    private static KeyPair userKey = generateKey("ECDSA");
+
+    private static boolean verify(KeyPair key, String url, byte[] body, byte[] sig) throws Exception {
+        Signature verifier = Signature.getInstance("SHA256withECDSA", "SC");
+        verifier.initVerify(key.getPublic());
+        verifier.update(url.getBytes("UTF-8"));
+        if (body != null) {
+            verifier.update(body);
+        }
+        return verifier.verify(sig);
+    }
+
+    private static KeyPair keyPair(BigInteger d) throws Exception {
+        ECParameterSpec spec = ECNamedCurveTable.getParameterSpec("secp256k1");
+        KeyFactory factory = KeyFactory.getInstance("ECDSA", BouncyCastleProvider.PROVIDER_NAME);
+        return new KeyPair(
+                factory.generatePublic(new ECPublicKeySpec(spec.getG().multiply(d), spec)),
+                factory.generatePrivate(new ECPrivateKeySpec(d, spec))
+        );
+    }
+
+    @Test
+    public void PublicKeyHex() throws Exception
+    {
+        Secp256k1RequestSigner signer = new Secp256k1RequestSigner(userKey);
+        assertEquals(BaseEncoding.base16().encode(userKey.getPublic().getEncoded()), signer.getPublicKeyHex());
+    }
+
+    @Test
+    public void SignaturesVerifyWithProvider() throws Exception
+    {
+        Secp256k1RequestSigner signer = new Secp256k1RequestSigner(userKey);
+
+        for (int i = 0; i < 50; i++) {
+            String url = "https://api.netki.com/v1/partner/walletname/" + i;
+            byte[] body = i % 2 == 0 ? null : ("{\"wallet_names\": [" + i + "]}").getBytes("UTF-8");
+            assertTrue(verify(userKey, url, body, signer.sign(url, body)));
+        }
+    }
+
+    @Test
+    public void SignaturesVerifyForManyKeys() throws Exception
+    {
+        for (int i = 0; i < 20; i++) {
+            KeyPair key = generateKey("ECDSA");
+            Secp256k1RequestSigner signer = new Secp256k1RequestSigner(key);
+            assertTrue(verify(key, "https://api.netki.com/v1/partner/domain", null, signer.sign("https://api.netki.com/v1/partner/domain", null)));
+        }
+    }
+
+    @Test
+    public void Deterministic() throws Exception
+    {
+        Secp256k1RequestSigner signer = new Secp256k1RequestSigner(userKey);
+        byte[] body = "{}".getBytes("UTF-8");
+
+        assertArrayEquals(signer.sign("https://api.netki.com/v1/partner/domain", body), signer.sign("https://api.netki.com/v1/partner/domain", body));
+        assertFalse(Arrays.equals(signer.sign("https://api.netki.com/v1/partner/domain", body), signer.sign("https://api.netki.com/v1/partner/domain", null)));
+    }
+
+    @Test
+    public void Rfc6979Vector() throws Exception
+    {
+        // secp256k1, private key 1, SHA-256("Satoshi Nakamoto")
+        Secp256k1RequestSigner signer = new Secp256k1RequestSigner(keyPair(BigInteger.ONE));
+        ASN1Sequence sig = ASN1Sequence.getInstance(signer.sign("Satoshi Nakamoto", null));
+
+        BigInteger r = ASN1Integer.getInstance(sig.getObjectAt(0)).getValue();
+        BigInteger s = ASN1Integer.getInstance(sig.getObjectAt(1)).getValue();
+        BigInteger lowS = new BigInteger("2442ce9d2b916064108014783e923ec36b49743e2ffa1c4496f01a512aafd9e5", 16);
+
+        assertEquals(new BigInteger("934b1ea10a4b3c1757e2b0c017d0b6143ce3c9a7e6a4a49860d7a6ab210ee3d8", 16), r);
+        assertTrue(s.equals(lowS) || s.equals(Secp256k1.N.subtract(lowS)));
+    }
+
+    @Test
+    public void RejectsOtherCurves() throws Exception
+    {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("ECDSA", BouncyCastleProvider.PROVIDER_NAME);
+        generator.initialize(ECNamedCurveTable.getParameterSpec("prime256v1"), new SecureRandom());
+
+        try {
+            new Secp256k1RequestSigner(generator.generateKeyPair());
+            fail("Expected InvalidKeyException");
+        } catch (InvalidKeyException e) {
+            assertEquals("userKey MUST be on the secp256k1 curve", e.getMessage());
+        }
+    }
+
+    @Test
+    public void UsedByRequestor() throws Exception
+    {
+        NetkiClient client = new NetkiClient("partner_ksk_hex", "partner_ksk_sig_hex", userKey, "http://localhost:9191");
+        client.setRequestSigner(new Secp256k1RequestSigner(userKey));
+        byte[] body = "{\"key\": \"value\"}".getBytes("UTF-8");
+
+        TransportRequest request = new Requestor().buildRequest(client, "/endpoint", "POST", body);
+
+        assertEquals(BaseEncoding.base16().encode(userKey.getPublic().getEncoded()), request.getHeaders().get("X-IdentityDocument"));
+        assertTrue(verify(userKey, request.getUrl(), body, BaseEncoding.base16().decode(request.getHeaders().get("X-Signature"))));
+    }
+
+    @Test
+    public void AuthHeadersFollowSignerChange() throws Exception
+    {
+        NetkiClient client = new NetkiClient("partner_ksk_hex", "partner_ksk_sig_hex", userKey, "http://localhost:9191");
+        assertEquals(BaseEncoding.base16().encode(userKey.getPublic().getEncoded()), client.getAuthHeaders().get("X-IdentityDocument"));
+
+        client.setRequestSigner(new RequestSigner() {
+            @Override
+            public String getPublicKeyHex() {
+                return "OTHERKEY";
+            }
+
+            @Override
+            public byte[] sign(String url, byte[] body) {
+                return new byte[0];
+            }
+        });
+        assertEquals("OTHERKEY", client.getAuthHeaders().get("X-IdentityDocument"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.netki;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Secp256k1Test {
+
+    private static final BigInteger P = Secp256k1.P;
+
+    private static void assertFieldOps(BigInteger x, BigInteger y) {
+        int[] xl = Secp256k1.toLimbs(x);
+        int[] yl = Secp256k1.toLimbs(y);
+
+        assertEquals(x.multiply(y).mod(P), Secp256k1.toBigInteger(Secp256k1.mul(xl, yl)));
+        assertEquals(x.add(y).mod(P), Secp256k1.toBigInteger(Secp256k1.add(xl, yl)));
+        assertEquals(x.subtract(y).mod(P), Secp256k1.toBigInteger(Secp256k1.sub(xl, yl)));
+    }
+
+    @Test
+    public void FieldOpsEdgeValues()
+    {
+        List<BigInteger> values = new ArrayList<BigInteger>();
+        for (int i = 0; i < 8; i++) {
+            values.add(BigInteger.valueOf(i));
+            values.add(P.subtract(BigInteger.valueOf(i + 1)));
+            values.add(BigInteger.ONE.shiftLeft(32 * i).subtract(BigInteger.ONE));
+            values.add(BigInteger.ONE.shiftLeft(256).subtract(P).add(BigInteger.valueOf(i)));
+        }
+
+        for (BigInteger x : values) {
+            for (BigInteger y : values) {
+                assertFieldOps(x, y);
+            }
+        }
+    }
+
+    @Test
+    public void FieldOpsRandomValues()
+    {
+        Random random = new Random(6979);
+        for (int i = 0; i < 20000; i++) {
+            assertFieldOps(new BigInteger(256, random).mod(P), new BigInteger(256, random).mod(P));
+        }
+    }
+
+    @Test
+    public void MultiplyGenerator()
+    {
+        // 1G and (N - 1)G = -G share G's x coordinate
+        assertEquals(Secp256k1.GX, Secp256k1.multiplyGeneratorX(BigInteger.ONE));
+        assertEquals(Secp256k1.GX, Secp256k1.multiplyGeneratorX(Secp256k1.N.subtract(BigInteger.ONE)));
+
+        // 2G
+        assertEquals(new BigInteger("C6047F9441ED7D6D3045406E95C07CD85C778E4B8CEF3CA7ABAC09B95C709EE5", 16), Secp256k1.multiplyGeneratorX(BigInteger.valueOf(2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void MultiplyGeneratorOutOfRange()
+    {
+        Secp256k1.multiplyGeneratorX(Secp256k1.N);
+    }
+}
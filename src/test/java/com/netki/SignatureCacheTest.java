@@ -0,0 +1,113 @@
+package com.netki;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.netki.TestUtil.generateKey;
+import static org.junit.Assert.*;
+
+public class SignatureCacheTest {
+
+    /**
+     * Signer returning a new signature (its call count) on every call
+     */
+    private static class CountingSigner implements RequestSigner {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String getPublicKeyHex() {
+            return "00";
+        }
+
+        @Override
+        public byte[] sign(String url, byte[] body) {
+            return new byte[] {(byte) calls.incrementAndGet()};
+        }
+    }
+
+    @Test
+    public void OnlyGetIsCachedByDefault() throws Exception {
+        SignatureCache cache = new SignatureCache(60000, 10, false);
+
+        assertEquals("GET http://localhost/v1/certificate/1", cache.key("GET", "http://localhost/v1/certificate/1", null));
+        assertNull(cache.key("POST", "http://localhost/v1/certificate", "{}".getBytes("UTF-8")));
+        assertNull(cache.key("PUT", "http://localhost/v1/certificate", "{}".getBytes("UTF-8")));
+        assertNull(cache.key("DELETE", "http://localhost/v1/certificate/1", null));
+
+        SignatureCache mutating = new SignatureCache(60000, 10, true);
+        String key = mutating.key("POST", "http://localhost/v1/certificate", "{}".getBytes("UTF-8"));
+        assertNotNull(key);
+        assertEquals(key, mutating.key("POST", "http://localhost/v1/certificate", "{}".getBytes("UTF-8")));
+        assertNotEquals(key, mutating.key("POST", "http://localhost/v1/certificate", "{ }".getBytes("UTF-8")));
+        assertNotEquals(key, mutating.key("PUT", "http://localhost/v1/certificate", "{}".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void EntriesExpire() throws Exception {
+        AtomicLong now = new AtomicLong();
+        RequestSigner signer = new CountingSigner();
+        SignatureCache cache = new SignatureCache(1000, 10, false, now::get);
+
+        cache.put("GET http://localhost/a", signer, "AA");
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertEquals("AA", cache.get("GET http://localhost/a", signer));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertNull(cache.get("GET http://localhost/a", signer));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void SizeIsCapped() throws Exception {
+        RequestSigner signer = new CountingSigner();
+        SignatureCache cache = new SignatureCache(60000, 2, false);
+
+        cache.put("a", signer, "AA");
+        cache.put("b", signer, "BB");
+        assertEquals("AA", cache.get("a", signer));
+
+        // b is least recently used
+        cache.put("c", signer, "CC");
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b", signer));
+        assertEquals("AA", cache.get("a", signer));
+        assertEquals("CC", cache.get("c", signer));
+    }
+
+    @Test
+    public void OtherSignerMisses() throws Exception {
+        SignatureCache cache = new SignatureCache(60000, 10, false);
+
+        cache.put("a", new CountingSigner(), "AA");
+        assertNull(cache.get("a", new CountingSigner()));
+    }
+
+    @Test
+    public void RequestorReusesSignatureForRepeatedGet() throws Exception {
+        NetkiClient client = new NetkiClient("partner_ksk_hex", "partner_ksk_sig_hex", generateKey("ECDSA"), "http://localhost:9191");
+        CountingSigner signer = new CountingSigner();
+        client.setRequestSigner(signer);
+        client.setSignatureCache(60000, 100);
+        Requestor requestor = new Requestor();
+
+        String first = requestor.buildRequest(client, "/v1/certificate/1", "GET", (String) null).getHeaders().get("X-Signature");
+        String second = requestor.buildRequest(client, "/v1/certificate/1", "GET", (String) null).getHeaders().get("X-Signature");
+        assertEquals(first, second);
+        assertEquals(1, signer.calls.get());
+
+        // Different URL and mutating methods are signed every time
+        requestor.buildRequest(client, "/v1/certificate/2", "GET", (String) null);
+        requestor.buildRequest(client, "/v1/certificate", "POST", "{}");
+        requestor.buildRequest(client, "/v1/certificate", "POST", "{}");
+        assertEquals(4, signer.calls.get());
+
+        // Disabled
+        client.setSignatureCache(0, 100);
+        requestor.buildRequest(client, "/v1/certificate/1", "GET", (String) null);
+        assertEquals(5, signer.calls.get());
+    }
+}
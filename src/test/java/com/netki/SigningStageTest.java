@@ -0,0 +1,121 @@
+package com.netki;
+
+import org.junit.Test;
+
+import java.security.GeneralSecurityException;
+import java.security.SignatureException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SigningStageTest {
+
+    /**
+     * Signer that records its thread's name and blocks until released
+     */
+    private static class BlockingSigner implements RequestSigner {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String getPublicKeyHex() {
+            return "";
+        }
+
+        @Override
+        public byte[] sign(String url, byte[] body) throws GeneralSecurityException {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new SignatureException("interrupted");
+            }
+            return Thread.currentThread().getName().getBytes();
+        }
+    }
+
+    private static final RequestSigner THREAD_NAME_SIGNER = new RequestSigner() {
+        @Override
+        public String getPublicKeyHex() {
+            return "";
+        }
+
+        @Override
+        public byte[] sign(String url, byte[] body) {
+            return Thread.currentThread().getName().getBytes();
+        }
+    };
+
+    @Test
+    public void SignsOnSigningThread() throws Exception {
+        SigningStage stage = new SigningStage(2, 4);
+        try {
+            assertTrue(new String(SigningStage.await(stage.sign(THREAD_NAME_SIGNER, "http://localhost", null))).startsWith("netki-signer-"));
+        } finally {
+            stage.shutdown();
+        }
+    }
+
+    @Test
+    public void FullQueueSignsOnCallingThread() throws Exception {
+        SigningStage stage = new SigningStage(1, 1);
+        BlockingSigner blocking = new BlockingSigner();
+        try {
+            // Occupy the only signing thread, then fill the queue
+            Future<byte[]> first = stage.sign(blocking, "http://localhost/1", null);
+            assertTrue(blocking.started.await(5, TimeUnit.SECONDS));
+            Future<byte[]> queued = stage.sign(THREAD_NAME_SIGNER, "http://localhost/2", null);
+
+            Future<byte[]> overflow = stage.sign(THREAD_NAME_SIGNER, "http://localhost/3", null);
+            assertTrue(overflow.isDone());
+            assertEquals(Thread.currentThread().getName(), new String(SigningStage.await(overflow)));
+            assertFalse(queued.isDone());
+
+            blocking.release.countDown();
+            assertTrue(new String(SigningStage.await(first)).startsWith("netki-signer-"));
+            assertTrue(new String(SigningStage.await(queued)).startsWith("netki-signer-"));
+        } finally {
+            blocking.release.countDown();
+            stage.shutdown();
+        }
+    }
+
+    @Test
+    public void SignsOnCallingThreadAfterShutdown() throws Exception {
+        SigningStage stage = new SigningStage(1, 1);
+        stage.shutdown();
+
+        assertEquals(Thread.currentThread().getName(), new String(SigningStage.await(stage.sign(THREAD_NAME_SIGNER, "http://localhost", null))));
+    }
+
+    @Test
+    public void SigningFailureIsRethrown() throws Exception {
+        SigningStage stage = new SigningStage(1, 1);
+        try {
+            SigningStage.await(stage.sign(new RequestSigner() {
+                @Override
+                public String getPublicKeyHex() {
+                    return "";
+                }
+
+                @Override
+                public byte[] sign(String url, byte[] body) throws GeneralSecurityException {
+                    throw new SignatureException("bad key");
+                }
+            }, "http://localhost", null));
+            fail("Expected SignatureException");
+        } catch (SignatureException e) {
+            assertEquals("bad key", e.getMessage());
+        } finally {
+            stage.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void RejectsNoThreads() {
+        new SigningStage(0, 1);
+    }
+}
@@ -1,5 +1,7 @@
 package com.netki;
 
+import org.codehaus.jackson.map.ObjectMapper;
+import org.mockito.stubbing.Answer;
 import org.spongycastle.jce.ECNamedCurveTable;
 import org.spongycastle.jce.provider.BouncyCastleProvider;
 import org.spongycastle.jce.spec.ECParameterSpec;
@@ -35,4 +37,11 @@ class TestUtil {
         }
     }
 
+    // Answer for a typed Requestor.processRequest stub, handing the given JSON response to the call's ResponseHandler
+    static Answer<Object> respondWith(final String json) {
+        return invocation -> {
+            ResponseHandler<?> handler = (ResponseHandler<?>) invocation.getArguments()[4];
+            return handler.handle(new ObjectMapper().readTree(json));
+        };
+    }
 }
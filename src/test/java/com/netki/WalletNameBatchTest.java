@@ -0,0 +1,123 @@
+package com.netki;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.junit.Assert.*;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(WalletNameBatch.class)
+public class WalletNameBatchTest {
+
+    private Requestor mockRequestor;
+    private NetkiClient client;
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setUp() {
+        this.mockRequestor = mock(Requestor.class);
+        this.client = new NetkiClient("partner_id", "api_key", "https://server", this.mockRequestor);
+    }
+
+    @After
+    public void tearDown() {
+        reset(this.mockRequestor);
+    }
+
+    private WalletName walletName(String id, String name) {
+        WalletName wn = new WalletName(this.mockRequestor);
+        wn.setId(id);
+        wn.setDomainName("domain.com");
+        wn.setName(name);
+        wn.setCurrencyAddress("btc", "1btcaddress");
+        return wn;
+    }
+
+    @Test
+    public void AccessorsTest()
+    {
+        WalletNameBatch batch = this.client.createWalletNameBatch();
+        assertEquals(WalletNameBatch.DEFAULT_BATCH_SIZE, batch.getBatchSize());
+        assertEquals(WalletNameBatch.DEFAULT_PARALLELISM, batch.getParallelism());
+        assertEquals(0, batch.getWalletNames().size());
+
+        batch.setBatchSize(10);
+        batch.setParallelism(2);
+        batch.add(walletName(null, "wallet"));
+
+        assertEquals(10, batch.getBatchSize());
+        assertEquals(2, batch.getParallelism());
+        assertEquals(1, batch.getWalletNames().size());
+    }
+
+    @Test
+    public void SaveChunksCreatesAndUpdates() throws Exception
+    {
+        // Echo each created wallet name back with an id derived from its name, in reverse order
+        when(this.mockRequestor.processRequestBody(eq(this.client), eq("/v1/partner/walletname"), eq("POST"), any(byte[].class))).thenAnswer(invocation -> {
+            JsonNode request = mapper.readTree(new String((byte[]) invocation.getArguments()[3], "UTF-8"));
+            List<Object> created = new ArrayList<Object>();
+            for (JsonNode wn : request.get("wallet_names")) {
+                Map<String, String> item = new HashMap<String, String>();
+                item.put("domain_name", wn.get("domain_name").asText());
+                item.put("name", wn.get("name").asText());
+                item.put("id", "id-" + wn.get("name").asText());
+                created.add(0, item);
+            }
+            Map<String, Object> response = new HashMap<String, Object>();
+            response.put("success", true);
+            response.put("wallet_names", created);
+            return mapper.writeValueAsString(response);
+        });
+        when(this.mockRequestor.processRequestBody(eq(this.client), eq("/v1/partner/walletname"), eq("PUT"), any(byte[].class))).thenReturn("{\"success\": true}");
+
+        WalletNameBatch batch = this.client.createWalletNameBatch();
+        batch.setBatchSize(2);
+        List<WalletName> creates = new ArrayList<WalletName>();
+        for (int i = 0; i < 5; i++) {
+            WalletName wn = walletName(null, "new" + i);
+            creates.add(wn);
+            batch.add(wn);
+        }
+        for (int i = 0; i < 3; i++) {
+            batch.add(walletName("existing" + i, "old" + i));
+        }
+
+        batch.save();
+
+        verify(this.mockRequestor, times(3)).processRequestBody(eq(this.client), eq("/v1/partner/walletname"), eq("POST"), any(byte[].class));
+        verify(this.mockRequestor, times(2)).processRequestBody(eq(this.client), eq("/v1/partner/walletname"), eq("PUT"), any(byte[].class));
+        for (WalletName wn : creates) {
+            assertEquals("id-" + wn.getName(), wn.getId());
+            assertEquals(this.client, wn.getClient());
+        }
+    }
+
+    @Test
+    public void SaveFailure() throws Exception
+    {
+        when(this.mockRequestor.processRequestBody(eq(this.client), eq("/v1/partner/walletname"), eq("PUT"), any(byte[].class))).thenThrow(new Exception("Error Message"));
+
+        WalletNameBatch batch = this.client.createWalletNameBatch();
+        batch.add(walletName("existing", "old"));
+
+        try {
+            batch.save();
+            fail("Expected Exception");
+        } catch (Exception e) {
+            assertEquals("Error Message", e.getMessage());
+        }
+    }
+}